@@ -0,0 +1,120 @@
+package com.udea.innosistemas.benchmark;
+
+import com.udea.innosistemas.config.properties.JwtSigningKeysProperties;
+import com.udea.innosistemas.entity.User;
+import com.udea.innosistemas.entity.UserRole;
+import com.udea.innosistemas.security.JwtKeyRing;
+import com.udea.innosistemas.security.JwtTokenProvider;
+import com.udea.innosistemas.security.VerifiedTokenCache;
+import com.udea.innosistemas.service.ClaimsVersionService;
+import com.udea.innosistemas.service.RevokedTokenNearCache;
+import com.udea.innosistemas.service.TokenEpochService;
+import org.mockito.Mockito;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * Fixtures compartidos por los benchmarks JMH.
+ * Construye los componentes reales del pipeline de tokens sin contexto de Spring y
+ * crea mocks "stub-only" (no registran invocaciones) para no distorsionar la tasa de asignación.
+ *
+ * Autor: Fábrica-Escuela de Software UdeA
+ * Versión: 1.0.0
+ */
+final class BenchmarkFixtures {
+
+    static final String SECRET = "benchmark-secret-key-with-at-least-64-bytes-for-hs512-signature-0123456789";
+
+    private BenchmarkFixtures() {
+    }
+
+    static JwtKeyRing createKeyRing(String algorithm) {
+        JwtSigningKeysProperties properties = new JwtSigningKeysProperties();
+        properties.setAlgorithm(algorithm);
+
+        JwtKeyRing keyRing = new JwtKeyRing();
+        ReflectionTestUtils.setField(keyRing, "jwtSecret", SECRET);
+        ReflectionTestUtils.setField(keyRing, "properties", properties);
+        ReflectionTestUtils.invokeMethod(keyRing, "init");
+        return keyRing;
+    }
+
+    static VerifiedTokenCache createVerifiedTokenCache(boolean enabled) {
+        VerifiedTokenCache cache = new VerifiedTokenCache();
+        ReflectionTestUtils.setField(cache, "cacheEnabled", enabled);
+        ReflectionTestUtils.setField(cache, "maxSize", 10_000L);
+        ReflectionTestUtils.invokeMethod(cache, "init");
+        return cache;
+    }
+
+    static JwtTokenProvider createTokenProvider(String algorithm, VerifiedTokenCache cache) {
+        JwtTokenProvider provider = new JwtTokenProvider();
+        ReflectionTestUtils.setField(provider, "keyRing", createKeyRing(algorithm));
+        ReflectionTestUtils.setField(provider, "verifiedTokenCache", cache);
+        ReflectionTestUtils.setField(provider, "jwtExpirationInMs", 3600L);
+        ReflectionTestUtils.setField(provider, "refreshExpirationInMs", 7200L);
+        ReflectionTestUtils.invokeMethod(provider, "init");
+        return provider;
+    }
+
+    static ClaimsVersionService createClaimsVersionService(RedisTemplate<String, String> redisTemplate) {
+        ClaimsVersionService service = new ClaimsVersionService();
+        ReflectionTestUtils.setField(service, "redisTemplate", redisTemplate);
+        ReflectionTestUtils.setField(service, "versionCacheSeconds", 5L);
+        ReflectionTestUtils.setField(service, "versionCacheMaxSize", 50_000L);
+        ReflectionTestUtils.invokeMethod(service, "init");
+        return service;
+    }
+
+    /**
+     * Near-cache de revocaciones sincronizado y vacío: ningún token requiere consultar Redis
+     */
+    static RevokedTokenNearCache createRevokedTokenNearCache(RedisTemplate<String, String> redisTemplate,
+                                                             boolean enabled) {
+        RevokedTokenNearCache nearCache = new RevokedTokenNearCache();
+        ReflectionTestUtils.setField(nearCache, "redisTemplate", redisTemplate);
+        ReflectionTestUtils.setField(nearCache, "enabled", enabled);
+        ReflectionTestUtils.setField(nearCache, "expectedInsertions", 100_000L);
+        ReflectionTestUtils.setField(nearCache, "falsePositiveRate", 0.001);
+        ReflectionTestUtils.invokeMethod(nearCache, "init");
+        ReflectionTestUtils.setField(nearCache, "ready", enabled);
+        return nearCache;
+    }
+
+    static TokenEpochService createTokenEpochService(RedisTemplate<String, String> redisTemplate) {
+        TokenEpochService service = new TokenEpochService();
+        ReflectionTestUtils.setField(service, "redisTemplate", redisTemplate);
+        ReflectionTestUtils.setField(service, "refreshExpirationInSeconds", 7200L);
+        ReflectionTestUtils.setField(service, "epochCacheSeconds", 5L);
+        ReflectionTestUtils.setField(service, "epochCacheMaxSize", 50_000L);
+        ReflectionTestUtils.invokeMethod(service, "init");
+        return service;
+    }
+
+    /**
+     * RedisTemplate en memoria: ninguna clave existe y las lecturas devuelven null,
+     * por lo que ningún token aparece revocado y las versiones de claims son 0
+     */
+    @SuppressWarnings("unchecked")
+    static RedisTemplate<String, String> createRedisTemplate() {
+        return deepStubOnlyMock(RedisTemplate.class);
+    }
+
+    static User createUser() {
+        User user = new User("estudiante@udea.edu.co", "password123", UserRole.STUDENT);
+        user.setId(42L);
+        user.setTeamId(7L);
+        user.setCourseId(3L);
+        user.setFirstName("Ana");
+        user.setLastName("Pérez");
+        return user;
+    }
+
+    static <T> T stubOnlyMock(Class<T> type) {
+        return Mockito.mock(type, Mockito.withSettings().stubOnly());
+    }
+
+    static <T> T deepStubOnlyMock(Class<T> type) {
+        return Mockito.mock(type, Mockito.withSettings().stubOnly().defaultAnswer(Mockito.RETURNS_DEEP_STUBS));
+    }
+}
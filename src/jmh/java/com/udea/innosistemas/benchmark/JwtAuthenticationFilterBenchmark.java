@@ -0,0 +1,118 @@
+package com.udea.innosistemas.benchmark;
+
+import com.udea.innosistemas.entity.User;
+import com.udea.innosistemas.repository.UserRepository;
+import com.udea.innosistemas.security.JwtAuthenticationFilter;
+import com.udea.innosistemas.security.JwtKeyRing;
+import com.udea.innosistemas.security.JwtTokenProvider;
+import com.udea.innosistemas.security.VerifiedTokenCache;
+import com.udea.innosistemas.service.ClaimsVersionService;
+import com.udea.innosistemas.service.TokenBlacklistService;
+import com.udea.innosistemas.service.UserDetailsServiceImpl;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mide JwtAuthenticationFilter de extremo a extremo (blacklist, verificación, carga del principal
+ * y contexto de seguridad) con Redis y UserRepository simulados en memoria, de modo que el
+ * resultado refleja solo el costo de CPU y asignación del propio pipeline.
+ *
+ * Ejecutar: mvn -Pbenchmark test-compile exec:exec -Djmh.includes=JwtAuthenticationFilterBenchmark
+ *
+ * Autor: Fábrica-Escuela de Software UdeA
+ * Versión: 1.0.0
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtAuthenticationFilterBenchmark {
+
+    @Param({"true", "false"})
+    public boolean verifiedTokenCache;
+
+    @Param({"false", "true"})
+    public boolean stateless;
+
+    @Param({"true", "false"})
+    public boolean revocationFilter;
+
+    private BenchmarkFilter filter;
+    private String authorizationHeader;
+
+    private static final FilterChain NO_OP_CHAIN = (request, response) -> { };
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        RedisTemplate<String, String> redisTemplate = BenchmarkFixtures.createRedisTemplate();
+        VerifiedTokenCache cache = BenchmarkFixtures.createVerifiedTokenCache(verifiedTokenCache);
+        ClaimsVersionService claimsVersionService = BenchmarkFixtures.createClaimsVersionService(redisTemplate);
+
+        JwtTokenProvider tokenProvider = BenchmarkFixtures.createTokenProvider(JwtKeyRing.HS512, cache);
+        ReflectionTestUtils.setField(tokenProvider, "claimsVersionService", claimsVersionService);
+
+        User user = BenchmarkFixtures.createUser();
+        UserRepository userRepository = BenchmarkFixtures.stubOnlyMock(UserRepository.class);
+        Mockito.when(userRepository.findByEmail(user.getEmail())).thenReturn(Optional.of(user));
+
+        UserDetailsServiceImpl userDetailsService = new UserDetailsServiceImpl();
+        ReflectionTestUtils.setField(userDetailsService, "userRepository", userRepository);
+
+        TokenBlacklistService tokenBlacklistService = new TokenBlacklistService();
+        ReflectionTestUtils.setField(tokenBlacklistService, "redisTemplate", redisTemplate);
+        ReflectionTestUtils.setField(tokenBlacklistService, "verifiedTokenCache", cache);
+        ReflectionTestUtils.setField(tokenBlacklistService, "tokenProvider", tokenProvider);
+        ReflectionTestUtils.setField(tokenBlacklistService, "legacyLookupEnabled", true);
+        ReflectionTestUtils.setField(tokenBlacklistService, "revokedTokenNearCache",
+                BenchmarkFixtures.createRevokedTokenNearCache(redisTemplate, revocationFilter));
+        ReflectionTestUtils.setField(tokenBlacklistService, "tokenEpochService",
+                BenchmarkFixtures.createTokenEpochService(redisTemplate));
+
+        filter = new BenchmarkFilter();
+        ReflectionTestUtils.setField(filter, "tokenProvider", tokenProvider);
+        ReflectionTestUtils.setField(filter, "customUserDetailsService", userDetailsService);
+        ReflectionTestUtils.setField(filter, "tokenBlacklistService", tokenBlacklistService);
+        ReflectionTestUtils.setField(filter, "claimsVersionService", claimsVersionService);
+        ReflectionTestUtils.setField(filter, "statelessEnabled", stateless);
+
+        authorizationHeader = "Bearer " + tokenProvider.generateTokenFromUser(user);
+    }
+
+    @Benchmark
+    public Authentication authenticateRequest() throws ServletException, IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/graphql");
+        request.addHeader("Authorization", authorizationHeader);
+        try {
+            filter.filter(request, new MockHttpServletResponse());
+            return SecurityContextHolder.getContext().getAuthentication();
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+    /**
+     * Expone doFilterInternal sin pasar por la lógica de OncePerRequestFilter
+     */
+    static class BenchmarkFilter extends JwtAuthenticationFilter {
+
+        void filter(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+            doFilterInternal(request, response, NO_OP_CHAIN);
+        }
+    }
+}
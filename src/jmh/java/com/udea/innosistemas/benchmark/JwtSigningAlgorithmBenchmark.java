@@ -0,0 +1,52 @@
+package com.udea.innosistemas.benchmark;
+
+import com.udea.innosistemas.entity.User;
+import com.udea.innosistemas.security.JwtKeyRing;
+import com.udea.innosistemas.security.JwtTokenProvider;
+import com.udea.innosistemas.security.VerifiedToken;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compara el costo de firmar y verificar tokens JWT con cada algoritmo soportado
+ * por JwtKeyRing (HS512, ES256 y EdDSA). La caché de tokens verificados no se
+ * configura, de modo que cada verificación ejecuta la operación criptográfica completa.
+ *
+ * Ejecutar: mvn -Pbenchmark test-compile exec:exec -Djmh.includes=JwtSigningAlgorithmBenchmark
+ *
+ * Autor: Fábrica-Escuela de Software UdeA
+ * Versión: 1.0.0
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtSigningAlgorithmBenchmark {
+
+    @Param({JwtKeyRing.HS512, JwtKeyRing.ES256, JwtKeyRing.EDDSA})
+    public String algorithm;
+
+    private JwtTokenProvider tokenProvider;
+    private User user;
+    private String token;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        tokenProvider = BenchmarkFixtures.createTokenProvider(algorithm, null);
+        user = BenchmarkFixtures.createUser();
+        token = tokenProvider.generateTokenFromUser(user);
+    }
+
+    @Benchmark
+    public String sign() {
+        return tokenProvider.generateTokenFromUser(user);
+    }
+
+    @Benchmark
+    public VerifiedToken verify() {
+        return tokenProvider.verify(token);
+    }
+}
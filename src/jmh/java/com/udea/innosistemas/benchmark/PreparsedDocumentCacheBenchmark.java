@@ -0,0 +1,120 @@
+package com.udea.innosistemas.benchmark;
+
+import com.udea.innosistemas.dto.TeamMember;
+import com.udea.innosistemas.dto.UserPermissions;
+import com.udea.innosistemas.entity.User;
+import com.udea.innosistemas.entity.UserRole;
+import com.udea.innosistemas.service.PreparsedDocumentCache;
+import graphql.ExecutionInput;
+import graphql.ExecutionResult;
+import graphql.GraphQL;
+import graphql.schema.GraphQLSchema;
+import graphql.schema.idl.RuntimeWiring;
+import graphql.schema.idl.SchemaGenerator;
+import graphql.schema.idl.SchemaParser;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mide el ahorro de PreparsedDocumentCache en las operaciones getTeamMembers y getUserPermissions.
+ * Ejecuta las operaciones completas sobre el esquema real con data fetchers en memoria, de modo
+ * que la diferencia entre cached=true y cached=false es el costo de parsear y validar el documento
+ * en cada petición (visible también en la asignación con -prof gc).
+ *
+ * Ejecutar: mvn -Pbenchmark test-compile exec:exec -Djmh.includes=PreparsedDocumentCacheBenchmark
+ *
+ * Autor: Fábrica-Escuela de Software UdeA
+ * Versión: 1.0.0
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PreparsedDocumentCacheBenchmark {
+
+    private static final Map<String, String> DOCUMENTS = Map.of(
+            "getTeamMembers",
+            "query TeamMembers($teamId: ID!) { getTeamMembers(teamId: $teamId) "
+                    + "{ id email firstName lastName fullName role teamId courseId } }",
+            "getUserPermissions",
+            "query Permissions { getUserPermissions { userId role permissions teamId courseId "
+                    + "canManageTeam canManageCourse canViewAllTeams canSendNotifications } }");
+
+    @Param({"getTeamMembers", "getUserPermissions"})
+    public String operation;
+
+    @Param({"false", "true"})
+    public boolean cached;
+
+    private GraphQL graphQL;
+    private String document;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        GraphQL.Builder builder = GraphQL.newGraphQL(createSchema());
+        if (cached) {
+            PreparsedDocumentCache cache = new PreparsedDocumentCache();
+            ReflectionTestUtils.setField(cache, "enabled", true);
+            ReflectionTestUtils.setField(cache, "maxWeight", 2_000_000L);
+            ReflectionTestUtils.setField(cache, "maxDocumentLength", 20_000);
+            ReflectionTestUtils.invokeMethod(cache, "init");
+            builder.preparsedDocumentProvider(cache);
+        }
+        graphQL = builder.build();
+        document = DOCUMENTS.get(operation);
+    }
+
+    @Benchmark
+    public ExecutionResult execute() {
+        ExecutionResult result = graphQL.execute(ExecutionInput.newExecutionInput()
+                .query(document)
+                .variables(Map.of("teamId", "7"))
+                .build());
+        if (!result.getErrors().isEmpty()) {
+            throw new IllegalStateException(result.getErrors().toString());
+        }
+        return result;
+    }
+
+    /**
+     * Esquema real de la aplicación con resolvers que devuelven datos fijos
+     */
+    private GraphQLSchema createSchema() throws IOException {
+        List<TeamMember> members = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            User user = new User("estudiante" + i + "@udea.edu.co", "password123", UserRole.STUDENT);
+            user.setId((long) i);
+            user.setFirstName("Estudiante");
+            user.setLastName(String.valueOf(i));
+            user.setTeamId(7L);
+            user.setCourseId(3L);
+            members.add(new TeamMember(user));
+        }
+        UserPermissions permissions = new UserPermissions(1L, UserRole.STUDENT,
+                List.of("team:read", "course:read", "project:submit", "grade:view"));
+        permissions.setTeamId(7L);
+        permissions.setCourseId(3L);
+
+        RuntimeWiring wiring = RuntimeWiring.newRuntimeWiring()
+                .type("Query", type -> type
+                        .dataFetcher("getTeamMembers", env -> members)
+                        .dataFetcher("getUserPermissions", env -> permissions))
+                .build();
+
+        try (InputStreamReader reader = new InputStreamReader(
+                new ClassPathResource("graphql/schema.graphqls").getInputStream(), StandardCharsets.UTF_8)) {
+            return new SchemaGenerator().makeExecutableSchema(new SchemaParser().parse(reader), wiring);
+        }
+    }
+}
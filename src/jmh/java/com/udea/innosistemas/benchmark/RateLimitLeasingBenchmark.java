@@ -0,0 +1,107 @@
+package com.udea.innosistemas.benchmark;
+
+import com.udea.innosistemas.service.DistributedRateLimiter;
+import com.udea.innosistemas.service.RateLimitProbe;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mide cuántas llamadas a Redis ahorra el préstamo local de tokens de DistributedRateLimiter.
+ * Redis se simula con un bucket siempre disponible, de modo que el resultado refleja solo el
+ * patrón de acceso: el contador auxiliar redisCalls dividido entre requests es el número de
+ * llamadas a Redis por petición (1.0 sin leasing).
+ *
+ * Ejecutar: mvn -Pbenchmark test-compile exec:exec -Djmh.includes=RateLimitLeasingBenchmark
+ *
+ * Autor: Fábrica-Escuela de Software UdeA
+ * Versión: 1.0.0
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class RateLimitLeasingBenchmark {
+
+    private static final Duration REFILL_PERIOD = Duration.ofMinutes(1);
+
+    // 1 = sin leasing: cada petición consulta Redis
+    @Param({"1", "5", "20"})
+    public long leaseSize;
+
+    // Claves distintas entre las que se reparten las peticiones
+    @Param({"1", "100"})
+    public int keys;
+
+    private DistributedRateLimiter rateLimiter;
+    private String[] keyNames;
+    private int next;
+
+    /**
+     * Contadores reportados por JMH junto al throughput
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Calls {
+        public long requests;
+        public long redisCalls;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            requests = 0;
+            redisCalls = 0;
+        }
+    }
+
+    private Calls calls;
+
+    @Setup(Level.Trial)
+    public void setUp(Calls calls) {
+        this.calls = calls;
+        RedisTemplate<String, String> redisTemplate = createLeasingRedisTemplate();
+
+        rateLimiter = new DistributedRateLimiter();
+        ReflectionTestUtils.setField(rateLimiter, "redisTemplate", redisTemplate);
+        ReflectionTestUtils.setField(rateLimiter, "leaseSize", leaseSize);
+        ReflectionTestUtils.setField(rateLimiter, "leaseTtlMs", 1000L);
+        ReflectionTestUtils.setField(rateLimiter, "maxLeases", 10_000L);
+        ReflectionTestUtils.invokeMethod(rateLimiter, "init");
+
+        keyNames = new String[keys];
+        for (int i = 0; i < keys; i++) {
+            keyNames[i] = "ip:10.0.0." + i;
+        }
+    }
+
+    @Benchmark
+    public RateLimitProbe tryConsume(Calls calls) {
+        calls.requests++;
+        String key = keyNames[next++ % keyNames.length];
+        return rateLimiter.tryConsume(key, 1, 1_000_000, 1_000_000, REFILL_PERIOD);
+    }
+
+    /**
+     * Redis simulado: cada ejecución del script concede el lote pedido y cuenta la llamada
+     */
+    @SuppressWarnings("unchecked")
+    private RedisTemplate<String, String> createLeasingRedisTemplate() {
+        return Mockito.mock(RedisTemplate.class, Mockito.withSettings().stubOnly().defaultAnswer(invocation -> {
+            if (!"execute".equals(invocation.getMethod().getName())
+                    || !(invocation.getRawArguments()[0] instanceof RedisScript)) {
+                return null;
+            }
+            calls.redisCalls++;
+            Object[] args = (Object[]) invocation.getRawArguments()[2];
+            long desired = Long.parseLong(args[4].toString());
+            return List.of(desired, 1_000_000L, 0L);
+        }));
+    }
+}
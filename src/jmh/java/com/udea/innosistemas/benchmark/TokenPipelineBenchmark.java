@@ -0,0 +1,66 @@
+package com.udea.innosistemas.benchmark;
+
+import com.udea.innosistemas.entity.User;
+import com.udea.innosistemas.security.JwtKeyRing;
+import com.udea.innosistemas.security.JwtTokenProvider;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mide el pipeline de tokens de JwtTokenProvider: emisión de tokens de acceso y refresh,
+ * validación y extracción de claims. Se ejecuta con y sin VerifiedTokenCache para cuantificar
+ * el ahorro de no repetir la verificación de firma.
+ *
+ * Reporta throughput y distribución de latencia (p99 en modo SampleTime); la asignación por
+ * operación se obtiene con el profiler gc configurado en el perfil benchmark.
+ *
+ * Ejecutar: mvn -Pbenchmark test-compile exec:exec -Djmh.includes=TokenPipelineBenchmark
+ *
+ * Autor: Fábrica-Escuela de Software UdeA
+ * Versión: 1.0.0
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TokenPipelineBenchmark {
+
+    @Param({"true", "false"})
+    public boolean verifiedTokenCache;
+
+    private JwtTokenProvider tokenProvider;
+    private User user;
+    private String accessToken;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        tokenProvider = BenchmarkFixtures.createTokenProvider(JwtKeyRing.HS512,
+                BenchmarkFixtures.createVerifiedTokenCache(verifiedTokenCache));
+        user = BenchmarkFixtures.createUser();
+        accessToken = tokenProvider.generateTokenFromUser(user);
+    }
+
+    @Benchmark
+    public String generateTokenFromUser() {
+        return tokenProvider.generateTokenFromUser(user);
+    }
+
+    @Benchmark
+    public String generateRefreshTokenFromUser() {
+        return tokenProvider.generateRefreshTokenFromUser(user);
+    }
+
+    @Benchmark
+    public boolean validateToken() {
+        return tokenProvider.validateToken(accessToken);
+    }
+
+    @Benchmark
+    public Map<String, Object> getAllClaims() {
+        return tokenProvider.getAllClaims(accessToken);
+    }
+}
@@ -3,8 +3,10 @@ package com.udea.innosistemas.config;
 import com.udea.innosistemas.security.directive.AuthDirective;
 import com.udea.innosistemas.security.directive.RequiresCourseDirective;
 import com.udea.innosistemas.security.directive.RequiresTeamDirective;
+import com.udea.innosistemas.service.PreparsedDocumentCache;
 import graphql.schema.idl.RuntimeWiring;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.graphql.GraphQlSourceBuilderCustomizer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.graphql.execution.RuntimeWiringConfigurer;
@@ -12,10 +14,11 @@ import org.springframework.graphql.execution.RuntimeWiringConfigurer;
 /**
  * Configuración para registrar las directivas personalizadas de GraphQL.
  * Registra las directivas @auth, @requiresTeam y @requiresCourse para
- * validación de permisos a nivel de campo.
+ * validación de permisos a nivel de campo, y la caché de documentos
+ * parseados y validados usada por la ejecución de GraphQL.
  *
  * Autor: Fábrica-Escuela de Software UdeA
- * Versión: 1.0.0
+ * Versión: 1.1.0
  */
 @Configuration
 public class GraphQLDirectivesConfig {
@@ -29,6 +32,9 @@ public class GraphQLDirectivesConfig {
     @Autowired
     private RequiresCourseDirective requiresCourseDirective;
 
+    @Autowired
+    private PreparsedDocumentCache preparsedDocumentCache;
+
     /**
      * Configura el RuntimeWiring de GraphQL para registrar las directivas personalizadas.
      *
@@ -41,4 +47,15 @@ public class GraphQLDirectivesConfig {
                 .directive("requiresTeam", requiresTeamDirective)
                 .directive("requiresCourse", requiresCourseDirective);
     }
+
+    /**
+     * Registra la caché de documentos parseados en el GraphQlSource.
+     *
+     * @return GraphQlSourceBuilderCustomizer con el PreparsedDocumentProvider
+     */
+    @Bean
+    public GraphQlSourceBuilderCustomizer preparsedDocumentCustomizer() {
+        return builder -> builder.configureGraphQl(graphQlBuilder ->
+                graphQlBuilder.preparsedDocumentProvider(preparsedDocumentCache));
+    }
 }
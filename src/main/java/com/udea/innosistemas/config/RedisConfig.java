@@ -8,6 +8,7 @@ import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
 import org.springframework.data.redis.connection.jedis.JedisClientConfiguration;
 import org.springframework.data.redis.connection.jedis.JedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
 import java.time.Duration;
@@ -87,6 +88,19 @@ public class RedisConfig {
         return template;
     }
 
+    /**
+     * Contenedor de suscripciones pub/sub de Redis (sincronización de revocaciones entre nodos)
+     *
+     * @param connectionFactory Factory de conexión a Redis
+     * @return Contenedor de listeners
+     */
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory connectionFactory) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        return container;
+    }
+
     /**
      * Parsea una duración en formato Spring (ej: "2000ms", "2s")
      *
@@ -51,6 +51,9 @@ public class SecurityConfig {
     @Autowired
     private SecurityHeadersFilter securityHeadersFilter;
 
+    @Autowired
+    private AdaptiveConcurrencyLimitFilter adaptiveConcurrencyLimitFilter;
+
     @Bean
     public JwtAuthenticationFilter jwtAuthenticationFilter() {
         return new JwtAuthenticationFilter();
@@ -89,6 +92,7 @@ public class SecurityConfig {
                         .requestMatchers("/auth/**", "/api/v1/auth/**").permitAll()
                         .requestMatchers("/graphql", "/api/v1/graphql").permitAll()
                         .requestMatchers("/graphiql", "/graphiql/**", "/api/v1/graphiql", "/api/v1/graphiql/**").permitAll()
+                        .requestMatchers("/.well-known/jwks.json", "/api/v1/.well-known/jwks.json").permitAll()
                         .requestMatchers("/actuator/health", "/api/v1/actuator/health").permitAll()
                         .requestMatchers("/actuator/info", "/api/v1/actuator/info").permitAll()
                         .requestMatchers("/h2-console/**", "/api/v1/h2-console/**").permitAll()
@@ -116,7 +120,10 @@ public class SecurityConfig {
         // 2. JWT Authentication (segundo)
         http.addFilterBefore(jwtAuthenticationFilter(), UsernamePasswordAuthenticationFilter.class);
 
-        // 3. Rate Limiting (tercero - después de autenticación)
+        // 3. Límite de concurrencia adaptativo (antes de autenticar: descarta carga sin gastar CPU ni BD)
+        http.addFilterBefore(adaptiveConcurrencyLimitFilter, JwtAuthenticationFilter.class);
+
+        // 4. Rate Limiting (después de autenticación)
         http.addFilterAfter(rateLimitFilter, JwtAuthenticationFilter.class);
 
         return http.build();
@@ -0,0 +1,94 @@
+package com.udea.innosistemas.config.properties;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Propiedades del anillo de claves para firma asimétrica de tokens JWT.
+ * La primera clave con clave privada es la activa para firmar; las demás solo verifican
+ * tokens emitidos antes de la rotación y se retiran cuando vence el último refresh token.
+ *
+ * Autor: Fábrica-Escuela de Software UdeA
+ * Versión: 1.0.0
+ */
+@ConfigurationProperties(prefix = "innosistemas.auth.jwt")
+public class JwtSigningKeysProperties {
+
+    /**
+     * Algoritmo de firma: HS512 (secreto compartido), ES256 o EdDSA
+     */
+    private String algorithm = "HS512";
+
+    /**
+     * Aceptar tokens HMAC sin kid emitidos antes de migrar a firma asimétrica
+     */
+    private boolean acceptLegacyHmac = true;
+
+    /**
+     * Claves del anillo, ordenadas de la más reciente a la más antigua
+     */
+    private List<SigningKey> signingKeys = new ArrayList<>();
+
+    public String getAlgorithm() {
+        return algorithm;
+    }
+
+    public void setAlgorithm(String algorithm) {
+        this.algorithm = algorithm;
+    }
+
+    public boolean isAcceptLegacyHmac() {
+        return acceptLegacyHmac;
+    }
+
+    public void setAcceptLegacyHmac(boolean acceptLegacyHmac) {
+        this.acceptLegacyHmac = acceptLegacyHmac;
+    }
+
+    public List<SigningKey> getSigningKeys() {
+        return signingKeys;
+    }
+
+    public void setSigningKeys(List<SigningKey> signingKeys) {
+        this.signingKeys = signingKeys;
+    }
+
+    /**
+     * Par de claves identificado por kid. Las claves se expresan en Base64 (PKCS#8 y X.509),
+     * con o sin encabezados PEM.
+     */
+    public static class SigningKey {
+
+        private String kid;
+
+        private String privateKey;
+
+        private String publicKey;
+
+        public String getKid() {
+            return kid;
+        }
+
+        public void setKid(String kid) {
+            this.kid = kid;
+        }
+
+        public String getPrivateKey() {
+            return privateKey;
+        }
+
+        public void setPrivateKey(String privateKey) {
+            this.privateKey = privateKey;
+        }
+
+        public String getPublicKey() {
+            return publicKey;
+        }
+
+        public void setPublicKey(String publicKey) {
+            this.publicKey = publicKey;
+        }
+    }
+}
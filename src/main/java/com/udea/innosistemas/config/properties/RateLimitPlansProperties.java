@@ -0,0 +1,75 @@
+package com.udea.innosistemas.config.properties;
+
+import com.udea.innosistemas.entity.UserRole;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Planes de rate limiting por rol. Los usuarios autenticados consumen del plan de su rol;
+ * los roles sin plan y las peticiones anónimas usan innosistemas.ratelimit.default.
+ * Permite, por ejemplo, dar más capacidad de ráfaga a profesores durante las ventanas de calificación.
+ *
+ * Autor: Fábrica-Escuela de Software UdeA
+ * Versión: 1.0.0
+ */
+@ConfigurationProperties(prefix = "innosistemas.ratelimit")
+public class RateLimitPlansProperties {
+
+    /**
+     * Plan de cada rol
+     */
+    private Map<UserRole, Plan> plans = new EnumMap<>(UserRole.class);
+
+    public Map<UserRole, Plan> getPlans() {
+        return plans;
+    }
+
+    public void setPlans(Map<UserRole, Plan> plans) {
+        this.plans = plans;
+    }
+
+    /**
+     * Token bucket de un plan: capacidad (ráfaga máxima) y reposición por periodo
+     */
+    public static class Plan {
+
+        private long capacity;
+        private long refillTokens;
+        private long refillPeriodMinutes = 1;
+
+        public Plan() {
+        }
+
+        public Plan(long capacity, long refillTokens, long refillPeriodMinutes) {
+            this.capacity = capacity;
+            this.refillTokens = refillTokens;
+            this.refillPeriodMinutes = refillPeriodMinutes;
+        }
+
+        public long getCapacity() {
+            return capacity;
+        }
+
+        public void setCapacity(long capacity) {
+            this.capacity = capacity;
+        }
+
+        public long getRefillTokens() {
+            return refillTokens;
+        }
+
+        public void setRefillTokens(long refillTokens) {
+            this.refillTokens = refillTokens;
+        }
+
+        public long getRefillPeriodMinutes() {
+            return refillPeriodMinutes;
+        }
+
+        public void setRefillPeriodMinutes(long refillPeriodMinutes) {
+            this.refillPeriodMinutes = refillPeriodMinutes;
+        }
+    }
+}
@@ -2,7 +2,9 @@ package com.udea.innosistemas.controller;
 
 import com.udea.innosistemas.dto.AuthResponse;
 import com.udea.innosistemas.dto.LoginRequest;
+import com.udea.innosistemas.security.ClientIpResolver;
 import com.udea.innosistemas.service.AuthenticationService;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
@@ -23,8 +25,10 @@ public class AuthController {
     private AuthenticationService authenticationService;
 
     @PostMapping("/login")
-    public ResponseEntity<AuthResponse> login(@Valid @RequestBody LoginRequest loginRequest) {
-        AuthResponse response = authenticationService.login(loginRequest);
+    public ResponseEntity<AuthResponse> login(@Valid @RequestBody LoginRequest loginRequest,
+                                              HttpServletRequest request) {
+        AuthResponse response = authenticationService.login(loginRequest,
+                request.getHeader("User-Agent"), ClientIpResolver.resolve(request));
         return ResponseEntity.ok(response);
     }
 
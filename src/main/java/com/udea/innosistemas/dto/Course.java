@@ -0,0 +1,42 @@
+package com.udea.innosistemas.dto;
+
+import java.util.Objects;
+
+/**
+ * DTO de un curso para el grafo GraphQL. Los equipos y miembros se resuelven por lotes
+ * (@BatchMapping), por lo que solo contiene el identificador.
+ *
+ * Autor: Fábrica-Escuela de Software UdeA
+ * Versión: 1.0.0
+ */
+public class Course {
+
+    private Long id;
+
+    public Course() {
+    }
+
+    public Course(Long id) {
+        this.id = id;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof Course)) return false;
+        return Objects.equals(id, ((Course) o).id);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(id);
+    }
+}
@@ -0,0 +1,57 @@
+package com.udea.innosistemas.dto;
+
+/**
+ * Información de paginación de una conexión GraphQL (especificación Relay Cursor Connections).
+ *
+ * Autor: Fábrica-Escuela de Software UdeA
+ * Versión: 1.0.0
+ */
+public class PageInfo {
+
+    private boolean hasNextPage;
+    private boolean hasPreviousPage;
+    private String startCursor;
+    private String endCursor;
+
+    public PageInfo() {
+    }
+
+    public PageInfo(boolean hasNextPage, boolean hasPreviousPage, String startCursor, String endCursor) {
+        this.hasNextPage = hasNextPage;
+        this.hasPreviousPage = hasPreviousPage;
+        this.startCursor = startCursor;
+        this.endCursor = endCursor;
+    }
+
+    public boolean isHasNextPage() {
+        return hasNextPage;
+    }
+
+    public void setHasNextPage(boolean hasNextPage) {
+        this.hasNextPage = hasNextPage;
+    }
+
+    public boolean isHasPreviousPage() {
+        return hasPreviousPage;
+    }
+
+    public void setHasPreviousPage(boolean hasPreviousPage) {
+        this.hasPreviousPage = hasPreviousPage;
+    }
+
+    public String getStartCursor() {
+        return startCursor;
+    }
+
+    public void setStartCursor(String startCursor) {
+        this.startCursor = startCursor;
+    }
+
+    public String getEndCursor() {
+        return endCursor;
+    }
+
+    public void setEndCursor(String endCursor) {
+        this.endCursor = endCursor;
+    }
+}
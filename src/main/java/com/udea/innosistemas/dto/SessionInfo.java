@@ -0,0 +1,68 @@
+package com.udea.innosistemas.dto;
+
+/**
+ * DTO con los metadatos de una sesión activa.
+ * Permite mostrar al usuario sus dispositivos conectados y su última actividad.
+ *
+ * Autor: Fábrica-Escuela de Software UdeA
+ * Versión: 1.0.0
+ */
+public class SessionInfo {
+
+    private String sessionId;
+    private long issuedAt;
+    private long lastSeen;
+    private String device;
+    private String ip;
+
+    public SessionInfo() {
+    }
+
+    public SessionInfo(String sessionId, long issuedAt, long lastSeen, String device, String ip) {
+        this.sessionId = sessionId;
+        this.issuedAt = issuedAt;
+        this.lastSeen = lastSeen;
+        this.device = device;
+        this.ip = ip;
+    }
+
+    public String getSessionId() {
+        return sessionId;
+    }
+
+    public void setSessionId(String sessionId) {
+        this.sessionId = sessionId;
+    }
+
+    public long getIssuedAt() {
+        return issuedAt;
+    }
+
+    public void setIssuedAt(long issuedAt) {
+        this.issuedAt = issuedAt;
+    }
+
+    public long getLastSeen() {
+        return lastSeen;
+    }
+
+    public void setLastSeen(long lastSeen) {
+        this.lastSeen = lastSeen;
+    }
+
+    public String getDevice() {
+        return device;
+    }
+
+    public void setDevice(String device) {
+        this.device = device;
+    }
+
+    public String getIp() {
+        return ip;
+    }
+
+    public void setIp(String ip) {
+        this.ip = ip;
+    }
+}
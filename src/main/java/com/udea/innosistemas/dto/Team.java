@@ -0,0 +1,42 @@
+package com.udea.innosistemas.dto;
+
+import java.util.Objects;
+
+/**
+ * DTO de un equipo para el grafo GraphQL. Los miembros se resuelven por lotes
+ * (@BatchMapping), por lo que solo contiene el identificador.
+ *
+ * Autor: Fábrica-Escuela de Software UdeA
+ * Versión: 1.0.0
+ */
+public class Team {
+
+    private Long id;
+
+    public Team() {
+    }
+
+    public Team(Long id) {
+        this.id = id;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof Team)) return false;
+        return Objects.equals(id, ((Team) o).id);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(id);
+    }
+}
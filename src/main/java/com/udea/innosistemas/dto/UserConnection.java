@@ -0,0 +1,39 @@
+package com.udea.innosistemas.dto;
+
+import java.util.List;
+
+/**
+ * Página de usuarios con paginación por cursor (especificación Relay Cursor Connections).
+ *
+ * Autor: Fábrica-Escuela de Software UdeA
+ * Versión: 1.0.0
+ */
+public class UserConnection {
+
+    private List<UserEdge> edges;
+    private PageInfo pageInfo;
+
+    public UserConnection() {
+    }
+
+    public UserConnection(List<UserEdge> edges, PageInfo pageInfo) {
+        this.edges = edges;
+        this.pageInfo = pageInfo;
+    }
+
+    public List<UserEdge> getEdges() {
+        return edges;
+    }
+
+    public void setEdges(List<UserEdge> edges) {
+        this.edges = edges;
+    }
+
+    public PageInfo getPageInfo() {
+        return pageInfo;
+    }
+
+    public void setPageInfo(PageInfo pageInfo) {
+        this.pageInfo = pageInfo;
+    }
+}
@@ -0,0 +1,37 @@
+package com.udea.innosistemas.dto;
+
+/**
+ * Arista de una conexión de usuarios: el usuario y el cursor opaco que lo identifica.
+ *
+ * Autor: Fábrica-Escuela de Software UdeA
+ * Versión: 1.0.0
+ */
+public class UserEdge {
+
+    private String cursor;
+    private TeamMember node;
+
+    public UserEdge() {
+    }
+
+    public UserEdge(String cursor, TeamMember node) {
+        this.cursor = cursor;
+        this.node = node;
+    }
+
+    public String getCursor() {
+        return cursor;
+    }
+
+    public void setCursor(String cursor) {
+        this.cursor = cursor;
+    }
+
+    public TeamMember getNode() {
+        return node;
+    }
+
+    public void setNode(TeamMember node) {
+        this.node = node;
+    }
+}
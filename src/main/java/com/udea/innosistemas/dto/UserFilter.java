@@ -0,0 +1,49 @@
+package com.udea.innosistemas.dto;
+
+import com.udea.innosistemas.entity.UserRole;
+
+/**
+ * Filtro de la consulta paginada de usuarios. Los criterios nulos no se aplican.
+ *
+ * Autor: Fábrica-Escuela de Software UdeA
+ * Versión: 1.0.0
+ */
+public class UserFilter {
+
+    private UserRole role;
+    private Long courseId;
+    private Long teamId;
+
+    public UserFilter() {
+    }
+
+    public UserFilter(UserRole role, Long courseId, Long teamId) {
+        this.role = role;
+        this.courseId = courseId;
+        this.teamId = teamId;
+    }
+
+    public UserRole getRole() {
+        return role;
+    }
+
+    public void setRole(UserRole role) {
+        this.role = role;
+    }
+
+    public Long getCourseId() {
+        return courseId;
+    }
+
+    public void setCourseId(Long courseId) {
+        this.courseId = courseId;
+    }
+
+    public Long getTeamId() {
+        return teamId;
+    }
+
+    public void setTeamId(Long teamId) {
+        this.teamId = teamId;
+    }
+}
@@ -0,0 +1,22 @@
+package com.udea.innosistemas.exception;
+
+import graphql.ErrorClassification;
+
+/**
+ * Clasificaciones de error GraphQL propias de la aplicación, complementarias a
+ * org.springframework.graphql.execution.ErrorType. Se publican en extensions.classification.
+ *
+ * Autor: Fábrica-Escuela de Software UdeA
+ * Versión: 1.1.0
+ */
+public enum GraphQLErrorType implements ErrorClassification {
+
+    /** La operación excede el límite de peticiones del cliente */
+    RATE_LIMITED,
+
+    /** La operación excede la profundidad máxima permitida */
+    QUERY_TOO_DEEP,
+
+    /** La operación excede la complejidad máxima permitida */
+    QUERY_TOO_COMPLEX
+}
@@ -0,0 +1,19 @@
+package com.udea.innosistemas.exception;
+
+/**
+ * Excepción lanzada cuando el cursor de una consulta paginada (argumento after) no es válido.
+ * Se reporta al cliente como BAD_REQUEST en lugar de reiniciar la paginación desde el principio.
+ *
+ * Autor: Fábrica-Escuela de Software UdeA
+ * Versión: 1.0.0
+ */
+public class InvalidCursorException extends RuntimeException {
+
+    public InvalidCursorException(String message) {
+        super(message);
+    }
+
+    public InvalidCursorException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -1,9 +1,14 @@
 package com.udea.innosistemas.repository;
 
 import com.udea.innosistemas.entity.User;
+import com.udea.innosistemas.entity.UserRole;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -17,4 +22,30 @@ public interface UserRepository extends JpaRepository<User, Long> {
     List<User> findByTeamId(Long teamId);
 
     List<User> findByCourseId(Long courseId);
-}
\ No newline at end of file
+
+    // Consultas por lotes para los @BatchMapping de GraphQL (una sentencia por nivel del grafo)
+
+    List<User> findByTeamIdIn(Collection<Long> teamIds);
+
+    List<User> findByCourseIdIn(Collection<Long> courseIds);
+
+    /**
+     * Pares (courseId, teamId) de los equipos con miembros en los cursos indicados
+     */
+    @Query("select distinct u.courseId, u.teamId from User u " +
+            "where u.courseId in :courseIds and u.teamId is not null order by u.teamId")
+    List<Object[]> findTeamIdsByCourseIdIn(@Param("courseIds") Collection<Long> courseIds);
+
+    /**
+     * Página por keyset de los usuarios que cumplen los criterios no nulos, ordenados por ID.
+     * Al devolver List (no Page) el Pageable solo aplica el LIMIT y no se ejecuta un COUNT.
+     */
+    @Query("select u from User u " +
+            "where (:role is null or u.role = :role) " +
+            "and (:courseId is null or u.courseId = :courseId) " +
+            "and (:teamId is null or u.teamId = :teamId) " +
+            "and (:afterId is null or u.id > :afterId) " +
+            "order by u.id")
+    List<User> findPageAfterId(@Param("role") UserRole role, @Param("courseId") Long courseId,
+                               @Param("teamId") Long teamId, @Param("afterId") Long afterId, Pageable pageable);
+}
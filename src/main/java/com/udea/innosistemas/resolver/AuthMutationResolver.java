@@ -3,7 +3,9 @@ package com.udea.innosistemas.resolver;
 import com.udea.innosistemas.dto.AuthResponse;
 import com.udea.innosistemas.dto.LoginRequest;
 import com.udea.innosistemas.dto.LogoutResponse;
+import com.udea.innosistemas.security.ClientIpResolver;
 import com.udea.innosistemas.security.JwtTokenProvider;
+import com.udea.innosistemas.security.VerifiedToken;
 import com.udea.innosistemas.service.AuthenticationService;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
@@ -53,7 +55,11 @@ public class AuthMutationResolver {
             @Argument @Valid @Email @NotBlank String email,
             @Argument @Valid @NotBlank String password) {
         LoginRequest loginRequest = new LoginRequest(email, password);
-        return authenticationService.login(loginRequest);
+        if (request == null) {
+            return authenticationService.login(loginRequest);
+        }
+        return authenticationService.login(loginRequest, request.getHeader("User-Agent"),
+                ClientIpResolver.resolve(request));
     }
 
     /**
@@ -77,6 +83,12 @@ public class AuthMutationResolver {
     @MutationMapping
     @PreAuthorize("isAuthenticated()")
     public LogoutResponse logout(@Argument String token) {
+        // Reutilizar el token ya verificado por el filtro si corresponde al de la petición
+        VerifiedToken currentToken = VerifiedToken.fromRequest(request);
+        if (currentToken != null && (!StringUtils.hasText(token) || token.equals(currentToken.getToken()))) {
+            return authenticationService.logout(currentToken);
+        }
+
         // Si no se proporciona token, extraer del header
         String jwt = token;
         if (!StringUtils.hasText(jwt) && request != null) {
@@ -1,6 +1,8 @@
 package com.udea.innosistemas.resolver;
 
 import com.udea.innosistemas.dto.TeamMember;
+import com.udea.innosistemas.dto.UserConnection;
+import com.udea.innosistemas.dto.UserFilter;
 import com.udea.innosistemas.dto.UserInfo;
 import com.udea.innosistemas.dto.UserPermissions;
 import com.udea.innosistemas.service.UserQueryService;
@@ -16,7 +18,7 @@ import java.util.List;
  * Resolver para queries GraphQL relacionadas con usuarios, permisos y equipos.
  *
  * Autor: Fábrica-Escuela de Software UdeA
- * Versión: 2.0.0
+ * Versión: 2.1.0
  */
 @Controller
 public class QueryResolver {
@@ -67,4 +69,19 @@ public class QueryResolver {
     public List<TeamMember> getTeamMembers(@Argument Long teamId) {
         return userQueryService.getTeamMembers(teamId);
     }
+
+    /**
+     * Lista usuarios paginados por cursor.
+     * Requiere el permiso user:read (profesores, TAs y admins); los TAs solo ven su propio curso.
+     *
+     * @param filter Criterios de búsqueda (opcional)
+     * @param first Tamaño de página
+     * @param after Cursor de la página anterior
+     * @return Página de usuarios
+     */
+    @QueryMapping
+    @PreAuthorize("hasAnyRole('PROFESSOR', 'TA', 'ADMIN')")
+    public UserConnection users(@Argument UserFilter filter, @Argument Integer first, @Argument String after) {
+        return userQueryService.getUsersPage(filter, first, after);
+    }
 }
\ No newline at end of file
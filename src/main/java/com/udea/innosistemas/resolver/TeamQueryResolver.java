@@ -0,0 +1,101 @@
+package com.udea.innosistemas.resolver;
+
+import com.udea.innosistemas.dto.Course;
+import com.udea.innosistemas.dto.Team;
+import com.udea.innosistemas.dto.TeamMember;
+import com.udea.innosistemas.dto.UserConnection;
+import com.udea.innosistemas.service.UserQueryService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.graphql.data.method.annotation.Argument;
+import org.springframework.graphql.data.method.annotation.BatchMapping;
+import org.springframework.graphql.data.method.annotation.QueryMapping;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.stereotype.Controller;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Resolver para los tipos Course y Team del grafo GraphQL.
+ * Los campos de lista se resuelven con @BatchMapping (DataLoader): todos los cursos o equipos
+ * de un mismo nivel de la consulta se cargan con una sola sentencia SQL, de modo que
+ * Course { teams { members } } cuesta un número constante de consultas sin importar
+ * cuántos equipos tenga el curso. Para cursos grandes, courseMembers devuelve el listado
+ * paginado por cursor en lugar de la lista completa de Course.members.
+ *
+ * Autor: Fábrica-Escuela de Software UdeA
+ * Versión: 1.1.0
+ */
+@Controller
+public class TeamQueryResolver {
+
+    @Autowired
+    private UserQueryService userQueryService;
+
+    /**
+     * Obtiene un curso. El acceso se valida con la directiva @requiresCourse.
+     *
+     * @param courseId ID del curso
+     * @return Curso cuyos equipos y miembros se resuelven por lotes
+     */
+    @QueryMapping
+    @PreAuthorize("isAuthenticated()")
+    public Course getCourse(@Argument Long courseId) {
+        return new Course(courseId);
+    }
+
+    /**
+     * Obtiene un equipo. El acceso se valida con la directiva @requiresTeam.
+     *
+     * @param teamId ID del equipo
+     * @return Equipo cuyos miembros se resuelven por lotes
+     */
+    @QueryMapping
+    @PreAuthorize("isAuthenticated()")
+    public Team getTeam(@Argument Long teamId) {
+        return new Team(teamId);
+    }
+
+    /**
+     * Obtiene una página de los miembros de un curso. El acceso se valida con la directiva @requiresCourse.
+     *
+     * @param courseId ID del curso
+     * @param first Tamaño de página
+     * @param after Cursor de la página anterior
+     * @return Página de miembros del curso
+     */
+    @QueryMapping(name = "courseMembers")
+    @PreAuthorize("isAuthenticated()")
+    public UserConnection courseMembersPage(@Argument Long courseId, @Argument Integer first,
+                                            @Argument String after) {
+        return userQueryService.getCourseMembersPage(courseId, first, after);
+    }
+
+    @BatchMapping
+    public Map<Course, List<Team>> teams(List<Course> courses) {
+        Map<Long, List<Team>> teamsByCourse = userQueryService.getTeamsByCourseIds(
+                courses.stream().map(Course::getId).distinct().toList());
+        Map<Course, List<Team>> result = new LinkedHashMap<>();
+        courses.forEach(course -> result.put(course, teamsByCourse.get(course.getId())));
+        return result;
+    }
+
+    @BatchMapping(typeName = "Course", field = "members")
+    public Map<Course, List<TeamMember>> courseMembers(List<Course> courses) {
+        Map<Long, List<TeamMember>> membersByCourse = userQueryService.getMembersByCourseIds(
+                courses.stream().map(Course::getId).distinct().toList());
+        Map<Course, List<TeamMember>> result = new LinkedHashMap<>();
+        courses.forEach(course -> result.put(course, membersByCourse.get(course.getId())));
+        return result;
+    }
+
+    @BatchMapping(typeName = "Team", field = "members")
+    public Map<Team, List<TeamMember>> teamMembers(List<Team> teams) {
+        Map<Long, List<TeamMember>> membersByTeam = userQueryService.getMembersByTeamIds(
+                teams.stream().map(Team::getId).distinct().toList());
+        Map<Team, List<TeamMember>> result = new LinkedHashMap<>();
+        teams.forEach(team -> result.put(team, membersByTeam.get(team.getId())));
+        return result;
+    }
+}
@@ -0,0 +1,260 @@
+package com.udea.innosistemas.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Filtro de límite de concurrencia adaptativo (AIMD) para /graphql y /auth.
+ * A diferencia del rate limiting, limita el trabajo en curso: cuando la latencia observada supera
+ * el umbral (ej: Postgres lento) el límite se reduce multiplicativamente, y mientras las peticiones
+ * respondan a tiempo con el límite en uso crece de forma aditiva. Las peticiones que exceden el
+ * límite se rechazan de inmediato con 503 y Retry-After en lugar de acumular hilos de Tomcat.
+ *
+ * Las peticiones de autenticación tienen prioridad: las peticiones normales solo pueden ocupar
+ * parte del límite y el resto queda reservado para /auth/login y /auth/refresh. Las peticiones
+ * anónimas a /graphql son normales: cualquiera puede enviarlas, y si usaran la reserva una
+ * avalancha de consultas sin token dejaría sin capacidad al login.
+ *
+ * Solo cuentan como fallo para AIMD la latencia por encima del umbral, las excepciones y los
+ * timeouts o errores asíncronos. Las respuestas 5xx no reducen el límite: las que indican
+ * sobrecarga (pool de conexiones agotado, Postgres lento) llegan tarde y ya se penalizan por
+ * latencia, y las rápidas son errores de la aplicación que recortar el límite no corrige.
+ *
+ * Autor: Fábrica-Escuela de Software UdeA
+ * Versión: 1.1.0
+ */
+@Component
+public class AdaptiveConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdaptiveConcurrencyLimitFilter.class);
+
+    /**
+     * Clase de prioridad de una petición
+     */
+    enum Priority {
+        /** /auth/login y /auth/refresh: pueden usar todo el límite */
+        AUTH,
+        /** resto de operaciones: solo la fracción no reservada */
+        NORMAL
+    }
+
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+
+    @Value("${innosistemas.concurrency.enabled:true}")
+    private boolean enabled;
+
+    @Value("${innosistemas.concurrency.initial-limit:50}")
+    private int initialLimit;
+
+    @Value("${innosistemas.concurrency.min-limit:10}")
+    private int minLimit;
+
+    @Value("${innosistemas.concurrency.max-limit:200}")
+    private int maxLimit;
+
+    // Latencia a partir de la cual se considera que el backend está saturado
+    @Value("${innosistemas.concurrency.latency-threshold-ms:500}")
+    private long latencyThresholdMs;
+
+    @Value("${innosistemas.concurrency.backoff-ratio:0.9}")
+    private double backoffRatio;
+
+    // Fracción del límite reservada a peticiones de autenticación
+    @Value("${innosistemas.concurrency.auth-reserved-fraction:0.2}")
+    private double authReservedFraction;
+
+    @Value("${innosistemas.concurrency.retry-after-seconds:1}")
+    private long retryAfterSeconds;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile double limit;
+
+    private final Map<Priority, Counter> rejections = new EnumMap<>(Priority.class);
+
+    @PostConstruct
+    void init() {
+        this.limit = initialLimit;
+
+        if (meterRegistry != null) {
+            Gauge.builder("http.concurrency.limit", this, AdaptiveConcurrencyLimitFilter::getLimit)
+                    .description("Current adaptive concurrency limit")
+                    .register(meterRegistry);
+            Gauge.builder("http.concurrency.inflight", inFlight, AtomicInteger::get)
+                    .description("Requests currently being processed under the concurrency limit")
+                    .register(meterRegistry);
+            for (Priority priority : Priority.values()) {
+                rejections.put(priority, Counter.builder("http.concurrency.rejected")
+                        .tag("priority", priority.name().toLowerCase())
+                        .description("Requests shed because the concurrency limit was reached")
+                        .register(meterRegistry));
+            }
+        }
+        logger.info("Adaptive concurrency limit initialized (initial: {}, min: {}, max: {}, latency threshold: {} ms)",
+                initialLimit, minLimit, maxLimit, latencyThresholdMs);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+
+        Priority priority = classify(request);
+        if (!tryAcquire(priority)) {
+            reject(request, response, priority);
+            return;
+        }
+
+        long startTime = System.nanoTime();
+        AtomicBoolean released = new AtomicBoolean();
+        boolean failed = true;
+        try {
+            filterChain.doFilter(request, response);
+            failed = false;
+        } finally {
+            // GraphQL sobre Spring MVC responde de forma asíncrona: liberar al completar
+            if (!failed && request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new ReleaseListener(startTime, released));
+            } else {
+                release(startTime, failed, released);
+            }
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        if (!enabled) {
+            return true;
+        }
+        String path = request.getRequestURI();
+        return !(path.endsWith("/graphql") || path.contains("/auth/"));
+    }
+
+    public double getLimit() {
+        return limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    Priority classify(HttpServletRequest request) {
+        String path = request.getRequestURI();
+        if (path.contains("/auth/login") || path.contains("/auth/refresh")) {
+            return Priority.AUTH;
+        }
+        return Priority.NORMAL;
+    }
+
+    boolean tryAcquire(Priority priority) {
+        double allowed = priority == Priority.AUTH ? limit : limit * (1 - authReservedFraction);
+        while (true) {
+            int current = inFlight.get();
+            if (current >= allowed) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    void release(long startTime, boolean failed, AtomicBoolean released) {
+        if (!released.compareAndSet(false, true)) {
+            return;
+        }
+        int inFlightAtCompletion = inFlight.getAndDecrement();
+        onSample(System.nanoTime() - startTime, inFlightAtCompletion, failed);
+    }
+
+    /**
+     * AIMD: reducción multiplicativa ante latencia alta o error, incremento aditivo si el límite
+     * está en uso y la latencia es sana (si no está en uso no hay evidencia para crecer)
+     */
+    private synchronized void onSample(long latencyNanos, int inFlightAtCompletion, boolean failed) {
+        double current = limit;
+        double next;
+        if (failed || latencyNanos > latencyThresholdMs * 1_000_000L) {
+            next = Math.max(minLimit, current * backoffRatio);
+        } else if (inFlightAtCompletion * 2 >= current) {
+            next = Math.min(maxLimit, current + 1);
+        } else {
+            return;
+        }
+        if ((int) next != (int) current) {
+            logger.debug("Concurrency limit changed from {} to {}", (int) current, (int) next);
+        }
+        limit = next;
+    }
+
+    private void reject(HttpServletRequest request, HttpServletResponse response, Priority priority)
+            throws IOException {
+        Counter counter = rejections.get(priority);
+        if (counter != null) {
+            counter.increment();
+        }
+        logger.warn("Request shed by concurrency limit ({} in flight, limit {}): {} {}",
+                inFlight.get(), (int) limit, request.getMethod(), request.getRequestURI());
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.setContentType("application/json");
+        response.getWriter().write(
+                "{\"error\":\"Service Unavailable\",\"message\":\"Server is overloaded. Please try again later.\"}"
+        );
+    }
+
+    /**
+     * Libera el permiso cuando termina una petición asíncrona
+     */
+    private final class ReleaseListener implements AsyncListener {
+
+        private final long startTime;
+        private final AtomicBoolean released;
+
+        ReleaseListener(long startTime, AtomicBoolean released) {
+            this.startTime = startTime;
+            this.released = released;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            release(startTime, false, released);
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            release(startTime, true, released);
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            release(startTime, true, released);
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            event.getAsyncContext().addListener(this);
+        }
+    }
+}
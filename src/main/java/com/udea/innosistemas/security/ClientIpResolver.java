@@ -0,0 +1,37 @@
+package com.udea.innosistemas.security;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * Resuelve la IP del cliente considerando proxies (X-Forwarded-For y X-Real-IP).
+ * Compartido por el rate limiting y el registro de sesiones.
+ *
+ * Autor: Fábrica-Escuela de Software UdeA
+ * Versión: 1.0.0
+ */
+public final class ClientIpResolver {
+
+    private ClientIpResolver() {
+    }
+
+    /**
+     * Obtiene la IP del cliente considerando proxies
+     *
+     * @param request HttpServletRequest
+     * @return IP del cliente
+     */
+    public static String resolve(HttpServletRequest request) {
+        String xForwardedFor = request.getHeader("X-Forwarded-For");
+        if (xForwardedFor != null && !xForwardedFor.isEmpty()) {
+            // Tomar la primera IP de la lista
+            return xForwardedFor.split(",")[0].trim();
+        }
+
+        String xRealIp = request.getHeader("X-Real-IP");
+        if (xRealIp != null && !xRealIp.isEmpty()) {
+            return xRealIp;
+        }
+
+        return request.getRemoteAddr();
+    }
+}
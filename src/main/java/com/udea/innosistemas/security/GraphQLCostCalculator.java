@@ -0,0 +1,284 @@
+package com.udea.innosistemas.security;
+
+import graphql.language.Argument;
+import graphql.language.Field;
+import graphql.language.FragmentDefinition;
+import graphql.language.FragmentSpread;
+import graphql.language.InlineFragment;
+import graphql.language.IntValue;
+import graphql.language.OperationDefinition;
+import graphql.language.Selection;
+import graphql.language.SelectionSet;
+import graphql.language.VariableReference;
+import graphql.parser.Parser;
+import graphql.schema.GraphQLAppliedDirective;
+import graphql.schema.GraphQLAppliedDirectiveArgument;
+import graphql.schema.GraphQLFieldDefinition;
+import graphql.schema.GraphQLFieldsContainer;
+import graphql.schema.GraphQLOutputType;
+import graphql.schema.GraphQLSchema;
+import graphql.schema.GraphQLType;
+import graphql.schema.GraphQLTypeUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.graphql.execution.GraphQlSource;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Calcula el costo de una operación GraphQL a partir del documento, antes de ejecutarla.
+ * Cada campo cuesta su peso (directiva @cost del esquema, 1 por defecto); los campos de tipo lista
+ * multiplican el costo de sus subcampos por el tamaño pedido (argumentos first o limit), por el
+ * listSize declarado en @cost o, en su defecto, por un tamaño de lista por defecto. En las conexiones
+ * paginadas por cursor (courseMembers, users) el first del campo, acotado por max-page-size, se aplica
+ * a su lista edges.
+ * Lo usan el rate limiting (GraphQLRateLimitInterceptor) y el límite de complejidad
+ * (QueryComplexityInstrumentation).
+ *
+ * Trabaja sobre el AST ya analizado en OperationProfile, que también indica si la operación es
+ * de autenticación (mutations login y refreshToken) y se limita con el bucket de autenticación.
+ *
+ * Autor: Fábrica-Escuela de Software UdeA
+ * Versión: 1.3.0
+ */
+@Component
+public class GraphQLCostCalculator {
+
+    private static final Logger logger = LoggerFactory.getLogger(GraphQLCostCalculator.class);
+    private static final Set<String> PAGE_SIZE_ARGUMENTS = Set.of("first", "limit");
+    private static final String CONNECTION_EDGES = "edges";
+    static final String COST_DIRECTIVE = "cost";
+
+    @Autowired
+    private ObjectProvider<GraphQlSource> graphQlSource;
+
+    @Value("${innosistemas.graphql.cost.default-list-size:10}")
+    private long defaultListSize;
+
+    // Las conexiones nunca devuelven más de max-page-size elementos, pida lo que pida first
+    @Value("${innosistemas.graphql.pagination.max-page-size:100}")
+    private long maxPageSize;
+
+    /**
+     * Calcula el costo de la operación indicada del documento
+     *
+     * @param document Documento GraphQL
+     * @param operationName Operación a ejecutar (puede ser null si el documento tiene una sola)
+     * @param variables Variables de la petición
+     * @return Costo calculado; costo 1 si el documento no se puede analizar (la ejecución reportará el error)
+     */
+    public OperationCost calculate(String document, String operationName, Map<String, Object> variables) {
+        try {
+            return calculate(OperationProfile.of(Parser.parse(document), operationName), variables);
+        } catch (Exception e) {
+            logger.debug("Could not compute GraphQL operation cost: {}", e.getMessage());
+            return OperationCost.UNKNOWN;
+        }
+    }
+
+    /**
+     * Calcula el costo de una operación ya analizada
+     *
+     * @param profile Perfil de la operación (OperationProfiler)
+     * @param variables Variables de la petición
+     * @return Costo calculado; costo 1 si la operación no es válida (la ejecución reportará el error)
+     */
+    public OperationCost calculate(OperationProfile profile, Map<String, Object> variables) {
+        if (!profile.isValid()) {
+            return OperationCost.UNKNOWN;
+        }
+        try {
+            Map<String, FragmentDefinition> fragments = new HashMap<>();
+            profile.getDocument().getDefinitionsOfType(FragmentDefinition.class)
+                    .forEach(f -> fragments.put(f.getName(), f));
+
+            CostContext context = new CostContext(fragments, variables != null ? variables : Map.of());
+            OperationDefinition operation = profile.getOperation();
+            long cost = selectionSetCost(operation.getSelectionSet(), rootType(operation), context);
+            return new OperationCost(Math.max(1, cost), profile.isAuthOperation(), profile.getRootFields());
+        } catch (Exception e) {
+            logger.debug("Could not compute GraphQL operation cost: {}", e.getMessage());
+            return OperationCost.UNKNOWN;
+        }
+    }
+
+    private long selectionSetCost(SelectionSet selectionSet, GraphQLType parentType, CostContext context) {
+        if (selectionSet == null) {
+            return 0;
+        }
+        long cost = 0;
+        for (Selection<?> selection : selectionSet.getSelections()) {
+            if (selection instanceof Field field) {
+                cost = saturatedAdd(cost, fieldCost(field, parentType, context));
+            } else if (selection instanceof InlineFragment inline) {
+                GraphQLType type = inline.getTypeCondition() != null
+                        ? schemaType(inline.getTypeCondition().getName()) : parentType;
+                cost = saturatedAdd(cost, selectionSetCost(inline.getSelectionSet(), type, context));
+            } else if (selection instanceof FragmentSpread spread) {
+                FragmentDefinition fragment = context.fragments.get(spread.getName());
+                // Un ciclo de fragments es inválido: la validación lo rechazará antes de ejecutar
+                if (fragment != null && context.visiting.add(spread.getName())) {
+                    cost = saturatedAdd(cost, selectionSetCost(fragment.getSelectionSet(),
+                            schemaType(fragment.getTypeCondition().getName()), context));
+                    context.visiting.remove(spread.getName());
+                }
+            }
+        }
+        return cost;
+    }
+
+    private long fieldCost(Field field, GraphQLType parentType, CostContext context) {
+        if ("__typename".equals(field.getName())) {
+            return 0;
+        }
+        GraphQLFieldDefinition definition = null;
+        GraphQLOutputType fieldType = null;
+        if (parentType instanceof GraphQLFieldsContainer container) {
+            definition = container.getFieldDefinition(field.getName());
+            if (definition != null) {
+                fieldType = definition.getType();
+            }
+        }
+
+        boolean list = fieldType != null && GraphQLTypeUtil.isList(GraphQLTypeUtil.unwrapNonNull(fieldType));
+        long size = list ? listSize(field, definition, context) : 1;
+
+        // Conexión paginada (first en un campo que no es lista): el tamaño aplica a su lista edges
+        Long outerConnectionPageSize = context.connectionPageSize;
+        Long connectionPageSize = list ? null : pageSizeArgument(field, context);
+        context.connectionPageSize = connectionPageSize != null ? Math.min(connectionPageSize, maxPageSize) : null;
+        long childCost = selectionSetCost(field.getSelectionSet(),
+                fieldType != null ? GraphQLTypeUtil.unwrapAll(fieldType) : null, context);
+        context.connectionPageSize = outerConnectionPageSize;
+
+        return saturatedAdd(costArgument(definition, "weight", 1), saturatedMultiply(childCost, size));
+    }
+
+    private long listSize(Field field, GraphQLFieldDefinition definition, CostContext context) {
+        Long pageSize = pageSizeArgument(field, context);
+        if (pageSize != null) {
+            return pageSize;
+        }
+        if (CONNECTION_EDGES.equals(field.getName()) && context.connectionPageSize != null) {
+            return context.connectionPageSize;
+        }
+        return costArgument(definition, "listSize", defaultListSize);
+    }
+
+    /**
+     * Tamaño pedido con los argumentos first o limit, o null si el campo no los indica
+     */
+    private static Long pageSizeArgument(Field field, CostContext context) {
+        for (Argument argument : field.getArguments()) {
+            if (!PAGE_SIZE_ARGUMENTS.contains(argument.getName())) {
+                continue;
+            }
+            if (argument.getValue() instanceof IntValue value) {
+                return Math.max(1, value.getValue().longValue());
+            }
+            if (argument.getValue() instanceof VariableReference reference
+                    && context.variables.get(reference.getName()) instanceof Number number) {
+                return Math.max(1, number.longValue());
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Argumento de la directiva @cost de un campo, o el valor por defecto si no está declarado
+     */
+    private static long costArgument(GraphQLFieldDefinition definition, String name, long defaultValue) {
+        if (definition == null) {
+            return defaultValue;
+        }
+        GraphQLAppliedDirective directive = definition.getAppliedDirective(COST_DIRECTIVE);
+        if (directive == null) {
+            return defaultValue;
+        }
+        GraphQLAppliedDirectiveArgument argument = directive.getArgument(name);
+        Object value = argument != null ? argument.getValue() : null;
+        return value instanceof Number number ? Math.max(0, number.longValue()) : defaultValue;
+    }
+
+    private GraphQLType rootType(OperationDefinition operation) {
+        GraphQLSchema schema = schema();
+        if (schema == null) {
+            return null;
+        }
+        return switch (operation.getOperation()) {
+            case MUTATION -> schema.getMutationType();
+            case SUBSCRIPTION -> schema.getSubscriptionType();
+            default -> schema.getQueryType();
+        };
+    }
+
+    private GraphQLType schemaType(String name) {
+        GraphQLSchema schema = schema();
+        return schema != null ? schema.getType(name) : null;
+    }
+
+    private GraphQLSchema schema() {
+        GraphQlSource source = graphQlSource.getIfAvailable();
+        return source != null ? source.schema() : null;
+    }
+
+    private static long saturatedAdd(long a, long b) {
+        long result = a + b;
+        return result < 0 ? Long.MAX_VALUE : result;
+    }
+
+    private static long saturatedMultiply(long a, long b) {
+        return b != 0 && a > Long.MAX_VALUE / b ? Long.MAX_VALUE : a * b;
+    }
+
+    private static final class CostContext {
+
+        private final Map<String, FragmentDefinition> fragments;
+        private final Map<String, Object> variables;
+        private final Set<String> visiting = new HashSet<>();
+        private Long connectionPageSize;
+
+        CostContext(Map<String, FragmentDefinition> fragments, Map<String, Object> variables) {
+            this.fragments = fragments;
+            this.variables = variables;
+        }
+    }
+
+    /**
+     * Resultado del análisis de costo de una operación
+     */
+    public static final class OperationCost {
+
+        static final OperationCost UNKNOWN = new OperationCost(1, false, List.of());
+
+        private final long cost;
+        private final boolean authOperation;
+        private final List<String> rootFields;
+
+        OperationCost(long cost, boolean authOperation, List<String> rootFields) {
+            this.cost = cost;
+            this.authOperation = authOperation;
+            this.rootFields = List.copyOf(rootFields);
+        }
+
+        public long getCost() {
+            return cost;
+        }
+
+        public boolean isAuthOperation() {
+            return authOperation;
+        }
+
+        public List<String> getRootFields() {
+            return rootFields;
+        }
+    }
+}
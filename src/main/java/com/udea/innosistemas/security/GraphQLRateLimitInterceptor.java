@@ -0,0 +1,126 @@
+package com.udea.innosistemas.security;
+
+import com.udea.innosistemas.entity.UserRole;
+import com.udea.innosistemas.exception.GraphQLErrorType;
+import com.udea.innosistemas.security.GraphQLCostCalculator.OperationCost;
+import com.udea.innosistemas.service.RateLimitProbe;
+import com.udea.innosistemas.service.RateLimitingService;
+import graphql.ExecutionResult;
+import graphql.GraphQLError;
+import graphql.GraphqlErrorBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.graphql.server.WebGraphQlInterceptor;
+import org.springframework.graphql.server.WebGraphQlRequest;
+import org.springframework.graphql.server.WebGraphQlResponse;
+import org.springframework.graphql.support.DefaultExecutionGraphQlResponse;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Interceptor GraphQL de rate limiting basado en el costo de la operación.
+ * Se ejecuta antes que el resto de interceptores, con la operación ya identificada:
+ * las mutations login y refreshToken consumen del bucket de autenticación y el resto de
+ * operaciones consume del bucket general tantos tokens como su costo (GraphQLCostCalculator),
+ * calculado sobre el OperationProfile de la petición.
+ *
+ * El costo pedido, el cobrado y los tokens restantes se informan en extensions.cost de la respuesta
+ * y en los headers X-RateLimit-* (Retry-After si se rechaza), con los datos de la misma consulta al
+ * bucket. El costo cobrado nunca supera la capacidad del plan (ver RateLimitingService).
+ * La clave del cliente la resuelve RateLimitFilter, que no cobra las peticiones a /graphql.
+ *
+ * Autor: Fábrica-Escuela de Software UdeA
+ * Versión: 1.2.0
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class GraphQLRateLimitInterceptor implements WebGraphQlInterceptor {
+
+    private static final Logger logger = LoggerFactory.getLogger(GraphQLRateLimitInterceptor.class);
+    static final String COST_EXTENSION = "cost";
+
+    @Autowired
+    private RateLimitingService rateLimitingService;
+
+    @Autowired
+    private GraphQLCostCalculator costCalculator;
+
+    @Autowired
+    private OperationProfiler operationProfiler;
+
+    @Override
+    public Mono<WebGraphQlResponse> intercept(WebGraphQlRequest request, Chain chain) {
+        Object key = request.getAttributes().get(RateLimitFilter.RATE_LIMIT_KEY_ATTRIBUTE);
+        if (!rateLimitingService.isRateLimitEnabled() || !(key instanceof String rateLimitKey)) {
+            return chain.next(request);
+        }
+
+        OperationCost cost = costCalculator.calculate(operationProfiler.profile(request), request.getVariables());
+
+        Object role = request.getAttributes().get(RateLimitFilter.RATE_LIMIT_ROLE_ATTRIBUTE);
+        RateLimitProbe probe = cost.isAuthOperation()
+                ? rateLimitingService.tryConsumeAuthAndReturnRemaining(rateLimitKey)
+                : rateLimitingService.tryConsumeAndReturnRemaining(rateLimitKey, cost.getCost(),
+                        role instanceof UserRole userRole ? userRole : null);
+
+        if (!probe.isAllowed()) {
+            logger.warn("GraphQL rate limit exceeded for key: {} (operation: {}, cost: {})",
+                    rateLimitKey, request.getOperationName(), cost.getCost());
+            WebGraphQlResponse response = rejected(request, cost, probe);
+            addRateLimitHeaders(response.getResponseHeaders(), probe);
+            return Mono.just(response);
+        }
+
+        return chain.next(request).map(response -> {
+            Map<Object, Object> extensions = new LinkedHashMap<>(response.getExtensions());
+            extensions.put(COST_EXTENSION, costExtension(cost, probe));
+            WebGraphQlResponse transformed = response.transform(builder -> builder.extensions(extensions));
+            addRateLimitHeaders(transformed.getResponseHeaders(), probe);
+            return transformed;
+        });
+    }
+
+    private WebGraphQlResponse rejected(WebGraphQlRequest request, OperationCost cost, RateLimitProbe probe) {
+        GraphQLError error = GraphqlErrorBuilder.newError()
+                .errorType(GraphQLErrorType.RATE_LIMITED)
+                .message("Se excedió el límite de peticiones. Intente de nuevo más tarde.")
+                .extensions(Map.of("retryAfter", Math.max(1, probe.getRetryAfterSeconds())))
+                .build();
+        ExecutionResult result = ExecutionResult.newExecutionResult()
+                .addError(error)
+                .addExtension(COST_EXTENSION, costExtension(cost, probe))
+                .build();
+        return new WebGraphQlResponse(new DefaultExecutionGraphQlResponse(request.toExecutionInput(), result));
+    }
+
+    private Map<String, Object> costExtension(OperationCost cost, RateLimitProbe probe) {
+        Map<String, Object> extension = new LinkedHashMap<>();
+        extension.put("requested", cost.getCost());
+        extension.put("bucket", cost.isAuthOperation() ? "auth" : "default");
+        if (probe.isLimited()) {
+            extension.put("charged", Math.min(cost.getCost(), probe.getLimit()));
+            extension.put("limit", probe.getLimit());
+            extension.put("remaining", probe.getRemaining());
+        }
+        return extension;
+    }
+
+    private static void addRateLimitHeaders(HttpHeaders headers, RateLimitProbe probe) {
+        if (!probe.isLimited()) {
+            return;
+        }
+        headers.set("X-RateLimit-Limit", String.valueOf(probe.getLimit()));
+        headers.set("X-RateLimit-Remaining", String.valueOf(probe.getRemaining()));
+        headers.set("X-RateLimit-Reset", String.valueOf(probe.getResetSeconds()));
+        if (!probe.isAllowed()) {
+            headers.set(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, probe.getRetryAfterSeconds())));
+        }
+    }
+}
@@ -6,6 +6,7 @@ import graphql.GraphqlErrorBuilder;
 import graphql.schema.DataFetchingEnvironment;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.graphql.execution.DataFetcherExceptionResolverAdapter;
 import org.springframework.graphql.server.WebGraphQlInterceptor;
@@ -17,19 +18,25 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 import reactor.core.publisher.Mono;
 
+import java.util.Map;
+
 /**
  * Interceptor GraphQL para validación de permisos a nivel de operación.
  * Se ejecuta antes de cada operación GraphQL y valida que el usuario
  * tenga los permisos necesarios basados en su rol.
+ * La operación se clasifica con OperationProfile (AST), no buscando subcadenas en el documento.
  *
  * Autor: Fábrica-Escuela de Software UdeA
- * Versión: 1.0.0
+ * Versión: 1.1.0
  */
 @Component
 public class GraphQLSecurityInterceptor implements WebGraphQlInterceptor {
 
     private static final Logger logger = LoggerFactory.getLogger(GraphQLSecurityInterceptor.class);
 
+    @Autowired
+    private OperationProfiler operationProfiler;
+
     @Value("${spring.graphql.schema.introspection.enabled:false}")
     private boolean introspectionEnabled;
 
@@ -37,27 +44,23 @@ public class GraphQLSecurityInterceptor implements WebGraphQlInterceptor {
     public Mono<WebGraphQlResponse> intercept(WebGraphQlRequest request, Chain chain) {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
 
-        // Obtener el nombre de la operación
+        // Clasificar la operación a partir del AST (una vez por documento)
         String operationName = request.getOperationName();
-        String document = request.getDocument();
+        OperationProfile profile = operationProfiler.profile(request);
 
-        logger.debug("GraphQL operation: {}, document: {}", operationName, document);
+        logger.debug("GraphQL operation: {}", profile);
 
         // Si no hay autenticación y la operación no es login, denegar acceso
         if (authentication == null || !authentication.isAuthenticated() ||
             "anonymousUser".equals(authentication.getName())) {
 
-            // Permitir operaciones de autenticación
-            if (document != null && (document.contains("mutation login") ||
-                                    document.contains("mutation refreshToken"))) {
+            // Permitir operaciones de autenticación (mutations formadas solo por login/refreshToken)
+            if (profile.isAuthOperation()) {
                 return chain.next(request);
             }
 
             // Permitir introspección SOLO si está habilitada (perfil dev)
-            if (introspectionEnabled && document != null &&
-                (document.contains("IntrospectionQuery") ||
-                 document.contains("__schema") ||
-                 document.contains("__type"))) {
+            if (introspectionEnabled && profile.isIntrospection()) {
                 logger.debug("Allowing introspection query in development mode");
                 return chain.next(request);
             }
@@ -67,7 +70,14 @@ public class GraphQLSecurityInterceptor implements WebGraphQlInterceptor {
         }
 
         // Log de la operación autenticada
-        logger.info("GraphQL operation '{}' by user: {}", operationName, authentication.getName());
+        logger.info("GraphQL operation '{}' by user: {} ({})", operationName, authentication.getName(), profile);
+
+        // Publicar el token ya verificado por JwtAuthenticationFilter en el contexto GraphQL
+        Object verifiedToken = request.getAttributes().get(VerifiedToken.REQUEST_ATTRIBUTE);
+        if (verifiedToken instanceof VerifiedToken) {
+            request.configureExecutionInput((executionInput, builder) ->
+                    builder.graphQLContext(Map.of(VerifiedToken.REQUEST_ATTRIBUTE, verifiedToken)).build());
+        }
 
         return chain.next(request);
     }
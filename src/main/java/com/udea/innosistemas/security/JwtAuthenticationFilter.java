@@ -1,5 +1,9 @@
 package com.udea.innosistemas.security;
 
+import com.udea.innosistemas.entity.User;
+import com.udea.innosistemas.service.ClaimsVersionService;
+import com.udea.innosistemas.service.CurrentUserProvider;
+import com.udea.innosistemas.service.SessionHeartbeatBuffer;
 import com.udea.innosistemas.service.TokenBlacklistService;
 import com.udea.innosistemas.service.UserDetailsServiceImpl;
 import jakarta.servlet.FilterChain;
@@ -9,6 +13,7 @@ import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -21,6 +26,9 @@ import java.io.IOException;
 /**
  * Filtro para autenticar solicitudes HTTP usando tokens JWT.
  * Valida tokens, verifica blacklist y establece contexto de seguridad.
+ * En modo stateless construye el principal desde los claims del token sin consultar la base de datos.
+ * La actividad de la sesión del token se acumula en SessionHeartbeatBuffer (sin escribir en Redis).
+ * El usuario cargado se publica en CurrentUserProvider para no volver a buscarlo en la petición.
  *
  * Autor: Fábrica-Escuela de Software UdeA
  * Versión: 2.0.0
@@ -38,6 +46,18 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     @Autowired
     private TokenBlacklistService tokenBlacklistService;
 
+    @Autowired
+    private ClaimsVersionService claimsVersionService;
+
+    @Autowired(required = false)
+    private SessionHeartbeatBuffer sessionHeartbeatBuffer;
+
+    @Autowired(required = false)
+    private CurrentUserProvider currentUserProvider;
+
+    @Value("${innosistemas.auth.stateless.enabled:false}")
+    private boolean statelessEnabled;
+
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
             throws ServletException, IOException {
@@ -45,24 +65,38 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             String jwt = getJwtFromRequest(request);
 
             if (StringUtils.hasText(jwt)) {
-                // Verificar que el token no esté en la blacklist
-                if (tokenBlacklistService.isTokenBlacklisted(jwt)) {
+                // Verificar el token una sola vez y reutilizar el resultado en toda la petición
+                VerifiedToken verifiedToken = tokenProvider.parseVerifiedToken(jwt);
+
+                // Verificar que el token no esté en la blacklist (por su jti)
+                if (verifiedToken != null && tokenBlacklistService.isTokenBlacklisted(verifiedToken)) {
                     logger.warn("Attempted to use blacklisted token");
                     filterChain.doFilter(request, response);
                     return;
                 }
 
-                // Validar el token
-                if (tokenProvider.validateToken(jwt)) {
-                    String username = tokenProvider.getUsernameFromJWT(jwt);
+                if (verifiedToken != null) {
+                    request.setAttribute(VerifiedToken.REQUEST_ATTRIBUTE, verifiedToken);
+                    String username = verifiedToken.getSubject();
+
+                    UserDetails userDetails = resolvePrincipal(verifiedToken);
+                    if (userDetails != null) {
+                        UsernamePasswordAuthenticationToken authentication =
+                                new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
+                        authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
 
-                    UserDetails userDetails = customUserDetailsService.loadUserByUsername(username);
-                    UsernamePasswordAuthenticationToken authentication =
-                            new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
-                    authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                        SecurityContextHolder.getContext().setAuthentication(authentication);
+                        logger.debug("User authenticated successfully: {}", username);
 
-                    SecurityContextHolder.getContext().setAuthentication(authentication);
-                    logger.debug("User authenticated successfully: {}", username);
+                        if (userDetails instanceof User user && currentUserProvider != null) {
+                            currentUserProvider.remember(request, user);
+                        }
+
+                        String sessionId = verifiedToken.getSessionId();
+                        if (sessionId != null && sessionHeartbeatBuffer != null) {
+                            sessionHeartbeatBuffer.record(sessionId, username);
+                        }
+                    }
                 }
             }
         } catch (Exception ex) {
@@ -72,6 +106,37 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
 
+    /**
+     * Obtiene el principal de la petición. En modo stateless se reconstruye desde los claims
+     * siempre que la versión de claims del token siga vigente en Redis; si la versión no se
+     * puede consultar o Redis no la conoce se carga el usuario desde la base de datos.
+     *
+     * @param verifiedToken Token verificado
+     * @return Principal autenticado o null si los claims del token están obsoletos
+     */
+    private UserDetails resolvePrincipal(VerifiedToken verifiedToken) {
+        if (statelessEnabled && verifiedToken.getClaimsVersion() != null) {
+            JwtUserPrincipal principal = JwtUserPrincipal.fromToken(verifiedToken);
+            if (principal != null) {
+                try {
+                    Long currentVersion = claimsVersionService.getCurrentVersion(principal.getUserId());
+                    if (currentVersion == null) {
+                        logger.debug("Claims version unknown for user {}, loading from database",
+                                principal.getUsername());
+                    } else if (!currentVersion.equals(verifiedToken.getClaimsVersion())) {
+                        logger.warn("Rejected token with stale claims for user: {}", principal.getUsername());
+                        return null;
+                    } else {
+                        return principal;
+                    }
+                } catch (Exception e) {
+                    logger.warn("Claims version unavailable, falling back to database lookup: {}", e.getMessage());
+                }
+            }
+        }
+        return customUserDetailsService.loadUserByUsername(verifiedToken.getSubject());
+    }
+
     private String getJwtFromRequest(HttpServletRequest request) {
         String bearerToken = request.getHeader("Authorization");
         if (StringUtils.hasText(bearerToken) && bearerToken.startsWith("Bearer ")) {
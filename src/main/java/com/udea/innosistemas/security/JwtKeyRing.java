@@ -0,0 +1,234 @@
+package com.udea.innosistemas.security;
+
+import com.udea.innosistemas.config.properties.JwtSigningKeysProperties;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtBuilder;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.LocatorAdapter;
+import io.jsonwebtoken.security.Jwk;
+import io.jsonwebtoken.security.Jwks;
+import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SignatureAlgorithm;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Anillo de claves para firmar y verificar tokens JWT.
+ * Soporta HS512 con el secreto compartido (comportamiento histórico) y firma asimétrica
+ * ES256/EdDSA con rotación de claves identificadas por el header kid. Las claves públicas
+ * se publican como JWKS para que componentes de borde (gateway) verifiquen tokens localmente
+ * sin conocer ningún secreto ni llamar al backend.
+ *
+ * Autor: Fábrica-Escuela de Software UdeA
+ * Versión: 1.0.0
+ */
+@Component
+public class JwtKeyRing {
+
+    private static final Logger logger = LoggerFactory.getLogger(JwtKeyRing.class);
+
+    public static final String HS512 = "HS512";
+    public static final String ES256 = "ES256";
+    public static final String EDDSA = "EdDSA";
+
+    @Value("${innosistemas.auth.jwt.secret}")
+    private String jwtSecret;
+
+    @Autowired
+    private JwtSigningKeysProperties properties;
+
+    private SecretKey hmacKey;
+    private SignatureAlgorithm signatureAlgorithm;
+    private String activeKid;
+    private PrivateKey activePrivateKey;
+    private Map<String, PublicKey> verificationKeys = Collections.emptyMap();
+    private JwtParser parser;
+    private Map<String, Object> jwks;
+
+    @PostConstruct
+    void init() {
+        this.hmacKey = Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8));
+
+        String algorithm = properties.getAlgorithm();
+        if (!HS512.equalsIgnoreCase(algorithm)) {
+            this.signatureAlgorithm = resolveAlgorithm(algorithm);
+            loadAsymmetricKeys();
+        }
+
+        this.parser = Jwts.parser()
+                .keyLocator(new KeyRingLocator())
+                .build();
+        this.jwks = buildJwks();
+
+        logger.info("JWT key ring initialized (algorithm: {}, active kid: {}, verification keys: {})",
+                getAlgorithm(), activeKid, verificationKeys.keySet());
+    }
+
+    /**
+     * Firma el token con la clave activa, agregando el header kid en modo asimétrico
+     *
+     * @param builder Builder del token con sus claims
+     * @return Builder firmado
+     */
+    public JwtBuilder sign(JwtBuilder builder) {
+        if (signatureAlgorithm == null) {
+            return builder.signWith(hmacKey);
+        }
+        return builder.header().keyId(activeKid).and()
+                .signWith(activePrivateKey, signatureAlgorithm);
+    }
+
+    /**
+     * Parser inmutable y thread-safe que selecciona la clave de verificación según el kid
+     *
+     * @return Parser de tokens firmados
+     */
+    public JwtParser parser() {
+        return parser;
+    }
+
+    /**
+     * Documento JWKS con las claves públicas vigentes (vacío en modo HS512)
+     *
+     * @return Mapa serializable con la entrada "keys"
+     */
+    public Map<String, Object> getJwks() {
+        return jwks;
+    }
+
+    public String getAlgorithm() {
+        return signatureAlgorithm != null ? signatureAlgorithm.getId() : HS512;
+    }
+
+    public String getActiveKid() {
+        return activeKid;
+    }
+
+    private void loadAsymmetricKeys() {
+        Map<String, PublicKey> keys = new LinkedHashMap<>();
+        List<JwtSigningKeysProperties.SigningKey> configured = properties.getSigningKeys();
+
+        if (configured == null || configured.isEmpty()) {
+            // Sin claves configuradas: clave efímera válida solo para un nodo (desarrollo)
+            KeyPair keyPair = signatureAlgorithm.keyPair().build();
+            this.activeKid = UUID.randomUUID().toString();
+            this.activePrivateKey = keyPair.getPrivate();
+            keys.put(activeKid, keyPair.getPublic());
+            logger.warn("No JWT signing keys configured for {}: using an ephemeral key pair. "
+                    + "Tokens will not be valid across nodes or restarts", getAlgorithm());
+        } else {
+            KeyFactory keyFactory = keyFactoryFor(signatureAlgorithm.getId());
+            for (JwtSigningKeysProperties.SigningKey signingKey : configured) {
+                if (!StringUtils.hasText(signingKey.getKid()) || !StringUtils.hasText(signingKey.getPublicKey())) {
+                    throw new IllegalStateException("Every JWT signing key requires a kid and a public key");
+                }
+                keys.put(signingKey.getKid(), decodePublicKey(keyFactory, signingKey.getPublicKey()));
+
+                // La primera clave con parte privada es la activa; las siguientes solo verifican
+                if (activePrivateKey == null && StringUtils.hasText(signingKey.getPrivateKey())) {
+                    this.activeKid = signingKey.getKid();
+                    this.activePrivateKey = decodePrivateKey(keyFactory, signingKey.getPrivateKey());
+                }
+            }
+            if (activePrivateKey == null) {
+                throw new IllegalStateException("No JWT signing key with a private key is configured");
+            }
+        }
+        this.verificationKeys = Collections.unmodifiableMap(keys);
+    }
+
+    private Map<String, Object> buildJwks() {
+        List<Map<String, Object>> keys = new ArrayList<>();
+        for (Map.Entry<String, PublicKey> entry : verificationKeys.entrySet()) {
+            Jwk<?> jwk = Jwks.builder()
+                    .key(entry.getValue())
+                    .id(entry.getKey())
+                    .algorithm(getAlgorithm())
+                    .build();
+            keys.add(new LinkedHashMap<>(jwk));
+        }
+        Map<String, Object> document = new LinkedHashMap<>();
+        document.put("keys", Collections.unmodifiableList(keys));
+        return Collections.unmodifiableMap(document);
+    }
+
+    private static SignatureAlgorithm resolveAlgorithm(String algorithm) {
+        if (ES256.equalsIgnoreCase(algorithm)) {
+            return Jwts.SIG.ES256;
+        }
+        if (EDDSA.equalsIgnoreCase(algorithm)) {
+            return Jwts.SIG.EdDSA;
+        }
+        throw new IllegalStateException("Unsupported JWT signing algorithm: " + algorithm);
+    }
+
+    private static KeyFactory keyFactoryFor(String algorithmId) {
+        try {
+            return KeyFactory.getInstance(ES256.equals(algorithmId) ? "EC" : "EdDSA");
+        } catch (Exception e) {
+            throw new IllegalStateException("Key factory not available for " + algorithmId, e);
+        }
+    }
+
+    private static PublicKey decodePublicKey(KeyFactory keyFactory, String encoded) {
+        try {
+            return keyFactory.generatePublic(new X509EncodedKeySpec(decode(encoded)));
+        } catch (Exception e) {
+            throw new IllegalStateException("Invalid JWT public key", e);
+        }
+    }
+
+    private static PrivateKey decodePrivateKey(KeyFactory keyFactory, String encoded) {
+        try {
+            return keyFactory.generatePrivate(new PKCS8EncodedKeySpec(decode(encoded)));
+        } catch (Exception e) {
+            throw new IllegalStateException("Invalid JWT private key", e);
+        }
+    }
+
+    private static byte[] decode(String encoded) {
+        String base64 = encoded
+                .replaceAll("-----(BEGIN|END) [A-Z ]+-----", "")
+                .replaceAll("\\s", "");
+        return Base64.getDecoder().decode(base64);
+    }
+
+    /**
+     * Selecciona la clave de verificación: por kid para tokens asimétricos y el secreto
+     * compartido para tokens HMAC sin kid (emitidos antes de la migración)
+     */
+    private class KeyRingLocator extends LocatorAdapter<Key> {
+
+        @Override
+        protected Key locate(JwsHeader header) {
+            String kid = header.getKeyId();
+            if (kid == null) {
+                return signatureAlgorithm == null || properties.isAcceptLegacyHmac() ? hmacKey : null;
+            }
+            return verificationKeys.get(kid);
+        }
+    }
+}
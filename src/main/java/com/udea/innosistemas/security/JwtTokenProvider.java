@@ -1,21 +1,22 @@
 package com.udea.innosistemas.security;
 
 import com.udea.innosistemas.entity.User;
+import com.udea.innosistemas.service.ClaimsVersionService;
 import io.jsonwebtoken.*;
-import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
-import javax.crypto.SecretKey;
-import java.nio.charset.StandardCharsets;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.UUID;
 import java.util.stream.Collectors;
 
 //clase para generar y validar tokens JWT utilizados en la autenticación y autorización de usuarios.
@@ -29,31 +30,53 @@ public class JwtTokenProvider {
 
     private static final Logger logger = LoggerFactory.getLogger(JwtTokenProvider.class);
 
-    @Value("${innosistemas.auth.jwt.secret}")
-    private String jwtSecret;
-
     @Value("${innosistemas.auth.jwt.expiration}")
     private long jwtExpirationInMs;
 
     @Value("${innosistemas.auth.jwt.refresh-expiration}")
     private long refreshExpirationInMs;
 
-    private SecretKey getSigningKey() {
-        byte[] keyBytes = jwtSecret.getBytes(StandardCharsets.UTF_8);
-        return Keys.hmacShaKeyFor(keyBytes);
+    @Autowired
+    private JwtKeyRing keyRing;
+
+    @Autowired(required = false)
+    private VerifiedTokenCache verifiedTokenCache;
+
+    @Autowired(required = false)
+    private ClaimsVersionService claimsVersionService;
+
+    // El parser es inmutable y thread-safe: se obtiene una sola vez del anillo de claves
+    private JwtParser jwtParser;
+
+    @PostConstruct
+    void init() {
+        this.jwtParser = keyRing.parser();
     }
 
     public String generateToken(Authentication authentication) {
+        return generateToken(authentication, null);
+    }
+
+    /**
+     * Genera un token de acceso asociado a una sesión registrada
+     *
+     * @param authentication Autenticación del usuario
+     * @param sessionId ID de la sesión (claim sid), o null
+     * @return Token JWT firmado
+     */
+    public String generateToken(Authentication authentication, String sessionId) {
         User user = (User) authentication.getPrincipal();
-        return generateTokenWithClaims(user);
+        return generateTokenWithClaims(user, sessionId);
     }
 
-    private String generateTokenWithClaims(User user) {
+    private String generateTokenWithClaims(User user, String sessionId) {
         Date now = new Date();
         Date expiryDate = new Date(now.getTime() + jwtExpirationInMs * 1000);
 
         Map<String, Object> claims = new HashMap<>();
         claims.put("userId", user.getId());
+        // Instante de emisión en milisegundos (iat solo tiene resolución de segundos), usado por la época de tokens
+        claims.put("iatMs", now.getTime());
         claims.put("email", user.getEmail());
         claims.put("role", user.getRole().name());
 
@@ -78,17 +101,35 @@ public class JwtTokenProvider {
                 .collect(Collectors.joining(","));
         claims.put("authorities", authorities);
 
-        return Jwts.builder()
+        // Sesión a la que pertenece el token
+        if (sessionId != null) {
+            claims.put("sid", sessionId);
+        }
+
+        // Versión de claims del usuario, usada para invalidar tokens en modo stateless
+        if (claimsVersionService != null) {
+            Long claimsVersion = claimsVersionService.findCurrentVersion(user.getId());
+            if (claimsVersion != null) {
+                claims.put("ver", claimsVersion);
+            }
+        }
+
+        JwtBuilder builder = Jwts.builder()
+                .id(newTokenId())
                 .subject(user.getUsername())
                 .claims(claims)
                 .issuedAt(now)
-                .expiration(expiryDate)
-                .signWith(getSigningKey())
-                .compact();
+                .expiration(expiryDate);
+
+        return keyRing.sign(builder).compact();
     }
 
     public String generateTokenFromUser(User user) {
-        return generateTokenWithClaims(user);
+        return generateTokenWithClaims(user, null);
+    }
+
+    public String generateTokenFromUser(User user, String sessionId) {
+        return generateTokenWithClaims(user, sessionId);
     }
 
     // Deprecated: Usar generateTokenFromUser en su lugar
@@ -96,31 +137,48 @@ public class JwtTokenProvider {
     public String generateTokenFromUsername(String username) {
         Date expiryDate = new Date(System.currentTimeMillis() + jwtExpirationInMs * 1000);
 
-        return Jwts.builder()
+        JwtBuilder builder = Jwts.builder()
+                .id(newTokenId())
                 .subject(username)
                 .issuedAt(new Date())
-                .expiration(expiryDate)
-                .signWith(getSigningKey())
-                .compact();
+                .expiration(expiryDate);
+
+        return keyRing.sign(builder).compact();
     }
 
-    public String getUsernameFromJWT(String token) {
-        Claims claims = Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+    /**
+     * Verifica firma y expiración del token una única vez y devuelve sus claims tipados.
+     * Si el mismo token ya fue verificado y no ha expirado, se devuelve desde VerifiedTokenCache
+     * sin repetir la verificación HMAC.
+     *
+     * @param token Token JWT a verificar
+     * @return Token verificado
+     * @throws JwtException si el token es inválido, está expirado o no está firmado correctamente
+     */
+    public VerifiedToken verify(String token) {
+        if (verifiedTokenCache != null) {
+            VerifiedToken cached = verifiedTokenCache.get(token);
+            if (cached != null) {
+                return cached;
+            }
+        }
 
-        return claims.getSubject();
+        VerifiedToken verifiedToken = new VerifiedToken(token, getClaims(token));
+        if (verifiedTokenCache != null) {
+            verifiedTokenCache.put(verifiedToken);
+        }
+        return verifiedToken;
     }
 
-    public boolean validateToken(String authToken) {
+    /**
+     * Variante de verify() que registra el motivo del fallo y devuelve null en lugar de lanzar excepción.
+     *
+     * @param authToken Token JWT a verificar
+     * @return Token verificado o null si no es válido
+     */
+    public VerifiedToken parseVerifiedToken(String authToken) {
         try {
-            Jwts.parser()
-                    .verifyWith(getSigningKey())
-                    .build()
-                    .parseSignedClaims(authToken);
-            return true;
+            return verify(authToken);
         } catch (MalformedJwtException ex) {
             logger.error("Invalid JWT token: {}", ex.getMessage());
         } catch (ExpiredJwtException ex) {
@@ -132,17 +190,19 @@ public class JwtTokenProvider {
         } catch (Exception ex) {
             logger.error("JWT token validation error: {}", ex.getMessage());
         }
-        return false;
+        return null;
     }
 
-    public Date getExpirationDateFromJWT(String token) {
-        Claims claims = Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+    public String getUsernameFromJWT(String token) {
+        return verify(token).getSubject();
+    }
 
-        return claims.getExpiration();
+    public boolean validateToken(String authToken) {
+        return parseVerifiedToken(authToken) != null;
+    }
+
+    public Date getExpirationDateFromJWT(String token) {
+        return verify(token).getExpiration();
     }
 
     public boolean isTokenExpired(String token) {
@@ -151,25 +211,38 @@ public class JwtTokenProvider {
     }
 
     public String generateRefreshToken(Authentication authentication) {
+        return generateRefreshToken(authentication, null);
+    }
+
+    public String generateRefreshToken(Authentication authentication, String sessionId) {
         User user = (User) authentication.getPrincipal();
-        return generateRefreshTokenFromUser(user);
+        return generateRefreshTokenFromUser(user, sessionId);
     }
 
     public String generateRefreshTokenFromUser(User user) {
+        return generateRefreshTokenFromUser(user, null);
+    }
+
+    public String generateRefreshTokenFromUser(User user, String sessionId) {
         Date now = new Date();
         Date expiryDate = new Date(now.getTime() + refreshExpirationInMs * 1000);
 
         Map<String, Object> claims = new HashMap<>();
         claims.put("userId", user.getId());
+        claims.put("iatMs", now.getTime());
         claims.put("type", "refresh");
+        if (sessionId != null) {
+            claims.put("sid", sessionId);
+        }
 
-        return Jwts.builder()
+        JwtBuilder builder = Jwts.builder()
+                .id(newTokenId())
                 .subject(user.getUsername())
                 .claims(claims)
                 .issuedAt(now)
-                .expiration(expiryDate)
-                .signWith(getSigningKey())
-                .compact();
+                .expiration(expiryDate);
+
+        return keyRing.sign(builder).compact();
     }
 
     // Deprecated: Usar generateRefreshTokenFromUser en su lugar
@@ -177,24 +250,19 @@ public class JwtTokenProvider {
     public String generateRefreshTokenFromUsername(String username) {
         Date expiryDate = new Date(System.currentTimeMillis() + refreshExpirationInMs * 1000);
 
-        return Jwts.builder()
+        JwtBuilder builder = Jwts.builder()
+                .id(newTokenId())
                 .subject(username)
                 .claim("type", "refresh")
                 .issuedAt(new Date())
-                .expiration(expiryDate)
-                .signWith(getSigningKey())
-                .compact();
+                .expiration(expiryDate);
+
+        return keyRing.sign(builder).compact();
     }
 
     public boolean isRefreshToken(String token) {
         try {
-            Claims claims = Jwts.parser()
-                    .verifyWith(getSigningKey())
-                    .build()
-                    .parseSignedClaims(token)
-                    .getPayload();
-
-            return "refresh".equals(claims.get("type", String.class));
+            return verify(token).isRefreshToken();
         } catch (Exception e) {
             logger.error("Error checking if token is refresh token: {}", e.getMessage());
             return false;
@@ -203,13 +271,7 @@ public class JwtTokenProvider {
 
     public String getTokenId(String token) {
         try {
-            Claims claims = Jwts.parser()
-                    .verifyWith(getSigningKey())
-                    .build()
-                    .parseSignedClaims(token)
-                    .getPayload();
-
-            return claims.getId();
+            return verify(token).getTokenId();
         } catch (Exception e) {
             logger.error("Error extracting token ID: {}", e.getMessage());
             return null;
@@ -218,14 +280,7 @@ public class JwtTokenProvider {
 
     public Long getUserIdFromJWT(String token) {
         try {
-            Claims claims = getClaims(token);
-            Object userIdObj = claims.get("userId");
-            if (userIdObj instanceof Integer) {
-                return ((Integer) userIdObj).longValue();
-            } else if (userIdObj instanceof Long) {
-                return (Long) userIdObj;
-            }
-            return null;
+            return verify(token).getUserId();
         } catch (Exception e) {
             logger.error("Error extracting userId from token: {}", e.getMessage());
             return null;
@@ -234,8 +289,7 @@ public class JwtTokenProvider {
 
     public String getRoleFromJWT(String token) {
         try {
-            Claims claims = getClaims(token);
-            return claims.get("role", String.class);
+            return verify(token).getRole();
         } catch (Exception e) {
             logger.error("Error extracting role from token: {}", e.getMessage());
             return null;
@@ -244,14 +298,7 @@ public class JwtTokenProvider {
 
     public Long getTeamIdFromJWT(String token) {
         try {
-            Claims claims = getClaims(token);
-            Object teamIdObj = claims.get("teamId");
-            if (teamIdObj instanceof Integer) {
-                return ((Integer) teamIdObj).longValue();
-            } else if (teamIdObj instanceof Long) {
-                return (Long) teamIdObj;
-            }
-            return null;
+            return verify(token).getTeamId();
         } catch (Exception e) {
             logger.debug("No teamId in token or error extracting: {}", e.getMessage());
             return null;
@@ -260,14 +307,7 @@ public class JwtTokenProvider {
 
     public Long getCourseIdFromJWT(String token) {
         try {
-            Claims claims = getClaims(token);
-            Object courseIdObj = claims.get("courseId");
-            if (courseIdObj instanceof Integer) {
-                return ((Integer) courseIdObj).longValue();
-            } else if (courseIdObj instanceof Long) {
-                return (Long) courseIdObj;
-            }
-            return null;
+            return verify(token).getCourseId();
         } catch (Exception e) {
             logger.debug("No courseId in token or error extracting: {}", e.getMessage());
             return null;
@@ -276,27 +316,31 @@ public class JwtTokenProvider {
 
     public Map<String, Object> getAllClaims(String token) {
         try {
-            Claims claims = getClaims(token);
-            Map<String, Object> result = new HashMap<>();
-            result.put("userId", getUserIdFromJWT(token));
-            result.put("email", getUsernameFromJWT(token));
-            result.put("role", getRoleFromJWT(token));
-            result.put("teamId", getTeamIdFromJWT(token));
-            result.put("courseId", getCourseIdFromJWT(token));
-            result.put("issuedAt", claims.getIssuedAt());
-            result.put("expiration", claims.getExpiration());
-            return result;
+            return getAllClaims(verify(token));
         } catch (Exception e) {
             logger.error("Error extracting all claims: {}", e.getMessage());
             return new HashMap<>();
         }
     }
 
+    public Map<String, Object> getAllClaims(VerifiedToken verifiedToken) {
+        Map<String, Object> result = new HashMap<>();
+        result.put("userId", verifiedToken.getUserId());
+        result.put("email", verifiedToken.getSubject());
+        result.put("role", verifiedToken.getRole());
+        result.put("teamId", verifiedToken.getTeamId());
+        result.put("courseId", verifiedToken.getCourseId());
+        result.put("issuedAt", verifiedToken.getIssuedAt());
+        result.put("expiration", verifiedToken.getExpiration());
+        return result;
+    }
+
+    // Identificador único (jti) usado como clave compacta de revocación
+    private static String newTokenId() {
+        return UUID.randomUUID().toString();
+    }
+
     private Claims getClaims(String token) {
-        return Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+        return jwtParser.parseSignedClaims(token).getPayload();
     }
 }
\ No newline at end of file
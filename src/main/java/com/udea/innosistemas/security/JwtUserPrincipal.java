@@ -0,0 +1,132 @@
+package com.udea.innosistemas.security;
+
+import com.udea.innosistemas.entity.UserRole;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Principal ligero reconstruido directamente desde los claims de un token JWT verificado.
+ * Se usa en el modo stateless para autenticar peticiones sin consultar la base de datos.
+ * No contiene contraseña: solo identidad, rol, equipo, curso y authorities.
+ *
+ * Autor: Fábrica-Escuela de Software UdeA
+ * Versión: 1.0.0
+ */
+public class JwtUserPrincipal implements UserDetails {
+
+    private final Long userId;
+    private final String email;
+    private final UserRole role;
+    private final Long teamId;
+    private final Long courseId;
+    private final List<GrantedAuthority> authorities;
+
+    public JwtUserPrincipal(Long userId, String email, UserRole role, Long teamId, Long courseId,
+                            List<GrantedAuthority> authorities) {
+        this.userId = userId;
+        this.email = email;
+        this.role = role;
+        this.teamId = teamId;
+        this.courseId = courseId;
+        this.authorities = Collections.unmodifiableList(authorities);
+    }
+
+    /**
+     * Construye el principal a partir de un token verificado
+     *
+     * @param verifiedToken Token verificado con claims userId, role y authorities
+     * @return Principal o null si el token no contiene los claims necesarios
+     */
+    public static JwtUserPrincipal fromToken(VerifiedToken verifiedToken) {
+        if (verifiedToken.getUserId() == null || verifiedToken.getRole() == null) {
+            return null;
+        }
+
+        UserRole role;
+        try {
+            role = UserRole.valueOf(verifiedToken.getRole());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+
+        List<GrantedAuthority> authorities = new ArrayList<>();
+        String authoritiesClaim = verifiedToken.getAuthorities();
+        if (StringUtils.hasText(authoritiesClaim)) {
+            for (String authority : authoritiesClaim.split(",")) {
+                authorities.add(new SimpleGrantedAuthority(authority.trim()));
+            }
+        } else {
+            authorities.add(new SimpleGrantedAuthority("ROLE_" + role.name()));
+        }
+
+        return new JwtUserPrincipal(verifiedToken.getUserId(), verifiedToken.getSubject(), role,
+                verifiedToken.getTeamId(), verifiedToken.getCourseId(), authorities);
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public UserRole getRole() {
+        return role;
+    }
+
+    public Long getTeamId() {
+        return teamId;
+    }
+
+    public Long getCourseId() {
+        return courseId;
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return authorities;
+    }
+
+    @Override
+    public String getPassword() {
+        return null;
+    }
+
+    @Override
+    public String getUsername() {
+        return email;
+    }
+
+    @Override
+    public boolean isAccountNonExpired() {
+        return true;
+    }
+
+    @Override
+    public boolean isAccountNonLocked() {
+        return true;
+    }
+
+    @Override
+    public boolean isCredentialsNonExpired() {
+        return true;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return "JwtUserPrincipal{userId=" + userId + ", email=" + email + ", role=" + role + "}";
+    }
+}
@@ -0,0 +1,236 @@
+package com.udea.innosistemas.security;
+
+import graphql.language.Document;
+import graphql.language.Field;
+import graphql.language.FragmentDefinition;
+import graphql.language.FragmentSpread;
+import graphql.language.InlineFragment;
+import graphql.language.OperationDefinition;
+import graphql.language.Selection;
+import graphql.language.SelectionSet;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Clasificación de una operación GraphQL obtenida del AST del documento: tipo de operación,
+ * campos raíz, si es introspección o autenticación, profundidad y número de campos.
+ * Se calcula una vez por documento (OperationProfiler) y la leen los interceptores de seguridad
+ * y rate limiting y el logging, en lugar de buscar subcadenas en el texto de la consulta.
+ *
+ * Autor: Fábrica-Escuela de Software UdeA
+ * Versión: 1.1.0
+ */
+public final class OperationProfile {
+
+    public static final String REQUEST_ATTRIBUTE = OperationProfile.class.getName();
+
+    /** Documento que no se pudo analizar o sin la operación pedida: la ejecución reportará el error */
+    static final OperationProfile UNKNOWN = new OperationProfile(null, null, List.of(), 0, 0);
+
+    private static final Set<String> AUTH_MUTATIONS = Set.of("login", "refreshToken");
+    private static final Set<String> INTROSPECTION_FIELDS = Set.of("__schema", "__type", "__typename");
+
+    private final Document document;
+    private final OperationDefinition operation;
+    private final List<String> rootFields;
+    private final int depth;
+    private final long fieldCount;
+
+    private OperationProfile(Document document, OperationDefinition operation, List<String> rootFields,
+                             int depth, long fieldCount) {
+        this.document = document;
+        this.operation = operation;
+        this.rootFields = List.copyOf(rootFields);
+        this.depth = depth;
+        this.fieldCount = fieldCount;
+    }
+
+    /**
+     * Analiza la operación indicada de un documento ya parseado
+     *
+     * @param document Documento GraphQL
+     * @param operationName Operación a ejecutar (puede ser null si el documento tiene una sola)
+     * @return Perfil de la operación o UNKNOWN si el documento no contiene la operación
+     */
+    public static OperationProfile of(Document document, String operationName) {
+        OperationDefinition operation = findOperation(document, operationName);
+        if (operation == null) {
+            return UNKNOWN;
+        }
+
+        Map<String, FragmentDefinition> fragments = new HashMap<>();
+        document.getDefinitionsOfType(FragmentDefinition.class).forEach(f -> fragments.put(f.getName(), f));
+
+        List<String> rootFields = new ArrayList<>();
+        collectRootFields(operation.getSelectionSet(), fragments, new HashSet<>(), rootFields);
+
+        long[] shape = new ShapeWalker(fragments).selectionSet(operation.getSelectionSet());
+
+        return new OperationProfile(document, operation, rootFields, (int) Math.min(Integer.MAX_VALUE, shape[0]),
+                shape[1]);
+    }
+
+    public boolean isValid() {
+        return operation != null;
+    }
+
+    public OperationDefinition.Operation getOperationType() {
+        return operation != null ? operation.getOperation() : null;
+    }
+
+    public String getOperationName() {
+        return operation != null ? operation.getName() : null;
+    }
+
+    public List<String> getRootFields() {
+        return rootFields;
+    }
+
+    /**
+     * Mutation formada solo por login y/o refreshToken (permitida sin autenticación)
+     */
+    public boolean isAuthOperation() {
+        return getOperationType() == OperationDefinition.Operation.MUTATION
+                && !rootFields.isEmpty() && AUTH_MUTATIONS.containsAll(rootFields);
+    }
+
+    /**
+     * Query formada solo por campos de introspección (__schema, __type, __typename)
+     */
+    public boolean isIntrospection() {
+        return getOperationType() == OperationDefinition.Operation.QUERY
+                && !rootFields.isEmpty() && INTROSPECTION_FIELDS.containsAll(rootFields);
+    }
+
+    /**
+     * Máxima profundidad de anidamiento de campos (los campos raíz tienen profundidad 1)
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * Número de campos seleccionados, con los fragments expandidos
+     */
+    public long getFieldCount() {
+        return fieldCount;
+    }
+
+    Document getDocument() {
+        return document;
+    }
+
+    OperationDefinition getOperation() {
+        return operation;
+    }
+
+    @Override
+    public String toString() {
+        if (!isValid()) {
+            return "unknown";
+        }
+        return getOperationType().name().toLowerCase() + " " + (getOperationName() != null ? getOperationName() : "")
+                + rootFields + " (depth " + depth + ", fields " + fieldCount + ")";
+    }
+
+    /**
+     * Campos raíz de la operación, incluidos los seleccionados dentro de inline fragments y
+     * fragment spreads en la raíz: "{ __typename ... on Query { getCourse } }" no es introspección
+     */
+    private static void collectRootFields(SelectionSet selectionSet, Map<String, FragmentDefinition> fragments,
+                                          Set<String> visited, List<String> rootFields) {
+        if (selectionSet == null) {
+            return;
+        }
+        for (Selection<?> selection : selectionSet.getSelections()) {
+            if (selection instanceof Field field) {
+                rootFields.add(field.getName());
+            } else if (selection instanceof InlineFragment inline) {
+                collectRootFields(inline.getSelectionSet(), fragments, visited, rootFields);
+            } else if (selection instanceof FragmentSpread spread && visited.add(spread.getName())) {
+                FragmentDefinition fragment = fragments.get(spread.getName());
+                if (fragment != null) {
+                    collectRootFields(fragment.getSelectionSet(), fragments, visited, rootFields);
+                }
+            }
+        }
+    }
+
+    private static OperationDefinition findOperation(Document document, String operationName) {
+        List<OperationDefinition> operations = document.getDefinitionsOfType(OperationDefinition.class);
+        if (operationName == null || operationName.isEmpty()) {
+            return operations.size() == 1 ? operations.get(0) : null;
+        }
+        return operations.stream()
+                .filter(operation -> operationName.equals(operation.getName()))
+                .findFirst()
+                .orElse(null);
+    }
+
+    /**
+     * Calcula {profundidad, número de campos} de un selection set. El resultado de cada fragment
+     * se memoriza, de modo que reutilizar un fragment muchas veces no multiplica el recorrido.
+     */
+    private static final class ShapeWalker {
+
+        private final Map<String, FragmentDefinition> fragments;
+        private final Map<String, long[]> memo = new HashMap<>();
+        private final Set<String> visiting = new HashSet<>();
+
+        ShapeWalker(Map<String, FragmentDefinition> fragments) {
+            this.fragments = fragments;
+        }
+
+        long[] selectionSet(SelectionSet selectionSet) {
+            long depth = 0;
+            long count = 0;
+            if (selectionSet == null) {
+                return new long[]{0, 0};
+            }
+            for (Selection<?> selection : selectionSet.getSelections()) {
+                long[] child;
+                if (selection instanceof Field field) {
+                    child = selectionSet(field.getSelectionSet());
+                    depth = Math.max(depth, child[0] + 1);
+                    count = saturatedAdd(count, saturatedAdd(child[1], 1));
+                    continue;
+                } else if (selection instanceof InlineFragment inline) {
+                    child = selectionSet(inline.getSelectionSet());
+                } else if (selection instanceof FragmentSpread spread) {
+                    child = fragment(spread.getName());
+                } else {
+                    continue;
+                }
+                depth = Math.max(depth, child[0]);
+                count = saturatedAdd(count, child[1]);
+            }
+            return new long[]{depth, count};
+        }
+
+        private long[] fragment(String name) {
+            long[] cached = memo.get(name);
+            if (cached != null) {
+                return cached;
+            }
+            FragmentDefinition fragment = fragments.get(name);
+            // Un ciclo de fragments es inválido: la validación lo rechazará antes de ejecutar
+            if (fragment == null || !visiting.add(name)) {
+                return new long[]{0, 0};
+            }
+            long[] result = selectionSet(fragment.getSelectionSet());
+            visiting.remove(name);
+            memo.put(name, result);
+            return result;
+        }
+
+        private static long saturatedAdd(long a, long b) {
+            long result = a + b;
+            return result < 0 ? Long.MAX_VALUE : result;
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.udea.innosistemas.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.udea.innosistemas.service.PersistedQueryStore;
+import com.udea.innosistemas.service.PreparsedDocumentCache;
+import graphql.language.Document;
+import graphql.parser.Parser;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.graphql.server.WebGraphQlRequest;
+import org.springframework.stereotype.Component;
+
+/**
+ * Obtiene el OperationProfile de una petición GraphQL, parseando cada documento una sola vez.
+ * Los perfiles se guardan en una caché acotada indexada por el hash SHA-256 del documento y el
+ * nombre de la operación; si el documento ya está en PreparsedDocumentCache se reutiliza su AST.
+ * Dentro de una petición el perfil se publica como atributo para que todos los interceptores
+ * lean el mismo.
+ *
+ * Autor: Fábrica-Escuela de Software UdeA
+ * Versión: 1.0.0
+ */
+@Component
+public class OperationProfiler {
+
+    private static final Logger logger = LoggerFactory.getLogger(OperationProfiler.class);
+
+    @Autowired(required = false)
+    private PreparsedDocumentCache preparsedDocumentCache;
+
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+
+    @Value("${innosistemas.graphql.profiles.max-entries:1000}")
+    private long maxEntries;
+
+    private Cache<String, OperationProfile> profiles;
+
+    @PostConstruct
+    void init() {
+        this.profiles = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .recordStats()
+                .build();
+
+        if (meterRegistry != null) {
+            CaffeineCacheMetrics.monitor(meterRegistry, profiles, "graphql.operation.profiles");
+        }
+    }
+
+    /**
+     * Perfil de la operación de una petición GraphQL (calculado una vez por petición y por documento)
+     *
+     * @param request Petición GraphQL
+     * @return Perfil de la operación; UNKNOWN si el documento no se puede analizar
+     */
+    public OperationProfile profile(WebGraphQlRequest request) {
+        Object attribute = request.getAttributes().get(OperationProfile.REQUEST_ATTRIBUTE);
+        if (attribute instanceof OperationProfile profile) {
+            return profile;
+        }
+        OperationProfile profile = profile(request.getDocument(), request.getOperationName());
+        request.getAttributes().put(OperationProfile.REQUEST_ATTRIBUTE, profile);
+        return profile;
+    }
+
+    /**
+     * Perfil de una operación de un documento
+     *
+     * @param document Texto del documento
+     * @param operationName Operación a ejecutar (puede ser null si el documento tiene una sola)
+     * @return Perfil de la operación; UNKNOWN si el documento no se puede analizar
+     */
+    public OperationProfile profile(String document, String operationName) {
+        if (document == null || document.isEmpty()) {
+            return OperationProfile.UNKNOWN;
+        }
+        String key = PersistedQueryStore.sha256Hex(document) + ":" + (operationName != null ? operationName : "");
+        return profiles.get(key, k -> analyze(document, operationName));
+    }
+
+    private OperationProfile analyze(String document, String operationName) {
+        try {
+            Document parsed = preparsedDocumentCache != null ? preparsedDocumentCache.getIfPresent(document) : null;
+            if (parsed == null) {
+                parsed = Parser.parse(document);
+            }
+            return OperationProfile.of(parsed, operationName);
+        } catch (Exception e) {
+            logger.debug("Could not profile GraphQL operation: {}", e.getMessage());
+            return OperationProfile.UNKNOWN;
+        }
+    }
+}
@@ -0,0 +1,266 @@
+package com.udea.innosistemas.security;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.udea.innosistemas.service.PersistedQueryStore;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Filtro de Automatic Persisted Queries (protocolo de Apollo) para POST /graphql.
+ * El cliente envía extensions.persistedQuery.sha256Hash en lugar del texto del documento:
+ * si el hash está registrado se completa el cuerpo con el documento almacenado; si no, se
+ * responde PERSISTED_QUERY_NOT_FOUND y el cliente reintenta con documento y hash, que se
+ * verifica y registra en PersistedQueryStore.
+ *
+ * Solo se registran documentos de peticiones autenticadas, para que clientes anónimos no
+ * puedan llenar el almacén; las peticiones anónimas (login, refresh) se ejecutan igualmente.
+ *
+ * El cuerpo se lee con un tamaño máximo (max-body-bytes, 413 si se supera) y se recorre con el
+ * parser de streaming de Jackson solo hasta extensions.persistedQuery: el árbol completo se
+ * construye únicamente para las peticiones APQ, el resto llega a Spring GraphQL sin un segundo parseo.
+ *
+ * Autor: Fábrica-Escuela de Software UdeA
+ * Versión: 1.1.0
+ */
+@Component
+public class PersistedQueryFilter extends OncePerRequestFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(PersistedQueryFilter.class);
+
+    @Autowired
+    private PersistedQueryStore persistedQueryStore;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${innosistemas.graphql.apq.enabled:true}")
+    private boolean enabled;
+
+    @Value("${innosistemas.graphql.apq.max-query-length:20000}")
+    private int maxQueryLength;
+
+    @Value("${innosistemas.graphql.apq.max-body-bytes:1048576}")
+    private int maxBodyBytes;
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+
+        if (request.getContentLengthLong() > maxBodyBytes) {
+            rejectTooLarge(response);
+            return;
+        }
+        byte[] body = request.getInputStream().readNBytes(maxBodyBytes + 1);
+        if (body.length > maxBodyBytes) {
+            rejectTooLarge(response);
+            return;
+        }
+
+        String hash = persistedQueryHash(body);
+        if (hash == null) {
+            filterChain.doFilter(new CachedBodyRequest(request, body), response);
+            return;
+        }
+
+        Map<String, Object> payload;
+        try {
+            payload = objectMapper.readValue(body, Map.class);
+        } catch (IOException e) {
+            // JSON inválido después de extensions: lo rechaza Spring GraphQL con su propio error
+            filterChain.doFilter(new CachedBodyRequest(request, body), response);
+            return;
+        }
+
+        Object query = payload.get("query");
+        if (query instanceof String text && !text.isEmpty()) {
+            if (!hash.equalsIgnoreCase(PersistedQueryStore.sha256Hex(text))) {
+                logger.warn("Persisted query hash mismatch for hash {}", hash);
+                writeError(response, HttpServletResponse.SC_BAD_REQUEST,
+                        "provided sha does not match query", "PERSISTED_QUERY_HASH_MISMATCH");
+                return;
+            }
+            if (isAuthenticated() && text.length() <= maxQueryLength) {
+                persistedQueryStore.put(hash.toLowerCase(), text);
+            }
+            filterChain.doFilter(new CachedBodyRequest(request, body), response);
+            return;
+        }
+
+        String stored = persistedQueryStore.get(hash.toLowerCase());
+        if (stored == null) {
+            writeError(response, HttpServletResponse.SC_OK, "PersistedQueryNotFound", "PERSISTED_QUERY_NOT_FOUND");
+            return;
+        }
+        payload.put("query", stored);
+        filterChain.doFilter(new CachedBodyRequest(request, objectMapper.writeValueAsBytes(payload)), response);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled
+                || !HttpMethod.POST.matches(request.getMethod())
+                || !request.getRequestURI().endsWith("/graphql")
+                || request.getContentType() == null
+                || !request.getContentType().contains("json");
+    }
+
+    /**
+     * Busca extensions.persistedQuery.sha256Hash con el parser de streaming, saltando el resto del
+     * cuerpo (query, variables) sin materializarlo
+     *
+     * @param body Cuerpo JSON de la petición
+     * @return Hash SHA-256 en hexadecimal o null si la petición no es APQ o el cuerpo no es JSON válido
+     */
+    private String persistedQueryHash(byte[] body) {
+        try (JsonParser parser = objectMapper.getFactory().createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT
+                    || !nextObjectField(parser, "extensions")
+                    || !nextObjectField(parser, "persistedQuery")) {
+                return null;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+                if ("sha256Hash".equals(field) && value == JsonToken.VALUE_STRING) {
+                    String hash = parser.getText();
+                    return hash.length() == 64 ? hash : null;
+                }
+                parser.skipChildren();
+            }
+            return null;
+        } catch (IOException e) {
+            // Cuerpo no JSON: lo rechaza Spring GraphQL con su propio error
+            return null;
+        }
+    }
+
+    /**
+     * Avanza dentro del objeto actual hasta el campo indicado cuyo valor es un objeto
+     *
+     * @return true si el parser quedó al inicio de ese objeto
+     */
+    private static boolean nextObjectField(JsonParser parser, String name) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+            if (name.equals(field) && value == JsonToken.START_OBJECT) {
+                return true;
+            }
+            parser.skipChildren();
+        }
+        return false;
+    }
+
+    private boolean isAuthenticated() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null && authentication.isAuthenticated()
+                && !"anonymousUser".equals(authentication.getName());
+    }
+
+    private void rejectTooLarge(HttpServletResponse response) throws IOException {
+        logger.warn("GraphQL request body exceeds {} bytes", maxBodyBytes);
+        writeError(response, HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE,
+                "El cuerpo de la petición excede el tamaño máximo permitido", "PAYLOAD_TOO_LARGE");
+    }
+
+    private void writeError(HttpServletResponse response, int status, String message, String code) throws IOException {
+        response.setStatus(status);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(),
+                Map.of("errors", List.of(Map.of("message", message, "extensions", Map.of("code", code)))));
+    }
+
+    /**
+     * Petición cuyo cuerpo ya fue leído por el filtro y se vuelve a entregar desde memoria
+     */
+    private static final class CachedBodyRequest extends HttpServletRequestWrapper {
+
+        private final byte[] body;
+
+        CachedBodyRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream input = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public boolean isFinished() {
+                    return input.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener readListener) {
+                    // El cuerpo ya está en memoria: todo está disponible de inmediato
+                    try {
+                        if (!isFinished()) {
+                            readListener.onDataAvailable();
+                        }
+                        readListener.onAllDataRead();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+
+                @Override
+                public int read() {
+                    return input.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    return input.read(b, off, len);
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            return new BufferedReader(new InputStreamReader(getInputStream(), StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public int getContentLength() {
+            return body.length;
+        }
+
+        @Override
+        public long getContentLengthLong() {
+            return body.length;
+        }
+    }
+}
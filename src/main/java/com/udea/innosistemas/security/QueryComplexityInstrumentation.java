@@ -0,0 +1,142 @@
+package com.udea.innosistemas.security;
+
+import com.udea.innosistemas.exception.GraphQLErrorType;
+import com.udea.innosistemas.security.GraphQLCostCalculator.OperationCost;
+import graphql.ExecutionInput;
+import graphql.ExecutionResult;
+import graphql.GraphQLError;
+import graphql.GraphqlErrorBuilder;
+import graphql.execution.AbortExecutionException;
+import graphql.execution.instrumentation.InstrumentationContext;
+import graphql.execution.instrumentation.InstrumentationState;
+import graphql.execution.instrumentation.SimplePerformantInstrumentation;
+import graphql.execution.instrumentation.parameters.InstrumentationExecuteOperationParameters;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Instrumentation de graphql-java que limita la profundidad y la complejidad de las operaciones.
+ * Se evalúa al comenzar la ejecución de la operación (documento ya validado), antes de que se
+ * ejecute ningún data fetcher: las operaciones que exceden el presupuesto se rechazan con un
+ * error QUERY_TOO_DEEP o QUERY_TOO_COMPLEX que indica el valor calculado y el máximo.
+ *
+ * La profundidad sale del OperationProfile de la operación y la complejidad de
+ * GraphQLCostCalculator, con los pesos declarados en el esquema con la directiva @cost.
+ * Las consultas de introspección (todos sus campos raíz, incluidos los de fragments en la raíz, son
+ * __schema, __type o __typename) no se limitan por complejidad, pero sí por una profundidad máxima
+ * propia, mayor que la general porque la consulta de introspección estándar anida ofType varias veces.
+ *
+ * Autor: Fábrica-Escuela de Software UdeA
+ * Versión: 1.1.0
+ */
+@Component
+public class QueryComplexityInstrumentation extends SimplePerformantInstrumentation {
+
+    private static final Logger logger = LoggerFactory.getLogger(QueryComplexityInstrumentation.class);
+
+    @Autowired
+    private OperationProfiler operationProfiler;
+
+    @Autowired
+    private GraphQLCostCalculator costCalculator;
+
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+
+    @Value("${innosistemas.graphql.limits.enabled:true}")
+    private boolean enabled;
+
+    @Value("${innosistemas.graphql.limits.max-depth:8}")
+    private int maxDepth;
+
+    @Value("${innosistemas.graphql.limits.max-complexity:2000}")
+    private long maxComplexity;
+
+    @Value("${innosistemas.graphql.limits.max-introspection-depth:20}")
+    private int maxIntrospectionDepth;
+
+    private Counter rejectedByDepth;
+    private Counter rejectedByComplexity;
+
+    @PostConstruct
+    void init() {
+        if (meterRegistry != null) {
+            rejectedByDepth = Counter.builder("graphql.operations.rejected").tag("reason", "depth")
+                    .description("GraphQL operations rejected before execution").register(meterRegistry);
+            rejectedByComplexity = Counter.builder("graphql.operations.rejected").tag("reason", "complexity")
+                    .description("GraphQL operations rejected before execution").register(meterRegistry);
+        }
+    }
+
+    @Override
+    public InstrumentationContext<ExecutionResult> beginExecuteOperation(InstrumentationExecuteOperationParameters parameters,
+                                                                         InstrumentationState state) {
+        if (enabled) {
+            ExecutionInput input = parameters.getExecutionContext().getExecutionInput();
+            check(operationProfiler.profile(input.getQuery(), input.getOperationName()), input.getVariables());
+        }
+        return super.beginExecuteOperation(parameters, state);
+    }
+
+    /**
+     * Verifica la operación contra los límites
+     *
+     * @param profile Perfil de la operación
+     * @param variables Variables de la petición
+     * @throws AbortExecutionException si la operación excede la profundidad o la complejidad máximas
+     */
+    void check(OperationProfile profile, Map<String, Object> variables) {
+        if (!profile.isValid()) {
+            return;
+        }
+
+        int depthLimit = profile.isIntrospection() ? maxIntrospectionDepth : maxDepth;
+        if (profile.getDepth() > depthLimit) {
+            logger.warn("GraphQL operation rejected: depth {} exceeds {} ({})", profile.getDepth(), depthLimit, profile);
+            increment(rejectedByDepth);
+            throw reject(GraphQLErrorType.QUERY_TOO_DEEP,
+                    "La consulta excede la profundidad máxima permitida (" + depthLimit + ")",
+                    Map.of("depth", profile.getDepth(), "maxDepth", depthLimit));
+        }
+
+        // Solo es introspección si todo el árbol lo es (OperationProfile expande los fragments de la raíz)
+        if (profile.isIntrospection()) {
+            return;
+        }
+
+        OperationCost cost = costCalculator.calculate(profile, variables);
+        if (cost.getCost() > maxComplexity) {
+            logger.warn("GraphQL operation rejected: complexity {} exceeds {} ({})",
+                    cost.getCost(), maxComplexity, profile);
+            increment(rejectedByComplexity);
+            throw reject(GraphQLErrorType.QUERY_TOO_COMPLEX,
+                    "La consulta excede la complejidad máxima permitida (" + maxComplexity + ")",
+                    Map.of("complexity", cost.getCost(), "maxComplexity", maxComplexity));
+        }
+    }
+
+    private static AbortExecutionException reject(GraphQLErrorType type, String message,
+                                                  Map<String, Object> extensions) {
+        GraphQLError error = GraphqlErrorBuilder.newError()
+                .errorType(type)
+                .message(message)
+                .extensions(extensions)
+                .build();
+        return new AbortExecutionException(List.of(error));
+    }
+
+    private static void increment(Counter counter) {
+        if (counter != null) {
+            counter.increment();
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package com.udea.innosistemas.security;
 
+import com.udea.innosistemas.entity.UserRole;
+import com.udea.innosistemas.service.RateLimitProbe;
 import com.udea.innosistemas.service.RateLimitingService;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
@@ -10,6 +12,7 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
@@ -20,14 +23,18 @@ import java.io.IOException;
  * Filtro de Rate Limiting que controla el número de peticiones por usuario.
  * Se ejecuta después del filtro de autenticación JWT.
  * Limita peticiones basándose en usuario autenticado o IP del cliente.
+ * Las peticiones a /graphql no se cobran aquí: solo se resuelve su clave y GraphQLRateLimitInterceptor
+ * las cobra según la operación una vez analizado el documento.
  *
  * Autor: Fábrica-Escuela de Software UdeA
- * Versión: 1.0.0
+ * Versión: 2.0.0
  */
 @Component
 public class RateLimitFilter extends OncePerRequestFilter {
 
     private static final Logger logger = LoggerFactory.getLogger(RateLimitFilter.class);
+    static final String RATE_LIMIT_KEY_ATTRIBUTE = RateLimitFilter.class.getName() + ".KEY";
+    static final String RATE_LIMIT_ROLE_ATTRIBUTE = RateLimitFilter.class.getName() + ".ROLE";
 
     @Autowired
     private RateLimitingService rateLimitingService;
@@ -36,21 +43,31 @@ public class RateLimitFilter extends OncePerRequestFilter {
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
             throws ServletException, IOException {
 
-        // Obtener clave para rate limiting (usuario o IP)
+        // Obtener clave para rate limiting (usuario o IP) y el rol que determina el plan
         String key = getRateLimitKey(request);
+        UserRole role = getUserRole();
+
+        // GraphQL: el costo depende de la operación y se cobra en GraphQLRateLimitInterceptor
+        if (isGraphQLRequest(request)) {
+            request.setAttribute(RATE_LIMIT_KEY_ATTRIBUTE, key);
+            if (role != null) {
+                request.setAttribute(RATE_LIMIT_ROLE_ATTRIBUTE, role);
+            }
+            filterChain.doFilter(request, response);
+            return;
+        }
 
         // Verificar si es un endpoint de autenticación
         boolean isAuthEndpoint = isAuthenticationEndpoint(request);
 
-        // Aplicar rate limiting
-        boolean allowed;
-        if (isAuthEndpoint) {
-            allowed = rateLimitingService.allowAuthRequest(key);
-        } else {
-            allowed = rateLimitingService.allowRequest(key);
-        }
+        // Aplicar rate limiting: una sola consulta decide y aporta los datos de los headers
+        RateLimitProbe probe = isAuthEndpoint
+                ? rateLimitingService.tryConsumeAuthAndReturnRemaining(key)
+                : rateLimitingService.tryConsumeAndReturnRemaining(key, 1, role);
+
+        addRateLimitHeaders(response, probe);
 
-        if (!allowed) {
+        if (!probe.isAllowed()) {
             // Rate limit excedido
             logger.warn("Rate limit exceeded for key: {} on endpoint: {}", key, request.getRequestURI());
             response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
@@ -61,9 +78,6 @@ public class RateLimitFilter extends OncePerRequestFilter {
             return;
         }
 
-        // Agregar headers informativos
-        addRateLimitHeaders(response, key);
-
         filterChain.doFilter(request, response);
     }
 
@@ -83,29 +97,31 @@ public class RateLimitFilter extends OncePerRequestFilter {
         }
 
         // Si no está autenticado, usar IP del cliente
-        String clientIp = getClientIp(request);
+        String clientIp = ClientIpResolver.resolve(request);
         return "ip:" + clientIp;
     }
 
     /**
-     * Obtiene la IP del cliente considerando proxies
+     * Obtiene el rol del usuario autenticado para aplicar el plan de rate limiting de su rol
      *
-     * @param request HttpServletRequest
-     * @return IP del cliente
+     * @return Rol del usuario, o null si la petición es anónima
      */
-    private String getClientIp(HttpServletRequest request) {
-        String xForwardedFor = request.getHeader("X-Forwarded-For");
-        if (xForwardedFor != null && !xForwardedFor.isEmpty()) {
-            // Tomar la primera IP de la lista
-            return xForwardedFor.split(",")[0].trim();
+    private UserRole getUserRole() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated()) {
+            return null;
         }
-
-        String xRealIp = request.getHeader("X-Real-IP");
-        if (xRealIp != null && !xRealIp.isEmpty()) {
-            return xRealIp;
+        for (GrantedAuthority authority : authentication.getAuthorities()) {
+            String name = authority.getAuthority();
+            if (name != null && name.startsWith("ROLE_")) {
+                try {
+                    return UserRole.valueOf(name.substring("ROLE_".length()));
+                } catch (IllegalArgumentException e) {
+                    // Autoridad que no corresponde a un rol de usuario
+                }
+            }
         }
-
-        return request.getRemoteAddr();
+        return null;
     }
 
     /**
@@ -116,13 +132,6 @@ public class RateLimitFilter extends OncePerRequestFilter {
      */
     private boolean isAuthenticationEndpoint(HttpServletRequest request) {
         String uri = request.getRequestURI();
-        String method = request.getMethod();
-
-        // GraphQL mutations de autenticación
-        if (uri.contains("/graphql") && "POST".equals(method)) {
-            // Para GraphQL necesitaríamos parsear el body, por ahora aplicar límite estricto
-            return true;
-        }
 
         // REST endpoints de autenticación
         return uri.contains("/auth/login") ||
@@ -130,19 +139,25 @@ public class RateLimitFilter extends OncePerRequestFilter {
                uri.contains("/auth/register");
     }
 
+    private boolean isGraphQLRequest(HttpServletRequest request) {
+        return request.getRequestURI().endsWith("/graphql") && "POST".equals(request.getMethod());
+    }
+
     /**
      * Agrega headers de rate limiting a la respuesta
      *
      * @param response HttpServletResponse
-     * @param key Clave del rate limit
+     * @param probe Resultado de la consulta al bucket
      */
-    private void addRateLimitHeaders(HttpServletResponse response, String key) {
-        try {
-            long availableTokens = rateLimitingService.getAvailableTokens(key);
-            response.setHeader("X-RateLimit-Remaining", String.valueOf(availableTokens));
-            response.setHeader("X-RateLimit-Limit", "100"); // Podría ser dinámico
-        } catch (Exception e) {
-            logger.debug("Error adding rate limit headers: {}", e.getMessage());
+    private void addRateLimitHeaders(HttpServletResponse response, RateLimitProbe probe) {
+        if (!probe.isLimited()) {
+            return;
+        }
+        response.setHeader("X-RateLimit-Limit", String.valueOf(probe.getLimit()));
+        response.setHeader("X-RateLimit-Remaining", String.valueOf(probe.getRemaining()));
+        response.setHeader("X-RateLimit-Reset", String.valueOf(probe.getResetSeconds()));
+        if (!probe.isAllowed()) {
+            response.setHeader("Retry-After", String.valueOf(Math.max(1, probe.getRetryAfterSeconds())));
         }
     }
 
@@ -0,0 +1,42 @@
+package com.udea.innosistemas.security;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+
+/**
+ * Utilidad para obtener un identificador compacto y de tamaño fijo a partir de un token JWT.
+ * Usa SHA-256 codificado en Base64 URL-safe (43 caracteres) para indexar cachés y claves de Redis
+ * sin almacenar el token completo.
+ *
+ * Autor: Fábrica-Escuela de Software UdeA
+ * Versión: 1.0.0
+ */
+public final class TokenDigest {
+
+    // MessageDigest no es thread-safe: una instancia por hilo evita sincronización en el camino caliente
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    });
+
+    private TokenDigest() {
+    }
+
+    /**
+     * Calcula el digest SHA-256 del token
+     *
+     * @param token Token JWT
+     * @return Digest en Base64 URL-safe sin padding
+     */
+    public static String sha256(String token) {
+        MessageDigest digest = SHA_256.get();
+        digest.reset();
+        byte[] hash = digest.digest(token.getBytes(StandardCharsets.US_ASCII));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(hash);
+    }
+}
@@ -0,0 +1,166 @@
+package com.udea.innosistemas.security;
+
+import graphql.GraphQLContext;
+import io.jsonwebtoken.Claims;
+import jakarta.servlet.http.HttpServletRequest;
+
+import java.util.Date;
+
+/**
+ * Resultado inmutable de verificar un token JWT una única vez.
+ * Contiene los claims ya validados (firma y expiración) junto con los valores
+ * tipados más usados, para que el filtro, los servicios, las directivas y los
+ * resolvers reutilicen la misma verificación durante toda la petición.
+ *
+ * Autor: Fábrica-Escuela de Software UdeA
+ * Versión: 1.0.0
+ */
+public final class VerifiedToken {
+
+    /**
+     * Atributo de la petición HTTP y clave del contexto GraphQL donde se publica el token verificado
+     */
+    public static final String REQUEST_ATTRIBUTE = VerifiedToken.class.getName();
+
+    private static final String REFRESH_TYPE = "refresh";
+
+    private final String token;
+    private final Claims claims;
+    private final Long userId;
+    private final Long teamId;
+    private final Long courseId;
+    private final Long claimsVersion;
+
+    public VerifiedToken(String token, Claims claims) {
+        this.token = token;
+        this.claims = claims;
+        this.userId = toLong(claims.get("userId"));
+        this.teamId = toLong(claims.get("teamId"));
+        this.courseId = toLong(claims.get("courseId"));
+        this.claimsVersion = toLong(claims.get("ver"));
+    }
+
+    /**
+     * Obtiene el token verificado publicado por JwtAuthenticationFilter en la petición
+     *
+     * @param request Petición HTTP actual
+     * @return Token verificado o null si la petición no trae un token válido
+     */
+    public static VerifiedToken fromRequest(HttpServletRequest request) {
+        if (request == null) {
+            return null;
+        }
+        Object attribute = request.getAttribute(REQUEST_ATTRIBUTE);
+        return attribute instanceof VerifiedToken ? (VerifiedToken) attribute : null;
+    }
+
+    /**
+     * Obtiene el token verificado publicado por GraphQLSecurityInterceptor en el contexto GraphQL
+     *
+     * @param context Contexto de la operación GraphQL
+     * @return Token verificado o null si la operación es anónima
+     */
+    public static VerifiedToken fromContext(GraphQLContext context) {
+        if (context == null) {
+            return null;
+        }
+        Object value = context.get(REQUEST_ATTRIBUTE);
+        return value instanceof VerifiedToken ? (VerifiedToken) value : null;
+    }
+
+    public String getToken() {
+        return token;
+    }
+
+    public Claims getClaims() {
+        return claims;
+    }
+
+    public String getSubject() {
+        return claims.getSubject();
+    }
+
+    public String getTokenId() {
+        return claims.getId();
+    }
+
+    /**
+     * Identificador compacto usado como clave de revocación: el jti del token o, en tokens
+     * emitidos antes de incluir jti, el digest SHA-256 del token completo
+     */
+    public String getRevocationId() {
+        String tokenId = getTokenId();
+        return tokenId != null ? tokenId : TokenDigest.sha256(token);
+    }
+
+    /**
+     * Sesión registrada a la que pertenece el token (null en tokens emitidos sin sesión)
+     */
+    public String getSessionId() {
+        return claims.get("sid", String.class);
+    }
+
+    public Date getIssuedAt() {
+        return claims.getIssuedAt();
+    }
+
+    /**
+     * Instante de emisión en milisegundos: el claim iatMs o, en tokens emitidos sin él, iat
+     * (truncado al segundo)
+     */
+    public Long getIssuedAtMillis() {
+        Long issuedAtMillis = toLong(claims.get("iatMs"));
+        if (issuedAtMillis != null) {
+            return issuedAtMillis;
+        }
+        Date issuedAt = getIssuedAt();
+        return issuedAt != null ? issuedAt.getTime() : null;
+    }
+
+    public Date getExpiration() {
+        return claims.getExpiration();
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public Long getTeamId() {
+        return teamId;
+    }
+
+    public Long getCourseId() {
+        return courseId;
+    }
+
+    /**
+     * Versión de claims del usuario al emitir el token (null en tokens emitidos antes del modo stateless)
+     */
+    public Long getClaimsVersion() {
+        return claimsVersion;
+    }
+
+    public String getRole() {
+        return claims.get("role", String.class);
+    }
+
+    public String getAuthorities() {
+        return claims.get("authorities", String.class);
+    }
+
+    public boolean isRefreshToken() {
+        return REFRESH_TYPE.equals(claims.get("type", String.class));
+    }
+
+    public boolean isExpired() {
+        Date expiration = getExpiration();
+        return expiration != null && expiration.before(new Date());
+    }
+
+    private static Long toLong(Object value) {
+        if (value instanceof Number) {
+            return ((Number) value).longValue();
+        }
+        return null;
+    }
+}
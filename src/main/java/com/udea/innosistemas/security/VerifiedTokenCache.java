@@ -0,0 +1,134 @@
+package com.udea.innosistemas.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caché local, acotada y con expiración, de tokens JWT ya verificados.
+ * Evita repetir la verificación HMAC y el parseo JSON cuando el cliente reenvía el mismo token.
+ * Las entradas se indexan por el digest SHA-256 del token, nunca sobreviven al claim exp
+ * y se eliminan cuando el token es revocado.
+ *
+ * Autor: Fábrica-Escuela de Software UdeA
+ * Versión: 1.0.0
+ */
+@Component
+public class VerifiedTokenCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(VerifiedTokenCache.class);
+    private static final String CACHE_NAME = "jwt.verified-tokens";
+
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+
+    @Value("${innosistemas.auth.jwt.cache.enabled:true}")
+    private boolean cacheEnabled;
+
+    @Value("${innosistemas.auth.jwt.cache.max-size:10000}")
+    private long maxSize;
+
+    private Cache<String, VerifiedToken> cache;
+
+    @PostConstruct
+    void init() {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new TokenExpiry())
+                .recordStats()
+                .build();
+
+        if (meterRegistry != null) {
+            CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+        }
+        logger.info("Verified token cache initialized (enabled: {}, max size: {})", cacheEnabled, maxSize);
+    }
+
+    /**
+     * Busca un token previamente verificado
+     *
+     * @param token Token JWT
+     * @return Token verificado o null si no está en caché o ya expiró
+     */
+    public VerifiedToken get(String token) {
+        if (!cacheEnabled) {
+            return null;
+        }
+        VerifiedToken verifiedToken = cache.getIfPresent(TokenDigest.sha256(token));
+        // Protección ante colisiones de digest y expiración entre barridos de Caffeine
+        if (verifiedToken == null || !verifiedToken.getToken().equals(token) || verifiedToken.isExpired()) {
+            return null;
+        }
+        return verifiedToken;
+    }
+
+    /**
+     * Almacena un token recién verificado
+     *
+     * @param verifiedToken Token verificado
+     */
+    public void put(VerifiedToken verifiedToken) {
+        if (cacheEnabled && verifiedToken.getExpiration() != null) {
+            cache.put(TokenDigest.sha256(verifiedToken.getToken()), verifiedToken);
+        }
+    }
+
+    /**
+     * Elimina un token de la caché (revocación, logout)
+     *
+     * @param token Token JWT
+     */
+    public void invalidate(String token) {
+        cache.invalidate(TokenDigest.sha256(token));
+    }
+
+    /**
+     * Limpia la caché completa (uso administrativo)
+     */
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    /**
+     * Número aproximado de tokens en caché
+     *
+     * @return Tamaño estimado
+     */
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    /**
+     * Política de expiración por entrada: cada token vive en caché hasta su propio claim exp
+     */
+    private static class TokenExpiry implements Expiry<String, VerifiedToken> {
+
+        @Override
+        public long expireAfterCreate(String key, VerifiedToken value, long currentTime) {
+            Date expiration = value.getExpiration();
+            long remainingMillis = expiration.getTime() - System.currentTimeMillis();
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(0, remainingMillis));
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, VerifiedToken value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, VerifiedToken value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
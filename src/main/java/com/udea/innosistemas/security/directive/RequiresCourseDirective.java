@@ -2,7 +2,7 @@ package com.udea.innosistemas.security.directive;
 
 import com.udea.innosistemas.entity.User;
 import com.udea.innosistemas.entity.UserRole;
-import com.udea.innosistemas.repository.UserRepository;
+import com.udea.innosistemas.service.CurrentUserProvider;
 import graphql.schema.DataFetcher;
 import graphql.schema.GraphQLFieldDefinition;
 import graphql.schema.idl.SchemaDirectiveWiring;
@@ -21,7 +21,7 @@ import org.springframework.stereotype.Component;
  * permisos de profesor/admin para ver otros cursos.
  *
  * Autor: Fábrica-Escuela de Software UdeA
- * Versión: 1.0.0
+ * Versión: 1.1.0
  */
 @Component
 public class RequiresCourseDirective implements SchemaDirectiveWiring {
@@ -29,7 +29,7 @@ public class RequiresCourseDirective implements SchemaDirectiveWiring {
     private static final Logger logger = LoggerFactory.getLogger(RequiresCourseDirective.class);
 
     @Autowired
-    private UserRepository userRepository;
+    private CurrentUserProvider currentUserProvider;
 
     @Override
     public GraphQLFieldDefinition onField(SchemaDirectiveWiringEnvironment<GraphQLFieldDefinition> environment) {
@@ -48,9 +48,10 @@ public class RequiresCourseDirective implements SchemaDirectiveWiring {
                 throw new AccessDeniedException("Debe estar autenticado para acceder a este campo");
             }
 
-            String username = authentication.getName();
-            User user = userRepository.findByEmail(username)
+            // Reutilizar el usuario cargado en la petición en lugar de volver a buscarlo por email
+            User user = currentUserProvider.getCurrentUser()
                     .orElseThrow(() -> new AccessDeniedException("Usuario no encontrado"));
+            String username = user.getEmail();
 
             // Profesores y admins pueden ver cualquier curso
             if (user.getRole() == UserRole.PROFESSOR || user.getRole() == UserRole.ADMIN) {
@@ -59,9 +60,9 @@ public class RequiresCourseDirective implements SchemaDirectiveWiring {
             }
 
             // Estudiantes y TAs solo pueden ver su propio curso
-            Long requestedCourseId = dataFetchingEnvironment.getArgument("courseId");
+            // Los argumentos ID llegan como String
+            Object requestedCourseId = dataFetchingEnvironment.getArgument("courseId");
             if (requestedCourseId != null) {
-                // Convertir a Long si viene como String
                 Long courseIdLong = Long.parseLong(requestedCourseId.toString());
 
                 if (user.getCourseId() == null) {
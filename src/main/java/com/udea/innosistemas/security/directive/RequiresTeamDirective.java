@@ -2,7 +2,7 @@ package com.udea.innosistemas.security.directive;
 
 import com.udea.innosistemas.entity.User;
 import com.udea.innosistemas.entity.UserRole;
-import com.udea.innosistemas.repository.UserRepository;
+import com.udea.innosistemas.service.CurrentUserProvider;
 import graphql.schema.DataFetcher;
 import graphql.schema.GraphQLFieldDefinition;
 import graphql.schema.idl.SchemaDirectiveWiring;
@@ -21,7 +21,7 @@ import org.springframework.stereotype.Component;
  * permisos de profesor/admin para ver otros equipos.
  *
  * Autor: Fábrica-Escuela de Software UdeA
- * Versión: 1.0.0
+ * Versión: 1.1.0
  */
 @Component
 public class RequiresTeamDirective implements SchemaDirectiveWiring {
@@ -29,7 +29,7 @@ public class RequiresTeamDirective implements SchemaDirectiveWiring {
     private static final Logger logger = LoggerFactory.getLogger(RequiresTeamDirective.class);
 
     @Autowired
-    private UserRepository userRepository;
+    private CurrentUserProvider currentUserProvider;
 
     @Override
     public GraphQLFieldDefinition onField(SchemaDirectiveWiringEnvironment<GraphQLFieldDefinition> environment) {
@@ -48,9 +48,10 @@ public class RequiresTeamDirective implements SchemaDirectiveWiring {
                 throw new AccessDeniedException("Debe estar autenticado para acceder a este campo");
             }
 
-            String username = authentication.getName();
-            User user = userRepository.findByEmail(username)
+            // Reutilizar el usuario cargado en la petición en lugar de volver a buscarlo por email
+            User user = currentUserProvider.getCurrentUser()
                     .orElseThrow(() -> new AccessDeniedException("Usuario no encontrado"));
+            String username = user.getEmail();
 
             // Profesores y admins pueden ver cualquier equipo
             if (user.getRole() == UserRole.PROFESSOR || user.getRole() == UserRole.ADMIN) {
@@ -59,9 +60,9 @@ public class RequiresTeamDirective implements SchemaDirectiveWiring {
             }
 
             // Estudiantes solo pueden ver su propio equipo
-            Long requestedTeamId = dataFetchingEnvironment.getArgument("teamId");
+            // Los argumentos ID llegan como String
+            Object requestedTeamId = dataFetchingEnvironment.getArgument("teamId");
             if (requestedTeamId != null) {
-                // Convertir a Long si viene como String
                 Long teamIdLong = Long.parseLong(requestedTeamId.toString());
 
                 if (user.getTeamId() == null) {
@@ -8,6 +8,7 @@ import com.udea.innosistemas.entity.User;
 import com.udea.innosistemas.exception.AuthenticationException;
 import com.udea.innosistemas.repository.UserRepository;
 import com.udea.innosistemas.security.JwtTokenProvider;
+import com.udea.innosistemas.security.VerifiedToken;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -47,7 +48,22 @@ public class AuthenticationService {
     @Autowired
     private SessionManagementService sessionManagementService;
 
+    @Autowired
+    private TokenEpochService tokenEpochService;
+
     public AuthResponse login(LoginRequest loginRequest) {
+        return login(loginRequest, null, null);
+    }
+
+    /**
+     * Autentica al usuario y registra la sesión con los datos del dispositivo
+     *
+     * @param loginRequest Credenciales del usuario
+     * @param device User-Agent del cliente (opcional)
+     * @param ip IP del cliente (opcional)
+     * @return AuthResponse con tokens y información del usuario
+     */
+    public AuthResponse login(LoginRequest loginRequest, String device, String ip) {
         try {
             logger.info("Attempting login for user ID");
 
@@ -61,14 +77,15 @@ public class AuthenticationService {
                     )
             );
 
-            SecurityContextHolder.getContext().setAuthentication(authentication);
+            // Registrar sesión activa (puede rechazarse por el límite de sesiones concurrentes)
+            String sessionId = UUID.randomUUID().toString();
+            sessionManagementService.registerSession(user.getEmail(), sessionId, device, ip);
 
-            String jwt = tokenProvider.generateToken(authentication);
-            String refreshToken = tokenProvider.generateRefreshToken(authentication);
+            SecurityContextHolder.getContext().setAuthentication(authentication);
 
-            // Registrar sesión activa
-            String sessionId = UUID.randomUUID().toString();
-            sessionManagementService.registerSession(user.getEmail(), sessionId);
+            // Los tokens llevan el id de sesión (claim "sid") para validarla y cerrarla en O(1)
+            String jwt = tokenProvider.generateToken(authentication, sessionId);
+            String refreshToken = tokenProvider.generateRefreshToken(authentication, sessionId);
 
             // Usar el nuevo constructor que incluye todos los campos
             UserInfo userInfo = new UserInfo(user);
@@ -83,6 +100,8 @@ public class AuthenticationService {
         } catch (UsernameNotFoundException e) {
             logger.warn("Login failed - User not found");
             throw new AuthenticationException("Usuario no encontrado");
+        } catch (AuthenticationException e) {
+            throw e;
         } catch (Exception e) {
             logger.error("Login failed - Unexpected error: {}", e.getMessage());
             throw new AuthenticationException("Error durante la autenticación");
@@ -104,43 +123,48 @@ public class AuthenticationService {
         try {
             logger.info("Attempting to refresh token");
 
+            // Validar el refresh token (una sola verificación de firma)
+            VerifiedToken verifiedToken = tokenProvider.parseVerifiedToken(refreshToken);
+            if (verifiedToken == null) {
+                logger.warn("Invalid refresh token");
+                throw new AuthenticationException("Token inválido");
+            }
+
             // Validar que el token no esté en la blacklist
-            if (tokenBlacklistService.isTokenBlacklisted(refreshToken)) {
+            if (tokenBlacklistService.isTokenBlacklisted(verifiedToken)) {
                 logger.warn("Refresh token is blacklisted");
                 throw new AuthenticationException("Token inválido o revocado");
             }
 
-            // Validar el refresh token
-            if (!tokenProvider.validateToken(refreshToken)) {
-                logger.warn("Invalid refresh token");
-                throw new AuthenticationException("Token inválido");
-            }
-
             // Verificar que sea un refresh token
-            if (!tokenProvider.isRefreshToken(refreshToken)) {
+            if (!verifiedToken.isRefreshToken()) {
                 logger.warn("Token is not a refresh token");
                 throw new AuthenticationException("Token no es un refresh token");
             }
 
             // Extraer username del token
-            String username = tokenProvider.getUsernameFromJWT(refreshToken);
+            String username = verifiedToken.getSubject();
 
             // Buscar usuario
             User user = userRepository.findByEmail(username)
                     .orElseThrow(() -> new UsernameNotFoundException("Usuario no encontrado"));
 
-            // Verificar que el usuario tenga sesiones activas
-            if (!sessionManagementService.hasActiveSessions(username)) {
+            // Verificar que la sesión del token siga activa (tokens sin sid: cualquier sesión del usuario)
+            String sessionId = verifiedToken.getSessionId();
+            boolean sessionActive = sessionId != null
+                    ? sessionManagementService.isSessionActive(username, sessionId)
+                    : sessionManagementService.hasActiveSessions(username);
+            if (!sessionActive) {
                 logger.warn("User has no active sessions");
                 throw new AuthenticationException("No hay sesiones activas");
             }
 
-            // Generar nuevos tokens con claims completos
-            String newAccessToken = tokenProvider.generateTokenFromUser(user);
-            String newRefreshToken = tokenProvider.generateRefreshTokenFromUser(user);
+            // Generar nuevos tokens con claims completos, conservando la sesión
+            String newAccessToken = tokenProvider.generateTokenFromUser(user, sessionId);
+            String newRefreshToken = tokenProvider.generateRefreshTokenFromUser(user, sessionId);
 
             // Invalidar el refresh token anterior
-            tokenBlacklistService.blacklistToken(refreshToken, tokenProvider.getExpirationDateFromJWT(refreshToken));
+            tokenBlacklistService.blacklistToken(verifiedToken);
 
             UserInfo userInfo = new UserInfo(user);
 
@@ -160,23 +184,30 @@ public class AuthenticationService {
     }
 
     public LogoutResponse logout(String token) {
+        // Validar el token
+        VerifiedToken verifiedToken = tokenProvider.parseVerifiedToken(token);
+        if (verifiedToken == null) {
+            logger.warn("Invalid token for logout");
+            return new LogoutResponse(false, "Token inválido");
+        }
+        return logout(verifiedToken);
+    }
+
+    public LogoutResponse logout(VerifiedToken verifiedToken) {
         try {
             logger.info("Attempting logout");
 
-            // Validar el token
-            if (!tokenProvider.validateToken(token)) {
-                logger.warn("Invalid token for logout");
-                return new LogoutResponse(false, "Token inválido");
-            }
-
             // Extraer username
-            String username = tokenProvider.getUsernameFromJWT(token);
+            String username = verifiedToken.getSubject();
 
             // Agregar token a la blacklist
-            tokenBlacklistService.blacklistToken(token, tokenProvider.getExpirationDateFromJWT(token));
+            tokenBlacklistService.blacklistToken(verifiedToken);
 
-            // Invalidar todas las sesiones del usuario
-            long sessionsInvalidated = sessionManagementService.invalidateAllUserSessions(username);
+            // Cerrar solo la sesión del token; los tokens sin sid invalidan todas las sesiones del usuario
+            String sessionId = verifiedToken.getSessionId();
+            long sessionsInvalidated = sessionId != null
+                    ? (sessionManagementService.removeSession(username, sessionId) ? 1 : 0)
+                    : sessionManagementService.invalidateAllUserSessions(username);
 
             // Limpiar el SecurityContext
             SecurityContextHolder.clearContext();
@@ -195,7 +226,12 @@ public class AuthenticationService {
         try {
             logger.info("Attempting logout from all devices for user: {}", username);
 
-            // Invalidar todas las sesiones del usuario
+            // Invalidar todos los tokens ya emitidos con una sola escritura
+            User user = userRepository.findByEmail(username)
+                    .orElseThrow(() -> new UsernameNotFoundException("Usuario no encontrado"));
+            tokenEpochService.revokeAllTokens(user.getId());
+
+            // Cerrar todas las sesiones del usuario (para cerrar solo la actual se usa logout)
             long sessionsInvalidated = sessionManagementService.invalidateAllUserSessions(username);
 
             logger.info("Logout from all devices successful for user: {}, sessions invalidated: {}", username, sessionsInvalidated);
@@ -207,4 +243,4 @@ public class AuthenticationService {
             return new LogoutResponse(false, "Error durante el logout");
         }
     }
-}
\ No newline at end of file
+}
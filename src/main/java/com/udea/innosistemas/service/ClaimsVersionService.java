@@ -0,0 +1,129 @@
+package com.udea.innosistemas.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+
+/**
+ * Servicio que mantiene una versión de claims por usuario en Redis.
+ * Cada token de acceso lleva la versión vigente al emitirse (claim "ver"); al cambiar el rol,
+ * equipo o curso de un usuario se incrementa la versión y sus tokens anteriores dejan de
+ * aceptarse en el modo stateless. Una caché local de pocos segundos acota la consulta a Redis.
+ *
+ * Si la clave no existe (Redis vaciado o clave expulsada) la versión se considera desconocida y
+ * el filtro JWT carga el usuario desde la base de datos. Las versiones se inicializan con el
+ * instante actual en milisegundos, de modo que una clave recreada tras perderse nunca vuelve a
+ * coincidir con la versión de tokens emitidos antes.
+ *
+ * Limitación: la aplicación todavía no tiene un flujo que cambie el rol, equipo o curso de un
+ * usuario, por lo que nada invoca bumpVersion. Un cambio hecho directamente en la base de datos
+ * no invalida los tokens stateless ya emitidos hasta que expiran; por eso el modo stateless está
+ * desactivado por defecto. El flujo de actualización de usuarios que se añada debe llamar a
+ * bumpVersion tras guardar el cambio.
+ *
+ * Autor: Fábrica-Escuela de Software UdeA
+ * Versión: 1.2.0
+ */
+@Service
+public class ClaimsVersionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ClaimsVersionService.class);
+    private static final String CLAIMS_VERSION_PREFIX = "user:claims-version:";
+
+    @Autowired
+    private RedisTemplate<String, String> redisTemplate;
+
+    @Value("${innosistemas.auth.stateless.version-cache-seconds:5}")
+    private long versionCacheSeconds;
+
+    @Value("${innosistemas.auth.stateless.version-cache-max-size:50000}")
+    private long versionCacheMaxSize;
+
+    private Cache<Long, Long> localVersions;
+
+    @PostConstruct
+    void init() {
+        this.localVersions = Caffeine.newBuilder()
+                .maximumSize(versionCacheMaxSize)
+                .expireAfterWrite(Duration.ofSeconds(versionCacheSeconds))
+                .build();
+    }
+
+    /**
+     * Obtiene la versión de claims vigente para un usuario
+     *
+     * @param userId ID del usuario
+     * @return Versión vigente o null si Redis no la conoce (nunca inicializada o perdida)
+     * @throws org.springframework.dao.DataAccessException si Redis no está disponible
+     */
+    public Long getCurrentVersion(Long userId) {
+        Long cached = localVersions.getIfPresent(userId);
+        if (cached != null) {
+            return cached;
+        }
+
+        String value = redisTemplate.opsForValue().get(CLAIMS_VERSION_PREFIX + userId);
+        if (value == null) {
+            return null;
+        }
+        long version = Long.parseLong(value);
+        localVersions.put(userId, version);
+        return version;
+    }
+
+    /**
+     * Variante tolerante a fallos usada al emitir tokens: inicializa la versión si no existe
+     *
+     * @param userId ID del usuario
+     * @return Versión vigente o null si no se pudo consultar
+     */
+    public Long findCurrentVersion(Long userId) {
+        try {
+            Long version = getCurrentVersion(userId);
+            if (version != null) {
+                return version;
+            }
+            initializeVersion(userId);
+            return getCurrentVersion(userId);
+        } catch (Exception e) {
+            logger.error("Error reading claims version for user {}: {}", userId, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Incrementa la versión de claims de un usuario (cambio de rol, equipo o curso).
+     * Los tokens emitidos con la versión anterior quedan invalidados en modo stateless.
+     * Aún no tiene llamadores: ver la limitación descrita en la clase.
+     *
+     * @param userId ID del usuario
+     * @return Nueva versión
+     */
+    public long bumpVersion(Long userId) {
+        initializeVersion(userId);
+        Long version = redisTemplate.opsForValue().increment(CLAIMS_VERSION_PREFIX + userId);
+        localVersions.invalidate(userId);
+        logger.info("Claims version bumped for user {}: {}", userId, version);
+        return version != null ? version : 0L;
+    }
+
+    /**
+     * Crea la versión de un usuario que no la tiene. No se empieza en 0: una clave perdida y
+     * recreada debe tomar un valor que ningún token anterior pueda llevar.
+     */
+    private void initializeVersion(Long userId) {
+        Boolean created = redisTemplate.opsForValue()
+                .setIfAbsent(CLAIMS_VERSION_PREFIX + userId, String.valueOf(System.currentTimeMillis()));
+        if (Boolean.TRUE.equals(created)) {
+            logger.debug("Claims version initialized for user {}", userId);
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.udea.innosistemas.service;
+
+import com.udea.innosistemas.entity.User;
+import com.udea.innosistemas.repository.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.http.HttpServletRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.Optional;
+
+/**
+ * Identidad del usuario autenticado memorizada por petición.
+ * JwtAuthenticationFilter publica aquí el usuario que ya cargó al autenticar; las directivas
+ * @requiresTeam y @requiresCourse y UserQueryService lo leen en lugar de volver a buscarlo
+ * por email (@auth solo consulta el SecurityContext y no necesita la entidad).
+ * En modo stateless el principal no es la entidad, así que la primera lectura consulta la base
+ * de datos una vez y el resultado se reutiliza durante el resto de la petición.
+ *
+ * Autor: Fábrica-Escuela de Software UdeA
+ * Versión: 1.0.0
+ */
+@Component
+public class CurrentUserProvider {
+
+    private static final Logger logger = LoggerFactory.getLogger(CurrentUserProvider.class);
+    public static final String REQUEST_ATTRIBUTE = CurrentUserProvider.class.getName();
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+
+    private Counter lookups;
+
+    @PostConstruct
+    void init() {
+        if (meterRegistry != null) {
+            lookups = Counter.builder("users.identity.lookups")
+                    .description("Identity lookups not served by the user loaded during authentication")
+                    .register(meterRegistry);
+        }
+    }
+
+    /**
+     * Publica el usuario cargado durante la autenticación para el resto de la petición
+     *
+     * @param request Petición HTTP actual
+     * @param user Usuario autenticado
+     */
+    public void remember(HttpServletRequest request, User user) {
+        request.setAttribute(REQUEST_ATTRIBUTE, user);
+    }
+
+    /**
+     * Obtiene el usuario autenticado de la petición actual, consultando la base de datos
+     * como máximo una vez por petición
+     *
+     * @return Usuario autenticado o vacío si la petición es anónima o el usuario no existe
+     */
+    public Optional<User> getCurrentUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated()
+                || "anonymousUser".equals(authentication.getName())) {
+            return Optional.empty();
+        }
+        String username = authentication.getName();
+
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        User remembered = attributes != null
+                ? (User) attributes.getAttribute(REQUEST_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST)
+                : null;
+        if (remembered != null && username.equals(remembered.getEmail())) {
+            return Optional.of(remembered);
+        }
+
+        // El filtro JWT ya cargó la entidad como principal (modo no stateless)
+        if (authentication.getPrincipal() instanceof User user) {
+            return Optional.of(user);
+        }
+
+        if (lookups != null) {
+            lookups.increment();
+        }
+        logger.debug("Loading identity of {} from database", username);
+        Optional<User> user = userRepository.findByEmail(username);
+        if (attributes != null) {
+            user.ifPresent(u -> attributes.setAttribute(REQUEST_ATTRIBUTE, u, RequestAttributes.SCOPE_REQUEST));
+        }
+        return user;
+    }
+}
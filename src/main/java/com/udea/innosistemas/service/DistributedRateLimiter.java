@@ -0,0 +1,211 @@
+package com.udea.innosistemas.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Rate limiting compartido por todos los nodos mediante un token bucket en Redis.
+ * El estado de cada bucket vive en Redis y se actualiza con un script Lua atómico
+ * (scripts/ratelimit-lease.lua), de modo que N réplicas aplican un único límite en lugar de N.
+ *
+ * Para no consultar Redis en cada petición, cada nodo toma prestado un lote pequeño de tokens
+ * (lease) y lo consume localmente durante un tiempo corto. Solo se pide un lote completo cuando la
+ * clave agotó su lease antes de que expirara (tráfico sostenido); en otro caso se pide exactamente
+ * lo que necesita la petición, de modo que un cliente lento no paga tokens que no consume. Los
+ * tokens no usados de un lease expirado se devuelven al bucket en la siguiente llamada a Redis.
+ * Tras un rechazo, la clave no vuelve a consultar Redis hasta que haya tokens disponibles.
+ * La sobreadmisión entre nodos queda acotada por el tamaño del lease.
+ *
+ * Autor: Fábrica-Escuela de Software UdeA
+ * Versión: 1.1.0
+ */
+@Component
+public class DistributedRateLimiter {
+
+    private static final Logger logger = LoggerFactory.getLogger(DistributedRateLimiter.class);
+    static final String BUCKET_PREFIX = "ratelimit:bucket:";
+
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private static final RedisScript<List<Long>> LEASE_SCRIPT =
+            (RedisScript) RedisScript.of(new ClassPathResource("scripts/ratelimit-lease.lua"), List.class);
+
+    @Autowired
+    private RedisTemplate<String, String> redisTemplate;
+
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+
+    @Value("${innosistemas.ratelimit.distributed.lease-size:5}")
+    private long leaseSize;
+
+    @Value("${innosistemas.ratelimit.distributed.lease-ttl-ms:1000}")
+    private long leaseTtlMs;
+
+    @Value("${innosistemas.ratelimit.store.max-buckets:100000}")
+    private long maxLeases;
+
+    private Cache<String, TokenLease> leases;
+
+    private Counter requests;
+    private Counter redisCalls;
+
+    @PostConstruct
+    void init() {
+        this.leases = Caffeine.newBuilder()
+                .maximumSize(maxLeases)
+                .expireAfterAccess(Duration.ofMillis(leaseTtlMs * 10))
+                .build();
+
+        if (meterRegistry != null) {
+            requests = Counter.builder("ratelimit.distributed.requests")
+                    .description("Requests checked against the distributed rate limit")
+                    .register(meterRegistry);
+            redisCalls = Counter.builder("ratelimit.distributed.redis.calls")
+                    .description("Token leases requested from Redis")
+                    .register(meterRegistry);
+        }
+        logger.info("Distributed rate limiter initialized (lease size: {}, lease TTL: {} ms)", leaseSize, leaseTtlMs);
+    }
+
+    /**
+     * Intenta consumir tokens del bucket compartido de una clave
+     *
+     * @param key Clave del bucket (ej: "user:ana@udea.edu.co", "auth:ip:10.0.0.1")
+     * @param tokens Tokens a consumir
+     * @param capacity Capacidad del bucket
+     * @param refillTokens Tokens repuestos por periodo
+     * @param refillPeriod Periodo de reposición
+     * @return Resultado con los datos para los headers de rate limiting
+     * @throws org.springframework.dao.DataAccessException si Redis no está disponible
+     */
+    public RateLimitProbe tryConsume(String key, long tokens, long capacity, long refillTokens, Duration refillPeriod) {
+        if (requests != null) {
+            requests.increment();
+        }
+        long refillPeriodMs = refillPeriod.toMillis();
+        TokenLease lease = leases.get(key, k -> new TokenLease());
+        synchronized (lease) {
+            long now = System.currentTimeMillis();
+            if (lease.tryConsumeLocally(tokens, now)) {
+                return lease.probe(true, capacity, refillTokens, refillPeriodMs, 0);
+            }
+            if (now < lease.deniedUntil) {
+                return lease.probe(false, capacity, refillTokens, refillPeriodMs, lease.deniedUntil - now);
+            }
+
+            // Conservar lo que quede del lease vigente y pedir solo lo que falta. Un lease agotado
+            // antes de expirar indica tráfico sostenido: solo entonces se pide un lote completo
+            boolean active = now < lease.expiresAt;
+            long carried = active ? lease.remaining : 0;
+            long refund = active ? 0 : lease.remaining;
+            long needed = tokens - carried;
+            long desired = active ? Math.min(capacity, Math.max(leaseSize, needed)) : needed;
+
+            List<Long> result = lease(key, capacity, refillTokens, refillPeriodMs, needed, desired, refund);
+            long granted = result.get(0);
+            lease.lastKnownRemaining = result.get(1);
+            if (refund > 0) {
+                // Los tokens del lease expirado ya volvieron al bucket compartido
+                lease.remaining = 0;
+            }
+            if (granted < needed) {
+                long retryAfterMs = result.get(2);
+                lease.deniedUntil = now + Math.min(retryAfterMs, leaseTtlMs);
+                return lease.probe(false, capacity, refillTokens, refillPeriodMs, retryAfterMs);
+            }
+            lease.remaining = carried + granted - tokens;
+            lease.expiresAt = now + leaseTtlMs;
+            return lease.probe(true, capacity, refillTokens, refillPeriodMs, 0);
+        }
+    }
+
+    /**
+     * Tokens disponibles según la última respuesta de Redis más los del lease local
+     *
+     * @param key Clave del bucket
+     * @return Tokens disponibles, o -1 si la clave no se ha consultado en este nodo
+     */
+    public long getAvailableTokens(String key) {
+        TokenLease lease = leases.getIfPresent(key);
+        if (lease == null) {
+            return -1;
+        }
+        synchronized (lease) {
+            long local = System.currentTimeMillis() < lease.expiresAt ? lease.remaining : 0;
+            return lease.lastKnownRemaining + local;
+        }
+    }
+
+    /**
+     * Descarta el lease local y el bucket compartido de una clave
+     *
+     * @param key Clave del bucket
+     */
+    public void reset(String key) {
+        leases.invalidate(key);
+        redisTemplate.delete(BUCKET_PREFIX + key);
+    }
+
+    /**
+     * Descarta los leases locales (los buckets en Redis expiran solos)
+     */
+    public void clearLeases() {
+        leases.invalidateAll();
+    }
+
+    private List<Long> lease(String key, long capacity, long refillTokens, long refillPeriodMs,
+                             long needed, long desired, long refund) {
+        if (redisCalls != null) {
+            redisCalls.increment();
+        }
+        List<Long> result = redisTemplate.execute(LEASE_SCRIPT, List.of(BUCKET_PREFIX + key),
+                String.valueOf(capacity), String.valueOf(refillTokens), String.valueOf(refillPeriodMs),
+                String.valueOf(needed), String.valueOf(desired), String.valueOf(refund));
+        if (result == null || result.size() < 3) {
+            throw new IllegalStateException("Unexpected rate limit lease result for key: " + key);
+        }
+        return result;
+    }
+
+    /**
+     * Tokens prestados por Redis a este nodo para una clave
+     */
+    private static final class TokenLease {
+
+        private long remaining;
+        private long expiresAt;
+        private long deniedUntil;
+        private long lastKnownRemaining;
+
+        boolean tryConsumeLocally(long tokens, long now) {
+            if (now < expiresAt && remaining >= tokens) {
+                remaining -= tokens;
+                return true;
+            }
+            return false;
+        }
+
+        RateLimitProbe probe(boolean allowed, long capacity, long refillTokens, long refillPeriodMs,
+                             long retryAfterMs) {
+            long available = Math.min(capacity, lastKnownRemaining + remaining);
+            long resetMs = (capacity - available) * refillPeriodMs / Math.max(1, refillTokens);
+            return new RateLimitProbe(allowed, capacity, available,
+                    RateLimitProbe.toSeconds(resetMs * 1_000_000L),
+                    RateLimitProbe.toSeconds(retryAfterMs * 1_000_000L));
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.udea.innosistemas.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+
+/**
+ * Almacén de Automatic Persisted Queries (APQ): asocia el hash SHA-256 de un documento GraphQL
+ * con su texto. Los documentos se comparten entre nodos en Redis (graphql:apq:&lt;hash&gt;, con TTL)
+ * y se mantienen en una caché local acotada para no consultar Redis en cada petición.
+ * El documento parseado y validado se reutiliza mediante PreparsedDocumentCache.
+ *
+ * Autor: Fábrica-Escuela de Software UdeA
+ * Versión: 1.0.0
+ */
+@Component
+public class PersistedQueryStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(PersistedQueryStore.class);
+    static final String APQ_PREFIX = "graphql:apq:";
+
+    @Autowired
+    private RedisTemplate<String, String> redisTemplate;
+
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+
+    @Value("${innosistemas.graphql.apq.local-max-entries:1000}")
+    private long localMaxEntries;
+
+    @Value("${innosistemas.graphql.apq.ttl-hours:24}")
+    private long ttlHours;
+
+    private Cache<String, String> local;
+
+    private Counter hits;
+    private Counter misses;
+    private Counter registrations;
+
+    @PostConstruct
+    void init() {
+        this.local = Caffeine.newBuilder()
+                .maximumSize(localMaxEntries)
+                .expireAfterAccess(Duration.ofHours(ttlHours))
+                .build();
+
+        if (meterRegistry != null) {
+            hits = Counter.builder("graphql.apq.requests").tag("result", "hit")
+                    .description("Persisted query lookups").register(meterRegistry);
+            misses = Counter.builder("graphql.apq.requests").tag("result", "miss")
+                    .description("Persisted query lookups").register(meterRegistry);
+            registrations = Counter.builder("graphql.apq.registrations")
+                    .description("Documents registered as persisted queries").register(meterRegistry);
+        }
+    }
+
+    /**
+     * Busca el documento asociado a un hash, primero en la caché local y luego en Redis
+     *
+     * @param hash Hash SHA-256 en hexadecimal
+     * @return Texto del documento o null si no está registrado
+     */
+    public String get(String hash) {
+        String query = local.getIfPresent(hash);
+        if (query == null) {
+            try {
+                query = redisTemplate.opsForValue().get(APQ_PREFIX + hash);
+                if (query != null) {
+                    local.put(hash, query);
+                }
+            } catch (Exception e) {
+                logger.warn("Persisted query store unavailable, lookup served locally: {}", e.getMessage());
+            }
+        }
+
+        Counter counter = query != null ? hits : misses;
+        if (counter != null) {
+            counter.increment();
+        }
+        return query;
+    }
+
+    /**
+     * Registra un documento bajo su hash. El llamador debe haber verificado el hash.
+     *
+     * @param hash Hash SHA-256 en hexadecimal
+     * @param query Texto del documento
+     */
+    public void put(String hash, String query) {
+        if (query.equals(local.getIfPresent(hash))) {
+            return;
+        }
+        local.put(hash, query);
+        try {
+            redisTemplate.opsForValue().set(APQ_PREFIX + hash, query, Duration.ofHours(ttlHours));
+        } catch (Exception e) {
+            logger.warn("Could not share persisted query {} through Redis: {}", hash, e.getMessage());
+        }
+        if (registrations != null) {
+            registrations.increment();
+        }
+        logger.debug("Registered persisted query {}", hash);
+    }
+
+    /**
+     * Calcula el hash APQ de un documento (SHA-256 del texto UTF-8 en hexadecimal)
+     *
+     * @param query Texto del documento
+     * @return Hash en hexadecimal en minúsculas
+     */
+    public static String sha256Hex(String query) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(query.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.udea.innosistemas.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import graphql.ExecutionInput;
+import graphql.execution.preparsed.PreparsedDocumentEntry;
+import graphql.execution.preparsed.PreparsedDocumentProvider;
+import graphql.language.Document;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * Caché de documentos GraphQL ya parseados y validados.
+ * Se registra en el GraphQlSource (GraphQLDirectivesConfig) para que un mismo texto de consulta,
+ * enviado completo o como persisted query (PersistedQueryFilter), no se vuelva a parsear ni
+ * validar en cada ejecución. La clave es el texto del documento, de modo que un hash no puede
+ * asociarse a un documento distinto; las variables no forman parte de la clave.
+ *
+ * La caché está acotada por peso (longitud total de los documentos almacenados, proporcional al
+ * tamaño del AST) y los documentos más largos que max-document-length no se almacenan, para que
+ * consultas únicas y enormes no desplacen a las operaciones frecuentes. Los documentos con errores
+ * de sintaxis o validación tampoco se almacenan.
+ *
+ * Autor: Fábrica-Escuela de Software UdeA
+ * Versión: 2.0.0
+ */
+@Component
+public class PreparsedDocumentCache implements PreparsedDocumentProvider {
+
+    private static final Logger logger = LoggerFactory.getLogger(PreparsedDocumentCache.class);
+
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+
+    @Value("${innosistemas.graphql.documents.enabled:true}")
+    private boolean enabled;
+
+    // Suma de longitudes (caracteres) de los documentos en caché
+    @Value("${innosistemas.graphql.documents.max-weight:2000000}")
+    private long maxWeight;
+
+    @Value("${innosistemas.graphql.documents.max-document-length:20000}")
+    private int maxDocumentLength;
+
+    private Cache<String, PreparsedDocumentEntry> documents;
+
+    @PostConstruct
+    void init() {
+        this.documents = Caffeine.newBuilder()
+                .maximumWeight(maxWeight)
+                .weigher((String query, PreparsedDocumentEntry entry) -> query.length())
+                .recordStats()
+                .build();
+
+        if (meterRegistry != null) {
+            CaffeineCacheMetrics.monitor(meterRegistry, documents, "graphql.documents");
+            Gauge.builder("graphql.documents.hit.ratio", documents, cache -> cache.stats().hitRate())
+                    .description("Share of GraphQL executions that reused a parsed and validated document")
+                    .register(meterRegistry);
+        }
+        logger.info("GraphQL document cache initialized (max weight: {} chars, max document length: {})",
+                maxWeight, maxDocumentLength);
+    }
+
+    @Override
+    public PreparsedDocumentEntry getDocument(ExecutionInput executionInput,
+                                              Function<ExecutionInput, PreparsedDocumentEntry> parseAndValidateFunction) {
+        String query = executionInput.getQuery();
+        if (!enabled || query == null || query.length() > maxDocumentLength) {
+            return parseAndValidateFunction.apply(executionInput);
+        }
+
+        PreparsedDocumentEntry entry = documents.getIfPresent(query);
+        if (entry == null) {
+            entry = parseAndValidateFunction.apply(executionInput);
+            if (!entry.hasErrors()) {
+                documents.put(query, entry);
+            }
+        }
+        return entry;
+    }
+
+    @Override
+    public CompletableFuture<PreparsedDocumentEntry> getDocumentAsync(ExecutionInput executionInput,
+                                                                      Function<ExecutionInput, PreparsedDocumentEntry> parseAndValidateFunction) {
+        return CompletableFuture.completedFuture(getDocument(executionInput, parseAndValidateFunction));
+    }
+
+    /**
+     * Documento ya parseado y validado de una consulta, sin parsearlo si no está en caché
+     *
+     * @param query Texto de la consulta
+     * @return Documento o null si la consulta no está en caché
+     */
+    public Document getIfPresent(String query) {
+        // asMap().get no registra la consulta en las estadísticas de aciertos de la ejecución
+        PreparsedDocumentEntry entry = documents.asMap().get(query);
+        return entry != null ? entry.getDocument() : null;
+    }
+
+    /**
+     * Descarta todos los documentos (ej: tras recargar el esquema)
+     */
+    public void clear() {
+        documents.invalidateAll();
+    }
+}
@@ -0,0 +1,79 @@
+package com.udea.innosistemas.service;
+
+/**
+ * Resultado de consumir tokens de un bucket en una sola operación: si se permitió la petición
+ * y los datos para los headers X-RateLimit-Limit, X-RateLimit-Remaining, X-RateLimit-Reset y
+ * Retry-After, sin volver a consultar el bucket.
+ *
+ * Autor: Fábrica-Escuela de Software UdeA
+ * Versión: 1.0.1
+ */
+public final class RateLimitProbe {
+
+    private static final RateLimitProbe UNLIMITED = new RateLimitProbe(true, -1, -1, 0, 0);
+
+    private final boolean allowed;
+    private final long limit;
+    private final long remaining;
+    private final long resetSeconds;
+    private final long retryAfterSeconds;
+
+    public RateLimitProbe(boolean allowed, long limit, long remaining, long resetSeconds, long retryAfterSeconds) {
+        this.allowed = allowed;
+        this.limit = limit;
+        this.remaining = remaining;
+        this.resetSeconds = resetSeconds;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    /**
+     * Petición permitida sin límite aplicable (rate limiting deshabilitado o no disponible)
+     */
+    public static RateLimitProbe unlimited() {
+        return UNLIMITED;
+    }
+
+    public boolean isAllowed() {
+        return allowed;
+    }
+
+    /**
+     * Indica si hay límite que informar en los headers
+     */
+    public boolean isLimited() {
+        return limit >= 0;
+    }
+
+    public long getLimit() {
+        return limit;
+    }
+
+    public long getRemaining() {
+        return remaining;
+    }
+
+    /**
+     * Segundos hasta que el bucket vuelve a estar lleno
+     */
+    public long getResetSeconds() {
+        return resetSeconds;
+    }
+
+    /**
+     * Segundos a esperar antes de reintentar (0 si se permitió)
+     */
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+
+    /**
+     * Convierte nanosegundos a segundos redondeando hacia arriba. Bucket4j devuelve Long.MAX_VALUE
+     * cuando la petición nunca puede satisfacerse, así que el redondeo satura en lugar de desbordar.
+     */
+    static long toSeconds(long nanos) {
+        if (nanos > Long.MAX_VALUE - 999_999_999L) {
+            return Long.MAX_VALUE / 1_000_000_000L;
+        }
+        return (nanos + 999_999_999L) / 1_000_000_000L;
+    }
+}
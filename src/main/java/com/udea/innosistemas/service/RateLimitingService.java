@@ -1,31 +1,77 @@
 package com.udea.innosistemas.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.udea.innosistemas.config.properties.RateLimitPlansProperties;
+import com.udea.innosistemas.config.properties.RateLimitPlansProperties.Plan;
+import com.udea.innosistemas.entity.UserRole;
 import io.github.bucket4j.Bandwidth;
 import io.github.bucket4j.Bucket;
+import io.github.bucket4j.ConsumptionProbe;
 import io.github.bucket4j.Refill;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import java.time.Duration;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Servicio de Rate Limiting para controlar el número de peticiones por usuario.
  * Utiliza algoritmo Token Bucket con Bucket4j y caché local en memoria.
- * Soporta diferentes límites por tipo de usuario y endpoint.
+ * Soporta diferentes límites por tipo de usuario y endpoint: cada rol consume de su plan
+ * (RateLimitPlansProperties) y cada consulta devuelve en una sola operación los datos de los headers.
+ *
+ * Los buckets se guardan en una caché Caffeine acotada (admisión W-TinyLFU) con expiración por
+ * inactividad, de modo que un barrido de claves falsas (ej: X-Forwarded-For aleatorios) no hace
+ * crecer el heap sin límite. Los buckets llenos se liberan periódicamente: equivalen a uno nuevo.
+ *
+ * En modo DISTRIBUTED el límite se aplica a nivel de clúster con DistributedRateLimiter (Redis);
+ * si Redis falla se recurre a los buckets locales.
+ *
+ * Un bucket nunca puede entregar más tokens que su capacidad, así que una operación cuyo costo supera
+ * la capacidad del plan se cobra como la capacidad completa: requiere el bucket lleno y lo vacía, en
+ * lugar de rechazarse para siempre.
  *
  * Autor: Fábrica-Escuela de Software UdeA
- * Versión: 1.0.0
+ * Versión: 2.1.0
  */
 @Service
 public class RateLimitingService {
 
     private static final Logger logger = LoggerFactory.getLogger(RateLimitingService.class);
 
-    private final Map<String, Bucket> localCache = new ConcurrentHashMap<>();
+    static final String CACHE_NAME = "ratelimit.buckets";
+    // Estimación por entrada: clave, nodo de Caffeine y bucket local de Bucket4j con un solo límite
+    static final long ESTIMATED_BYTES_PER_BUCKET = 320;
+
+    /**
+     * Dónde se guarda el estado de los buckets
+     */
+    public enum RateLimitMode {
+        /** Buckets en memoria de cada nodo: con N réplicas el límite efectivo es N veces el configurado */
+        LOCAL,
+        /** Bucket compartido en Redis con leases locales de tokens */
+        DISTRIBUTED
+    }
+
+    private Cache<String, RateLimitBucket> localCache;
+
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+
+    @Autowired(required = false)
+    private DistributedRateLimiter distributedRateLimiter;
+
+    @Value("${innosistemas.ratelimit.mode:LOCAL}")
+    private RateLimitMode mode = RateLimitMode.LOCAL;
 
     @Value("${innosistemas.ratelimit.enabled:true}")
     private boolean rateLimitEnabled;
@@ -48,6 +94,49 @@ public class RateLimitingService {
     @Value("${innosistemas.ratelimit.auth.refill-period-minutes:1}")
     private long authRefillPeriodMinutes;
 
+    @Value("${innosistemas.ratelimit.store.max-buckets:100000}")
+    private long maxBuckets;
+
+    @Value("${innosistemas.ratelimit.store.expire-after-access-minutes:10}")
+    private long expireAfterAccessMinutes;
+
+    @Autowired(required = false)
+    private RateLimitPlansProperties plansProperties;
+
+    private Plan defaultPlan;
+    private Plan authPlan;
+
+    private Counter releasedBuckets;
+    private Counter distributedFallbacks;
+
+    @PostConstruct
+    void init() {
+        this.defaultPlan = new Plan(defaultCapacity, defaultRefillTokens, defaultRefillPeriodMinutes);
+        this.authPlan = new Plan(authCapacity, authRefillTokens, authRefillPeriodMinutes);
+        this.localCache = Caffeine.newBuilder()
+                .maximumSize(maxBuckets)
+                .expireAfterAccess(Duration.ofMinutes(expireAfterAccessMinutes))
+                .recordStats()
+                .build();
+
+        if (meterRegistry != null) {
+            CaffeineCacheMetrics.monitor(meterRegistry, localCache, CACHE_NAME);
+            Gauge.builder(CACHE_NAME + ".memory.estimate", localCache,
+                            cache -> cache.estimatedSize() * ESTIMATED_BYTES_PER_BUCKET)
+                    .baseUnit("bytes")
+                    .description("Estimated heap used by local rate limit buckets")
+                    .register(meterRegistry);
+            releasedBuckets = Counter.builder(CACHE_NAME + ".released")
+                    .description("Full rate limit buckets released from the local store")
+                    .register(meterRegistry);
+            distributedFallbacks = Counter.builder("ratelimit.distributed.fallbacks")
+                    .description("Rate limit checks resolved locally because Redis failed")
+                    .register(meterRegistry);
+        }
+        logger.info("Rate limit bucket store initialized (mode: {}, max buckets: {}, idle expiry: {} min)",
+                mode, maxBuckets, expireAfterAccessMinutes);
+    }
+
     /**
      * Verifica si el usuario puede realizar una petición (consume 1 token)
      *
@@ -66,91 +155,135 @@ public class RateLimitingService {
      * @return true si la petición es permitida, false si excede el límite
      */
     public boolean allowRequest(String key, long tokens) {
+        return tryConsumeAndReturnRemaining(key, tokens, null).isAllowed();
+    }
+
+    /**
+     * Consume tokens del plan del rol y devuelve en la misma operación el estado del bucket.
+     * Si los tokens pedidos superan la capacidad del plan se cobra la capacidad completa.
+     *
+     * @param key Clave única del usuario
+     * @param tokens Número de tokens a consumir
+     * @param role Rol del usuario autenticado, o null para el plan por defecto
+     * @return Resultado con los datos para los headers de rate limiting
+     */
+    public RateLimitProbe tryConsumeAndReturnRemaining(String key, long tokens, UserRole role) {
         if (!rateLimitEnabled) {
-            return true;
+            return RateLimitProbe.unlimited();
         }
 
         try {
-            Bucket bucket = resolveBucket(key);
-            boolean allowed = bucket.tryConsume(tokens);
-
-            if (!allowed) {
+            Plan plan = planFor(role);
+            if (tokens > plan.getCapacity()) {
+                logger.debug("Cost {} exceeds plan capacity {} for key {}, charging the full capacity",
+                        tokens, plan.getCapacity(), key);
+            }
+            RateLimitProbe probe = consume(key, Math.min(tokens, plan.getCapacity()), plan);
+            if (!probe.isAllowed()) {
                 logger.warn("Rate limit exceeded for key: {}", key);
             }
-
-            return allowed;
+            return probe;
         } catch (Exception e) {
             logger.error("Error checking rate limit for key {}: {}", key, e.getMessage());
             // En caso de error, permitir la petición por defecto (fail-open)
-            return true;
+            return RateLimitProbe.unlimited();
         }
     }
 
     /**
-     * Obtiene o crea un bucket para una clave específica
+     * Verifica límite para operaciones de autenticación (login, refresh token)
      *
-     * @param key Clave única
-     * @return Bucket configurado
+     * @param key Clave del usuario
+     * @return true si permitido
      */
-    private Bucket resolveBucket(String key) {
-        return localCache.computeIfAbsent(key, k -> createNewBucket());
+    public boolean allowAuthRequest(String key) {
+        return tryConsumeAuthAndReturnRemaining(key).isAllowed();
     }
 
     /**
-     * Crea un nuevo bucket con configuración por defecto
+     * Consume un token del bucket de autenticación y devuelve el estado del bucket
      *
-     * @return Bucket configurado
+     * @param key Clave del usuario
+     * @return Resultado con los datos para los headers de rate limiting
      */
-    private Bucket createNewBucket() {
-        Bandwidth limit = Bandwidth.classic(
-                defaultCapacity,
-                Refill.intervally(defaultRefillTokens, Duration.ofMinutes(defaultRefillPeriodMinutes))
-        );
-        return Bucket.builder()
-                .addLimit(limit)
-                .build();
+    public RateLimitProbe tryConsumeAuthAndReturnRemaining(String key) {
+        if (!rateLimitEnabled) {
+            return RateLimitProbe.unlimited();
+        }
+
+        try {
+            RateLimitProbe probe = consume("auth:" + key, 1, authPlan);
+            if (!probe.isAllowed()) {
+                logger.warn("Auth rate limit exceeded for key: {}", key);
+            }
+            return probe;
+        } catch (Exception e) {
+            logger.error("Error checking auth rate limit for key {}: {}", key, e.getMessage());
+            return RateLimitProbe.unlimited();
+        }
     }
 
-    /**
-     * Crea un bucket para endpoints de autenticación (límites más estrictos)
-     *
-     * @return Bucket configurado para auth
-     */
-    private Bucket createAuthBucket() {
-        Bandwidth limit = Bandwidth.classic(
-                authCapacity,
-                Refill.intervally(authRefillTokens, Duration.ofMinutes(authRefillPeriodMinutes))
-        );
-        return Bucket.builder()
-                .addLimit(limit)
-                .build();
+    private RateLimitProbe consume(String key, long tokens, Plan plan) {
+        if (isDistributed()) {
+            try {
+                return distributedRateLimiter.tryConsume(key, tokens, plan.getCapacity(), plan.getRefillTokens(),
+                        Duration.ofMinutes(plan.getRefillPeriodMinutes()));
+            } catch (Exception e) {
+                logger.error("Distributed rate limit unavailable for key {}, using local bucket: {}", key, e.getMessage());
+                if (distributedFallbacks != null) {
+                    distributedFallbacks.increment();
+                }
+            }
+        }
+
+        ConsumptionProbe probe = resolveBucket(key, plan).bucket.tryConsumeAndReturnRemaining(tokens);
+        return new RateLimitProbe(probe.isConsumed(), plan.getCapacity(), probe.getRemainingTokens(),
+                RateLimitProbe.toSeconds(probe.getNanosToWaitForReset()),
+                probe.isConsumed() ? 0 : RateLimitProbe.toSeconds(probe.getNanosToWaitForRefill()));
     }
 
     /**
-     * Verifica límite para operaciones de autenticación (login, refresh token)
+     * Obtiene o crea el bucket de una clave con el plan indicado.
+     * Si el plan cambió (ej: cambio de rol) el bucket se recrea con el nuevo plan.
      *
-     * @param key Clave del usuario
-     * @return true si permitido
+     * @param key Clave única
+     * @param plan Plan a aplicar
+     * @return Bucket configurado
      */
-    public boolean allowAuthRequest(String key) {
-        if (!rateLimitEnabled) {
-            return true;
+    private RateLimitBucket resolveBucket(String key, Plan plan) {
+        RateLimitBucket entry = localCache.get(key, k -> new RateLimitBucket(createBucket(plan), plan));
+        if (entry.plan != plan) {
+            entry = new RateLimitBucket(createBucket(plan), plan);
+            localCache.put(key, entry);
         }
+        return entry;
+    }
 
-        try {
-            String authKey = "auth:" + key;
-            Bucket bucket = localCache.computeIfAbsent(authKey, k -> createAuthBucket());
-            boolean allowed = bucket.tryConsume(1);
+    private Plan planFor(UserRole role) {
+        if (role == null || plansProperties == null) {
+            return defaultPlan;
+        }
+        return plansProperties.getPlans().getOrDefault(role, defaultPlan);
+    }
 
-            if (!allowed) {
-                logger.warn("Auth rate limit exceeded for key: {}", key);
-            }
+    private boolean isDistributed() {
+        return mode == RateLimitMode.DISTRIBUTED && distributedRateLimiter != null;
+    }
 
-            return allowed;
-        } catch (Exception e) {
-            logger.error("Error checking auth rate limit for key {}: {}", key, e.getMessage());
-            return true;
-        }
+    /**
+     * Crea un bucket con la capacidad y reposición del plan
+     *
+     * @param plan Plan de rate limiting
+     * @return Bucket configurado
+     */
+    private Bucket createBucket(Plan plan) {
+        Bandwidth limit = Bandwidth.classic(
+                plan.getCapacity(),
+                Refill.intervally(plan.getRefillTokens(), Duration.ofMinutes(plan.getRefillPeriodMinutes()))
+        );
+        return Bucket.builder()
+                .addLimit(limit)
+                .build();
     }
 
     /**
@@ -161,11 +294,17 @@ public class RateLimitingService {
      */
     public long getAvailableTokens(String key) {
         try {
-            Bucket bucket = localCache.get(key);
-            if (bucket == null) {
+            if (isDistributed()) {
+                long available = distributedRateLimiter.getAvailableTokens(key);
+                if (available >= 0) {
+                    return available;
+                }
+            }
+            RateLimitBucket entry = localCache.getIfPresent(key);
+            if (entry == null) {
                 return defaultCapacity;
             }
-            return bucket.getAvailableTokens();
+            return entry.bucket.getAvailableTokens();
         } catch (Exception e) {
             logger.error("Error getting available tokens for key {}: {}", key, e.getMessage());
             return 0;
@@ -179,7 +318,10 @@ public class RateLimitingService {
      */
     public void resetBucket(String key) {
         try {
-            localCache.remove(key);
+            localCache.invalidate(key);
+            if (isDistributed()) {
+                distributedRateLimiter.reset(key);
+            }
             logger.info("Rate limit bucket reset for key: {}", key);
         } catch (Exception e) {
             logger.error("Error resetting bucket for key {}: {}", key, e.getMessage());
@@ -191,7 +333,10 @@ public class RateLimitingService {
      */
     public void clearAllBuckets() {
         try {
-            localCache.clear();
+            localCache.invalidateAll();
+            if (isDistributed()) {
+                distributedRateLimiter.clearLeases();
+            }
             logger.info("All rate limit buckets cleared");
         } catch (Exception e) {
             logger.error("Error clearing all buckets: {}", e.getMessage());
@@ -206,19 +351,58 @@ public class RateLimitingService {
      */
     public String getBucketStats(String key) {
         try {
-            Bucket bucket = localCache.get(key);
-            if (bucket == null) {
+            RateLimitBucket entry = localCache.getIfPresent(key);
+            if (entry == null) {
                 return String.format("Key: %s - No data (bucket not created)", key);
             }
 
-            long available = bucket.getAvailableTokens();
-            return String.format("Key: %s - Available tokens: %d/%d", key, available, defaultCapacity);
+            long available = entry.bucket.getAvailableTokens();
+            return String.format("Key: %s - Available tokens: %d/%d", key, available, entry.plan.getCapacity());
         } catch (Exception e) {
             logger.error("Error getting bucket stats for key {}: {}", key, e.getMessage());
             return "Error retrieving stats";
         }
     }
 
+    /**
+     * Libera los buckets llenos: no guardan consumo pendiente y se recrean idénticos si la clave
+     * vuelve a aparecer. La eliminación es condicional y atómica por clave.
+     *
+     * @return Número de buckets liberados
+     */
+    @Scheduled(fixedDelayString = "${innosistemas.ratelimit.store.release-interval-ms:60000}")
+    public long releaseFullBuckets() {
+        long released = 0;
+        try {
+            for (String key : localCache.asMap().keySet()) {
+                boolean[] removed = new boolean[1];
+                localCache.asMap().computeIfPresent(key, (k, entry) -> {
+                    removed[0] = entry.isFull();
+                    return removed[0] ? null : entry;
+                });
+                if (removed[0]) {
+                    released++;
+                }
+            }
+            if (releasedBuckets != null) {
+                releasedBuckets.increment(released);
+            }
+            logger.debug("Released {} full rate limit buckets", released);
+        } catch (Exception e) {
+            logger.error("Error releasing full rate limit buckets: {}", e.getMessage());
+        }
+        return released;
+    }
+
+    /**
+     * Número aproximado de buckets en memoria
+     *
+     * @return Buckets almacenados
+     */
+    public long getBucketCount() {
+        return localCache.estimatedSize();
+    }
+
     /**
      * Verifica si el rate limiting está habilitado
      *
@@ -227,4 +411,22 @@ public class RateLimitingService {
     public boolean isRateLimitEnabled() {
         return rateLimitEnabled;
     }
+
+    /**
+     * Bucket con el plan con el que fue creado, para saber cuándo está lleno
+     */
+    private static final class RateLimitBucket {
+
+        private final Bucket bucket;
+        private final Plan plan;
+
+        RateLimitBucket(Bucket bucket, Plan plan) {
+            this.bucket = bucket;
+            this.plan = plan;
+        }
+
+        boolean isFull() {
+            return bucket.getAvailableTokens() >= plan.getCapacity();
+        }
+    }
 }
@@ -0,0 +1,247 @@
+package com.udea.innosistemas.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Recorrido no bloqueante de espacios de claves de Redis basado en SCAN.
+ * Sustituye a KEYS, que bloquea el event loop de Redis durante todo el recorrido: las claves se
+ * procesan en lotes de tamaño acotado, con una pausa configurable entre lotes para no competir
+ * con el tráfico de peticiones. Las purgas administrativas se ejecutan en segundo plano, borran
+ * con UNLINK (liberación de memoria asíncrona en Redis) y publican su progreso en Micrometer.
+ *
+ * SCAN puede devolver una clave más de una vez, por lo que los conteos son aproximados.
+ *
+ * Autor: Fábrica-Escuela de Software UdeA
+ * Versión: 1.0.0
+ */
+@Component
+public class RedisKeyScanner {
+
+    private static final Logger logger = LoggerFactory.getLogger(RedisKeyScanner.class);
+
+    @Autowired
+    private RedisTemplate<String, String> redisTemplate;
+
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+
+    @Value("${innosistemas.redis.scan.batch-size:500}")
+    private int batchSize;
+
+    @Value("${innosistemas.redis.scan.pause-ms:5}")
+    private long pauseMs;
+
+    private final Map<String, PurgeProgress> purges = new ConcurrentHashMap<>();
+
+    /**
+     * Recorre las claves que coinciden con el patrón entregándolas en lotes
+     *
+     * @param pattern Patrón glob de Redis (ej: "session:user:*")
+     * @param batchConsumer Procesa cada lote de claves
+     * @return Número de claves recorridas
+     */
+    public long forEachBatch(String pattern, Consumer<List<String>> batchConsumer) {
+        ScanOptions options = ScanOptions.scanOptions().match(pattern).count(batchSize).build();
+        long total = 0;
+        List<String> batch = new ArrayList<>(batchSize);
+
+        try (Cursor<String> cursor = redisTemplate.scan(options)) {
+            while (cursor.hasNext()) {
+                batch.add(cursor.next());
+                if (batch.size() >= batchSize) {
+                    batchConsumer.accept(batch);
+                    total += batch.size();
+                    batch = new ArrayList<>(batchSize);
+                    if (!pause()) {
+                        logger.warn("Redis scan interrupted for pattern: {}", pattern);
+                        return total;
+                    }
+                }
+            }
+        }
+
+        if (!batch.isEmpty()) {
+            batchConsumer.accept(batch);
+            total += batch.size();
+        }
+        return total;
+    }
+
+    /**
+     * Cuenta las claves que coinciden con el patrón sin bloquear Redis
+     *
+     * @param pattern Patrón glob de Redis
+     * @return Número aproximado de claves
+     */
+    public long count(String pattern) {
+        return forEachBatch(pattern, batch -> { });
+    }
+
+    /**
+     * Ejecuta en un único pipeline una operación por cada clave del lote
+     *
+     * @param keys Lote de claves
+     * @param operation Operación a encolar para cada clave
+     * @return Resultados en el mismo orden que las claves
+     */
+    public List<Object> pipelined(List<String> keys, BiConsumer<RedisOperations<String, String>, String> operation) {
+        return redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(RedisOperations<K, V> operations) {
+                RedisOperations<String, String> stringOperations = (RedisOperations<String, String>) operations;
+                for (String key : keys) {
+                    operation.accept(stringOperations, key);
+                }
+                return null;
+            }
+        });
+    }
+
+    /**
+     * Elimina en segundo plano todas las claves que coinciden con los patrones
+     *
+     * @param job Nombre de la purga (etiqueta de métricas y consulta de progreso)
+     * @param patterns Patrones glob de Redis
+     * @return Número de claves eliminadas al terminar
+     */
+    @Async
+    public CompletableFuture<Long> purge(String job, String... patterns) {
+        PurgeProgress progress = new PurgeProgress(job);
+        purges.put(job, progress);
+        Counter counter = null;
+        if (meterRegistry != null) {
+            counter = Counter.builder("redis.purge.keys.deleted").tag("job", job)
+                    .description("Keys removed by background Redis purges")
+                    .register(meterRegistry);
+            Gauge.builder("redis.purge.keys.scanned", purges, running -> scannedKeys(running.get(job)))
+                    .tag("job", job)
+                    .description("Keys scanned by the latest Redis purge")
+                    .register(meterRegistry);
+        }
+        Counter deletedCounter = counter;
+
+        logger.info("Redis purge '{}' started for patterns: {}", job, (Object) patterns);
+        try {
+            for (String pattern : patterns) {
+                forEachBatch(pattern, batch -> {
+                    Long unlinked = redisTemplate.unlink(batch);
+                    long count = unlinked != null ? unlinked : 0;
+                    progress.scanned.addAndGet(batch.size());
+                    progress.deleted.addAndGet(count);
+                    if (deletedCounter != null) {
+                        deletedCounter.increment(count);
+                    }
+                });
+            }
+            progress.finish(null);
+            logger.info("Redis purge '{}' finished: {} keys scanned, {} deleted",
+                    job, progress.getScanned(), progress.getDeleted());
+            return CompletableFuture.completedFuture(progress.getDeleted());
+        } catch (Exception e) {
+            progress.finish(e.getMessage());
+            logger.error("Redis purge '{}' failed: {}", job, e.getMessage(), e);
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Progreso de la última purga ejecutada con ese nombre
+     *
+     * @param job Nombre de la purga
+     * @return Progreso o null si nunca se ejecutó
+     */
+    public PurgeProgress getProgress(String job) {
+        return purges.get(job);
+    }
+
+    private static double scannedKeys(PurgeProgress progress) {
+        return progress != null ? progress.getScanned() : 0;
+    }
+
+    private boolean pause() {
+        if (pauseMs <= 0) {
+            return true;
+        }
+        try {
+            Thread.sleep(pauseMs);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Estado de una purga en segundo plano
+     */
+    public static class PurgeProgress {
+
+        private final String job;
+        private final Instant startedAt = Instant.now();
+        private final AtomicLong scanned = new AtomicLong();
+        private final AtomicLong deleted = new AtomicLong();
+        private volatile Instant finishedAt;
+        private volatile String error;
+
+        PurgeProgress(String job) {
+            this.job = job;
+        }
+
+        void finish(String error) {
+            this.error = error;
+            this.finishedAt = Instant.now();
+        }
+
+        public String getJob() {
+            return job;
+        }
+
+        public Instant getStartedAt() {
+            return startedAt;
+        }
+
+        public Instant getFinishedAt() {
+            return finishedAt;
+        }
+
+        public long getScanned() {
+            return scanned.get();
+        }
+
+        public long getDeleted() {
+            return deleted.get();
+        }
+
+        public String getError() {
+            return error;
+        }
+
+        public boolean isRunning() {
+            return finishedAt == null;
+        }
+    }
+}
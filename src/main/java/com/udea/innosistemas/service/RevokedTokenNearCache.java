@@ -0,0 +1,217 @@
+package com.udea.innosistemas.service;
+
+import com.udea.innosistemas.security.BloomFilter;
+import com.udea.innosistemas.security.TokenDigest;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.SubscriptionListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Near-cache local de tokens revocados basado en un filtro de Bloom.
+ * Permite a TokenBlacklistService descartar sin ir a Redis los tokens que con certeza no están
+ * revocados (la inmensa mayoría); solo un positivo del filtro requiere confirmar en Redis.
+ *
+ * Cada nodo se mantiene sincronizado publicando las revocaciones en un canal pub/sub de Redis y
+ * reconstruyendo el filtro periódicamente con SCAN (RedisKeyScanner), lo que además descarta
+ * entradas expiradas.
+ * Mientras el filtro no esté sincronizado todas las consultas se delegan en Redis.
+ *
+ * Un mensaje perdido dejaría al nodo respondiendo "no revocado" hasta la siguiente
+ * resincronización, por eso el filtro deja de usarse mientras el canal no está suscrito
+ * (pub/sub solo pierde mensajes al caer la conexión), cada (re)suscripción fuerza una
+ * resincronización, y si la publicación de una revocación falla el nodo se resincroniza.
+ *
+ * Autor: Fábrica-Escuela de Software UdeA
+ * Versión: 1.1.0
+ */
+@Component
+public class RevokedTokenNearCache implements MessageListener, SubscriptionListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(RevokedTokenNearCache.class);
+    static final String REVOCATION_CHANNEL = "token:revocations";
+
+    @Autowired
+    private RedisTemplate<String, String> redisTemplate;
+
+    @Autowired
+    private RedisKeyScanner redisKeyScanner;
+
+    @Autowired(required = false)
+    private RedisMessageListenerContainer listenerContainer;
+
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+
+    @Value("${innosistemas.auth.jwt.revocation.filter.enabled:true}")
+    private boolean enabled;
+
+    @Value("${innosistemas.auth.jwt.revocation.filter.expected-insertions:100000}")
+    private long expectedInsertions;
+
+    @Value("${innosistemas.auth.jwt.revocation.filter.false-positive-rate:0.001}")
+    private double falsePositiveRate;
+
+    private volatile BloomFilter current;
+    // Filtro en construcción durante una resincronización; recibe también las revocaciones en vuelo
+    private volatile BloomFilter pending;
+    private volatile boolean ready;
+    // Suscripción activa al canal de revocaciones (siempre true si no hay contenedor de listeners)
+    private volatile boolean subscribed;
+
+    private Counter negativeLookups;
+    private Counter positiveLookups;
+
+    @PostConstruct
+    void init() {
+        this.current = new BloomFilter(expectedInsertions, falsePositiveRate);
+
+        if (meterRegistry != null) {
+            negativeLookups = Counter.builder("jwt.revocation.filter.lookups")
+                    .tag("result", "negative")
+                    .description("Revocation checks answered locally without Redis")
+                    .register(meterRegistry);
+            positiveLookups = Counter.builder("jwt.revocation.filter.lookups")
+                    .tag("result", "positive")
+                    .description("Revocation checks that had to be confirmed in Redis")
+                    .register(meterRegistry);
+            Gauge.builder("jwt.revocation.filter.entries", this, cache -> cache.current.getInsertions())
+                    .description("Revoked token ids loaded in the local Bloom filter")
+                    .register(meterRegistry);
+        }
+
+        subscribed = listenerContainer == null;
+        if (enabled && listenerContainer != null) {
+            listenerContainer.addMessageListener(this, new ChannelTopic(REVOCATION_CHANNEL));
+        }
+        logger.info("Revoked token near-cache initialized (enabled: {}, expected insertions: {}, fpp: {})",
+                enabled, expectedInsertions, falsePositiveRate);
+    }
+
+    /**
+     * Indica si un token podría estar revocado
+     *
+     * @param revocationId jti o digest del token
+     * @return false si con certeza no está revocado; true si hay que confirmarlo en Redis
+     */
+    public boolean mightBeRevoked(String revocationId) {
+        if (!enabled || !ready || !subscribed) {
+            return true;
+        }
+        boolean positive = current.mightContain(revocationId);
+        Counter counter = positive ? positiveLookups : negativeLookups;
+        if (counter != null) {
+            counter.increment();
+        }
+        return positive;
+    }
+
+    /**
+     * Registra una revocación local y la propaga al resto de nodos
+     *
+     * @param revocationId jti o digest del token revocado
+     */
+    public void publishRevocation(String revocationId) {
+        add(revocationId);
+        if (!enabled) {
+            return;
+        }
+        try {
+            redisTemplate.convertAndSend(REVOCATION_CHANNEL, revocationId);
+        } catch (Exception e) {
+            // Redis no está respondiendo: dejar de confiar en el filtro hasta poder reconstruirlo
+            logger.error("Error publishing token revocation, resynchronizing: {}", e.getMessage());
+            ready = false;
+            resync();
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        add(new String(message.getBody(), StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public void onChannelSubscribed(byte[] channel, long count) {
+        // Las revocaciones publicadas mientras no había suscripción se recuperan con SCAN
+        logger.info("Subscribed to token revocation channel, resynchronizing near-cache");
+        ready = false;
+        subscribed = true;
+        CompletableFuture.runAsync(this::resync);
+    }
+
+    @Override
+    public void onChannelUnsubscribed(byte[] channel, long count) {
+        logger.warn("Unsubscribed from token revocation channel, delegating revocation checks to Redis");
+        subscribed = false;
+    }
+
+    /**
+     * Reconstruye el filtro a partir de las claves de revocación vigentes en Redis
+     */
+    @Scheduled(fixedDelayString = "${innosistemas.auth.jwt.revocation.filter.resync-interval-ms:60000}")
+    public synchronized void resync() {
+        if (!enabled) {
+            return;
+        }
+        long startTime = System.currentTimeMillis();
+        try {
+            // Dimensionar con holgura si las revocaciones superan lo esperado
+            long capacity = Math.max(expectedInsertions, current.getInsertions() * 2);
+            BloomFilter next = new BloomFilter(capacity, falsePositiveRate);
+            pending = next;
+
+            long loaded = loadKeys(next, TokenBlacklistService.REVOKED_PREFIX, false)
+                    + loadKeys(next, TokenBlacklistService.LEGACY_BLACKLIST_PREFIX, true);
+
+            current = next;
+            pending = null;
+            ready = true;
+            logger.debug("Revoked token near-cache resynchronized: {} entries in {} ms",
+                    loaded, System.currentTimeMillis() - startTime);
+        } catch (Exception e) {
+            // Sin una copia fiable, todas las consultas vuelven a resolverse en Redis
+            pending = null;
+            ready = false;
+            logger.error("Error resynchronizing revoked token near-cache: {}", e.getMessage());
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    private void add(String revocationId) {
+        // Leer pending antes que current: una revocación nunca se pierde durante el intercambio
+        BloomFilter building = pending;
+        current.put(revocationId);
+        if (building != null) {
+            building.put(revocationId);
+        }
+    }
+
+    private long loadKeys(BloomFilter filter, String prefix, boolean legacy) {
+        return redisKeyScanner.forEachBatch(prefix + "*", batch -> {
+            for (String key : batch) {
+                String suffix = key.substring(prefix.length());
+                // Las claves antiguas contienen el token completo, que no tenía jti: su id es el digest
+                filter.put(legacy ? TokenDigest.sha256(suffix) : suffix);
+            }
+        });
+    }
+}
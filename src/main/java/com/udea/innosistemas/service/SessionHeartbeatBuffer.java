@@ -0,0 +1,198 @@
+package com.udea.innosistemas.service;
+
+import com.udea.innosistemas.service.SessionManagementService.SessionActivity;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Buffer local de escritura diferida para la última actividad de las sesiones.
+ * JwtAuthenticationFilter registra aquí cada petición autenticada; las actualizaciones de una
+ * misma sesión se combinan (solo se conserva la más reciente) y se vuelcan a Redis por lotes cada
+ * pocos segundos, de modo que el seguimiento de actividad no añade una escritura por petición.
+ *
+ * El número de sesiones pendientes está acotado: al alcanzar el límite se descartan las
+ * actualizaciones de sesiones nuevas hasta el siguiente volcado. Al detener la aplicación se
+ * vuelca lo pendiente.
+ *
+ * Autor: Fábrica-Escuela de Software UdeA
+ * Versión: 1.0.0
+ */
+@Component
+public class SessionHeartbeatBuffer {
+
+    private static final Logger logger = LoggerFactory.getLogger(SessionHeartbeatBuffer.class);
+
+    @Autowired
+    private SessionManagementService sessionManagementService;
+
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+
+    @Value("${innosistemas.auth.session.heartbeat.enabled:true}")
+    private boolean enabled;
+
+    @Value("${innosistemas.auth.session.heartbeat.max-pending:50000}")
+    private int maxPending;
+
+    @Value("${innosistemas.auth.session.heartbeat.flush-batch-size:500}")
+    private int flushBatchSize;
+
+    private final Map<String, Heartbeat> pending = new ConcurrentHashMap<>();
+
+    private DistributionSummary flushSize;
+    private Timer flushLag;
+    private Counter dropped;
+
+    @PostConstruct
+    void init() {
+        if (meterRegistry != null) {
+            flushSize = DistributionSummary.builder("sessions.heartbeat.flush.size")
+                    .description("Session activity updates written per flush")
+                    .register(meterRegistry);
+            flushLag = Timer.builder("sessions.heartbeat.flush.lag")
+                    .description("Age of the oldest buffered activity update when flushed")
+                    .register(meterRegistry);
+            dropped = Counter.builder("sessions.heartbeat.dropped")
+                    .description("Activity updates discarded because the buffer was full")
+                    .register(meterRegistry);
+            Gauge.builder("sessions.heartbeat.pending", pending, Map::size)
+                    .description("Sessions with buffered activity updates")
+                    .register(meterRegistry);
+        }
+    }
+
+    /**
+     * Registra actividad de una sesión. No accede a Redis.
+     *
+     * @param sessionId ID de la sesión
+     * @param username Usuario propietario de la sesión
+     */
+    public void record(String sessionId, String username) {
+        if (!enabled) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        Heartbeat heartbeat = pending.get(sessionId);
+        if (heartbeat != null) {
+            heartbeat.touch(now);
+            return;
+        }
+        if (pending.size() >= maxPending) {
+            if (dropped != null) {
+                dropped.increment();
+            }
+            return;
+        }
+        pending.merge(sessionId, new Heartbeat(username, now), Heartbeat::mergeWith);
+    }
+
+    /**
+     * Vuelca a Redis las actualizaciones pendientes
+     *
+     * @return Número de sesiones volcadas
+     */
+    @Scheduled(fixedDelayString = "${innosistemas.auth.session.heartbeat.flush-interval-ms:5000}")
+    public int flush() {
+        if (pending.isEmpty()) {
+            return 0;
+        }
+
+        long now = System.currentTimeMillis();
+        long oldest = now;
+        int flushed = 0;
+        List<SessionActivity> batch = new ArrayList<>(Math.min(pending.size(), flushBatchSize));
+
+        // Retirar cada entrada antes de escribirla: la actividad posterior crea una entrada nueva
+        Iterator<Map.Entry<String, Heartbeat>> iterator = pending.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, Heartbeat> entry = iterator.next();
+            Heartbeat heartbeat = entry.getValue();
+            iterator.remove();
+            oldest = Math.min(oldest, heartbeat.bufferedAt);
+            batch.add(new SessionActivity(entry.getKey(), heartbeat.username, heartbeat.lastSeen));
+            if (batch.size() >= flushBatchSize) {
+                flushed += write(batch);
+                batch = new ArrayList<>(flushBatchSize);
+            }
+        }
+        flushed += write(batch);
+
+        if (flushSize != null) {
+            flushSize.record(flushed);
+            flushLag.record(Duration.ofMillis(now - oldest));
+        }
+        logger.debug("Flushed {} session heartbeats", flushed);
+        return flushed;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        logger.info("Flushing {} pending session heartbeats before shutdown", pending.size());
+        flush();
+    }
+
+    private int write(List<SessionActivity> batch) {
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        try {
+            sessionManagementService.touchSessions(batch);
+            return batch.size();
+        } catch (Exception e) {
+            logger.error("Error flushing {} session heartbeats: {}", batch.size(), e.getMessage());
+            // Reintentar en el siguiente volcado mientras haya espacio
+            for (SessionActivity activity : batch) {
+                if (pending.size() < maxPending) {
+                    pending.merge(activity.getSessionId(),
+                            new Heartbeat(activity.getUsername(), activity.getLastSeen()), Heartbeat::mergeWith);
+                } else if (dropped != null) {
+                    dropped.increment();
+                }
+            }
+            return 0;
+        }
+    }
+
+    private static final class Heartbeat {
+
+        private final String username;
+        private final long bufferedAt;
+        private volatile long lastSeen;
+
+        Heartbeat(String username, long lastSeen) {
+            this.username = username;
+            this.bufferedAt = lastSeen;
+            this.lastSeen = lastSeen;
+        }
+
+        void touch(long now) {
+            // Carreras entre hilos solo pueden perder unos milisegundos de precisión
+            if (now > lastSeen) {
+                lastSeen = now;
+            }
+        }
+
+        Heartbeat mergeWith(Heartbeat other) {
+            touch(other.lastSeen);
+            return this;
+        }
+    }
+}
@@ -1,13 +1,27 @@
 package com.udea.innosistemas.service;
 
+import com.udea.innosistemas.dto.SessionInfo;
+import com.udea.innosistemas.exception.AuthenticationException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
 
@@ -15,50 +29,154 @@ import java.util.concurrent.TimeUnit;
  * Servicio para gestionar sesiones activas de usuarios utilizando Redis.
  * Permite trackear sesiones concurrentes, limitar dispositivos simultáneos y gestionar sesiones activas.
  * Proporciona funcionalidades de auditoría y control de sesiones por usuario.
+ * Registro, eliminación y validación se ejecutan como scripts Lua atómicos (scripts/session-*.lua).
+ *
+ * Cada sesión es un hash session:meta:&lt;sessionId&gt; (emisión, última actividad, dispositivo e IP) y
+ * cada usuario tiene un índice ordenado session:idx:&lt;username&gt; por última actividad, de modo que
+ * validar o eliminar una sesión es O(1) y desalojar la más antigua es O(log n).
+ * Un índice global session:active-users (usuario -&gt; última actividad) se actualiza en el mismo
+ * script de escritura y responde "usuarios activos en los últimos N minutos" en O(log n); un barrido
+ * programado retira en lotes acotados a los usuarios cuya actividad superó el TTL.
+ *
+ * Los scripts requieren Redis standalone (el único modo que configura RedisConfig). Las claves de
+ * metadatos e índices de las sesiones que se desalojan, invalidan, barren o actualizan se descubren
+ * dentro del propio script y se construyen a partir de prefijos recibidos en ARGV, sin declararse
+ * en KEYS; además el índice global comparte script con claves de cada usuario. En Redis Cluster o
+ * con ACL restringidas por clave esos scripts fallarían: soportarlos exigiría hash tags por usuario
+ * y sacar el índice global a una operación aparte.
  *
  * Autor: Fábrica-Escuela de Software UdeA
- * Versión: 1.0.0
+ * Versión: 2.0.0
  */
 @Service
 public class SessionManagementService {
 
     private static final Logger logger = LoggerFactory.getLogger(SessionManagementService.class);
-    private static final String SESSION_PREFIX = "session:user:";
-    private static final String SESSION_COUNT_PREFIX = "session:count:";
+    private static final String SESSION_INDEX_PREFIX = "session:idx:";
+    private static final String SESSION_META_PREFIX = "session:meta:";
+    private static final String ACTIVE_USERS_KEY = "session:active-users";
+    // Formato anterior (SET "sessionId:timestamp" y contador), consultado durante la migración
+    private static final String LEGACY_SESSION_PREFIX = "session:user:";
+    private static final String LEGACY_SESSION_COUNT_PREFIX = "session:count:";
+
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private static final RedisScript<List<Long>> REGISTER_SCRIPT =
+            (RedisScript) RedisScript.of(new ClassPathResource("scripts/session-register.lua"), List.class);
+    private static final RedisScript<Long> REMOVE_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/session-remove.lua"), Long.class);
+    private static final RedisScript<Long> VALIDATE_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/session-validate.lua"), Long.class);
+    private static final RedisScript<Long> INVALIDATE_ALL_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/session-invalidate-all.lua"), Long.class);
+    private static final RedisScript<Long> SWEEP_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/session-sweep.lua"), Long.class);
+    private static final RedisScript<Long> TOUCH_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/session-touch.lua"), Long.class);
+
+    /**
+     * Comportamiento al registrar una sesión cuando el usuario ya tiene el máximo permitido
+     */
+    public enum OverflowPolicy {
+        /** Desaloja las sesiones más antiguas para dar cabida a la nueva */
+        EVICT_OLDEST,
+        /** Rechaza el nuevo inicio de sesión */
+        REJECT
+    }
 
     @Autowired
     private RedisTemplate<String, String> redisTemplate;
 
+    @Autowired
+    private RedisKeyScanner redisKeyScanner;
+
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+
     @Value("${innosistemas.auth.jwt.expiration}")
     private long jwtExpirationInMs;
 
+    // 0 = sin límite
+    @Value("${innosistemas.auth.session.max-concurrent:0}")
+    private int maxConcurrentSessions;
+
+    @Value("${innosistemas.auth.session.overflow-policy:EVICT_OLDEST}")
+    private OverflowPolicy overflowPolicy;
+
+    @Value("${innosistemas.auth.session.legacy-fallback:true}")
+    private boolean legacyFallback;
+
+    @Value("${innosistemas.auth.session.sweep.batch-size:200}")
+    private int sweepBatchSize;
+
+    // Tope de lotes por ejecución: el resto se retira en la siguiente
+    @Value("${innosistemas.auth.session.sweep.max-batches:50}")
+    private int sweepMaxBatches;
+
+    @Value("${innosistemas.auth.session.active-window-minutes:5}")
+    private long activeWindowMinutes;
+
+    @PostConstruct
+    void init() {
+        if (meterRegistry != null) {
+            Gauge.builder("sessions.active.users", this, service -> service.activeUsersSince(activeWindowMinutes))
+                    .tag("window", activeWindowMinutes + "m")
+                    .description("Users with session activity within the window")
+                    .register(meterRegistry);
+        }
+    }
+
     /**
      * Registra una nueva sesión para un usuario
      *
      * @param username Nombre de usuario
      * @param sessionId ID único de la sesión (puede ser el token o un UUID)
      * @return true si la sesión fue registrada exitosamente
+     * @throws AuthenticationException si se alcanzó el máximo de sesiones y la política es REJECT
      */
     public boolean registerSession(String username, String sessionId) {
-        try {
-            String sessionKey = SESSION_PREFIX + username;
-            String value = sessionId + ":" + Instant.now().toEpochMilli();
-
-            // Agregar sesión al conjunto de sesiones activas del usuario
-            redisTemplate.opsForSet().add(sessionKey, value);
-
-            // Establecer expiración en el conjunto
-            redisTemplate.expire(sessionKey, jwtExpirationInMs, TimeUnit.SECONDS);
-
-            // Incrementar contador de sesiones
-            incrementSessionCount(username);
+        return registerSession(username, sessionId, null, null);
+    }
 
-            logger.info("Session registered for user: {}, sessionId: {}", username, sessionId);
-            return true;
+    /**
+     * Registra una nueva sesión para un usuario con los datos del dispositivo.
+     * Los metadatos, el índice por actividad y el límite de sesiones concurrentes se aplican
+     * en un único script atómico (una sola ida y vuelta a Redis).
+     *
+     * @param username Nombre de usuario
+     * @param sessionId ID único de la sesión
+     * @param device Dispositivo o User-Agent del cliente (opcional)
+     * @param ip IP del cliente (opcional)
+     * @return true si la sesión fue registrada exitosamente
+     * @throws AuthenticationException si se alcanzó el máximo de sesiones y la política es REJECT
+     */
+    public boolean registerSession(String username, String sessionId, String device, String ip) {
+        List<Long> result;
+        try {
+            result = redisTemplate.execute(REGISTER_SCRIPT,
+                    List.of(SESSION_INDEX_PREFIX + username, SESSION_META_PREFIX + sessionId, ACTIVE_USERS_KEY),
+                    sessionId, String.valueOf(Instant.now().toEpochMilli()), String.valueOf(jwtExpirationInMs),
+                    String.valueOf(maxConcurrentSessions), overflowPolicy.name(),
+                    username, device != null ? device : "", ip != null ? ip : "", SESSION_META_PREFIX);
         } catch (Exception e) {
             logger.error("Error registering session for user {}: {}", username, e.getMessage(), e);
             return false;
         }
+
+        if (result == null || result.isEmpty()) {
+            logger.error("Unexpected session registration result for user {}", username);
+            return false;
+        }
+        if (result.get(0) < 0) {
+            logger.warn("Session rejected for user {}: maximum of {} concurrent sessions reached",
+                    username, maxConcurrentSessions);
+            throw new AuthenticationException("Se alcanzó el número máximo de sesiones activas");
+        }
+        if (result.size() > 1 && result.get(1) > 0) {
+            logger.info("Evicted {} oldest session(s) for user: {}", result.get(1), username);
+        }
+
+        logger.info("Session registered for user: {}, sessionId: {}", username, sessionId);
+        return true;
     }
 
     /**
@@ -70,16 +188,11 @@ public class SessionManagementService {
      */
     public boolean removeSession(String username, String sessionId) {
         try {
-            String sessionKey = SESSION_PREFIX + username;
-            Set<String> sessions = redisTemplate.opsForSet().members(sessionKey);
-
-            if (sessions != null) {
-                // Buscar y remover la sesión que coincida con el sessionId
-                sessions.stream()
-                        .filter(s -> s.startsWith(sessionId + ":"))
-                        .forEach(s -> redisTemplate.opsForSet().remove(sessionKey, s));
-
-                decrementSessionCount(username);
+            Long removed = redisTemplate.execute(REMOVE_SCRIPT,
+                    List.of(SESSION_INDEX_PREFIX + username, SESSION_META_PREFIX + sessionId,
+                            LEGACY_SESSION_PREFIX + username, ACTIVE_USERS_KEY),
+                    sessionId, legacyFlag(), username);
+            if (removed != null && removed > 0) {
                 logger.info("Session removed for user: {}, sessionId: {}", username, sessionId);
                 return true;
             }
@@ -98,13 +211,11 @@ public class SessionManagementService {
      */
     public long invalidateAllUserSessions(String username) {
         try {
-            String sessionKey = SESSION_PREFIX + username;
-            Set<String> sessions = redisTemplate.opsForSet().members(sessionKey);
-
-            if (sessions != null && !sessions.isEmpty()) {
-                long count = sessions.size();
-                redisTemplate.delete(sessionKey);
-                resetSessionCount(username);
+            Long count = redisTemplate.execute(INVALIDATE_ALL_SCRIPT,
+                    List.of(SESSION_INDEX_PREFIX + username, LEGACY_SESSION_PREFIX + username,
+                            LEGACY_SESSION_COUNT_PREFIX + username, ACTIVE_USERS_KEY),
+                    SESSION_META_PREFIX, username);
+            if (count != null && count > 0) {
                 logger.info("All sessions invalidated for user: {}, count: {}", username, count);
                 return count;
             }
@@ -123,9 +234,14 @@ public class SessionManagementService {
      */
     public long getActiveSessionCount(String username) {
         try {
-            String sessionKey = SESSION_PREFIX + username;
-            Long count = redisTemplate.opsForSet().size(sessionKey);
-            return count != null ? count : 0;
+            Long count = redisTemplate.opsForZSet().count(SESSION_INDEX_PREFIX + username,
+                    activeSince(), Double.POSITIVE_INFINITY);
+            long total = count != null ? count : 0;
+            if (legacyFallback) {
+                Long legacy = redisTemplate.opsForSet().size(LEGACY_SESSION_PREFIX + username);
+                total += legacy != null ? legacy : 0;
+            }
+            return total;
         } catch (Exception e) {
             logger.error("Error getting session count for user {}: {}", username, e.getMessage(), e);
             return 0;
@@ -146,12 +262,23 @@ public class SessionManagementService {
      * Obtiene todas las sesiones activas de un usuario
      *
      * @param username Nombre de usuario
-     * @return Conjunto de IDs de sesión
+     * @return Conjunto de IDs de sesión, de la más reciente a la más antigua
      */
     public Set<String> getUserSessions(String username) {
         try {
-            String sessionKey = SESSION_PREFIX + username;
-            return redisTemplate.opsForSet().members(sessionKey);
+            Set<String> sessionIds = new LinkedHashSet<>();
+            Set<String> indexed = redisTemplate.opsForZSet().reverseRangeByScore(
+                    SESSION_INDEX_PREFIX + username, activeSince(), Double.POSITIVE_INFINITY);
+            if (indexed != null) {
+                sessionIds.addAll(indexed);
+            }
+            if (legacyFallback) {
+                Set<String> legacy = redisTemplate.opsForSet().members(LEGACY_SESSION_PREFIX + username);
+                if (legacy != null) {
+                    legacy.forEach(value -> sessionIds.add(value.substring(0, value.lastIndexOf(':'))));
+                }
+            }
+            return sessionIds;
         } catch (Exception e) {
             logger.error("Error getting sessions for user {}: {}", username, e.getMessage(), e);
             return Set.of();
@@ -159,84 +286,133 @@ public class SessionManagementService {
     }
 
     /**
-     * Verifica si una sesión específica está activa
+     * Obtiene los metadatos de las sesiones activas de un usuario ordenadas por última actividad
      *
      * @param username Nombre de usuario
-     * @param sessionId ID de la sesión
-     * @return true si la sesión está activa
+     * @return Sesiones con emisión, última actividad, dispositivo e IP
      */
-    public boolean isSessionActive(String username, String sessionId) {
+    public List<SessionInfo> getUserSessionDetails(String username) {
         try {
-            String sessionKey = SESSION_PREFIX + username;
-            Set<String> sessions = redisTemplate.opsForSet().members(sessionKey);
+            Set<String> sessionIds = redisTemplate.opsForZSet().reverseRangeByScore(
+                    SESSION_INDEX_PREFIX + username, activeSince(), Double.POSITIVE_INFINITY);
+            if (sessionIds == null || sessionIds.isEmpty()) {
+                return List.of();
+            }
+
+            List<String> metaKeys = sessionIds.stream().map(id -> SESSION_META_PREFIX + id).toList();
+            List<Object> entries = redisKeyScanner.pipelined(metaKeys,
+                    (operations, key) -> operations.opsForHash().entries(key));
 
-            if (sessions != null) {
-                return sessions.stream().anyMatch(s -> s.startsWith(sessionId + ":"));
+            List<SessionInfo> sessions = new ArrayList<>();
+            int i = 0;
+            for (String sessionId : sessionIds) {
+                if (entries.get(i++) instanceof Map<?, ?> meta && !meta.isEmpty()) {
+                    sessions.add(new SessionInfo(sessionId,
+                            parseLong(meta.get("issuedAt")), parseLong(meta.get("lastSeen")),
+                            emptyToNull(meta.get("device")), emptyToNull(meta.get("ip"))));
+                }
             }
-            return false;
+            return sessions;
         } catch (Exception e) {
-            logger.error("Error checking session status: {}", e.getMessage(), e);
-            return false;
+            logger.error("Error getting session details for user {}: {}", username, e.getMessage(), e);
+            return List.of();
         }
     }
 
     /**
-     * Limpia sesiones expiradas (normalmente Redis lo hace automáticamente)
+     * Verifica si una sesión específica está activa (consulta O(1) a sus metadatos)
+     *
+     * @param username Nombre de usuario
+     * @param sessionId ID de la sesión
+     * @return true si la sesión está activa
      */
-    public void cleanupExpiredSessions() {
+    public boolean isSessionActive(String username, String sessionId) {
         try {
-            Set<String> keys = redisTemplate.keys(SESSION_PREFIX + "*");
-            if (keys != null) {
-                long cleaned = 0;
-                for (String key : keys) {
-                    Set<String> sessions = redisTemplate.opsForSet().members(key);
-                    if (sessions != null) {
-                        long now = Instant.now().toEpochMilli();
-                        for (String session : sessions) {
-                            String[] parts = session.split(":");
-                            if (parts.length >= 2) {
-                                long timestamp = Long.parseLong(parts[parts.length - 1]);
-                                if (now - timestamp > jwtExpirationInMs * 1000) {
-                                    redisTemplate.opsForSet().remove(key, session);
-                                    cleaned++;
-                                }
-                            }
-                        }
-                    }
-                }
-                logger.info("Cleaned up {} expired sessions", cleaned);
-            }
+            Long active = redisTemplate.execute(VALIDATE_SCRIPT,
+                    List.of(SESSION_META_PREFIX + sessionId, LEGACY_SESSION_PREFIX + username),
+                    sessionId, username, legacyFlag());
+            return active != null && active == 1;
         } catch (Exception e) {
-            logger.error("Error cleaning up expired sessions: {}", e.getMessage(), e);
+            logger.error("Error checking session status: {}", e.getMessage(), e);
+            return false;
         }
     }
 
-    // Métodos privados para gestión de contadores
-
-    private void incrementSessionCount(String username) {
-        try {
-            String countKey = SESSION_COUNT_PREFIX + username;
-            redisTemplate.opsForValue().increment(countKey);
-        } catch (Exception e) {
-            logger.error("Error incrementing session count: {}", e.getMessage());
+    /**
+     * Registra la última actividad de un lote de sesiones con un único script (una ida y vuelta).
+     * Usado por SessionHeartbeatBuffer para volcar las actualizaciones acumuladas.
+     *
+     * @param activities Última actividad por sesión
+     * @return Número de sesiones actualizadas; las sesiones ya cerradas se ignoran
+     */
+    public long touchSessions(Collection<SessionActivity> activities) {
+        if (activities.isEmpty()) {
+            return 0;
         }
+        List<String> args = new ArrayList<>(3 + activities.size() * 3);
+        args.add(SESSION_META_PREFIX);
+        args.add(SESSION_INDEX_PREFIX);
+        args.add(String.valueOf(jwtExpirationInMs));
+        for (SessionActivity activity : activities) {
+            args.add(activity.getSessionId());
+            args.add(activity.getUsername());
+            args.add(String.valueOf(activity.getLastSeen()));
+        }
+
+        Long touched = redisTemplate.execute(TOUCH_SCRIPT, List.of(ACTIVE_USERS_KEY), args.toArray());
+        return touched != null ? touched : 0;
     }
 
-    private void decrementSessionCount(String username) {
+    /**
+     * Retira del índice global los usuarios sin actividad durante el TTL, junto con sus índices de
+     * sesión. Trabaja en lotes acotados (un script atómico por lote) para no bloquear Redis; las
+     * sesiones expiradas de usuarios aún activos se podan al registrar y no requieren recorrido.
+     *
+     * @return Número de usuarios retirados
+     */
+    @Scheduled(fixedDelayString = "${innosistemas.auth.session.sweep.interval-ms:60000}")
+    public long cleanupExpiredSessions() {
         try {
-            String countKey = SESSION_COUNT_PREFIX + username;
-            redisTemplate.opsForValue().decrement(countKey);
+            String cutoff = String.valueOf((long) activeSince());
+            long removed = 0;
+            for (int batch = 0; batch < sweepMaxBatches; batch++) {
+                Long swept = redisTemplate.execute(SWEEP_SCRIPT, List.of(ACTIVE_USERS_KEY),
+                        cutoff, String.valueOf(sweepBatchSize), SESSION_INDEX_PREFIX);
+                long count = swept != null ? swept : 0;
+                removed += count;
+                if (count < sweepBatchSize) {
+                    break;
+                }
+            }
+
+            if (legacyFallback) {
+                cleanupLegacySessions();
+            }
+
+            if (removed > 0) {
+                logger.info("Swept {} inactive users from the session index", removed);
+            }
+            return removed;
         } catch (Exception e) {
-            logger.error("Error decrementing session count: {}", e.getMessage());
+            logger.error("Error cleaning up expired sessions: {}", e.getMessage(), e);
+            return 0;
         }
     }
 
-    private void resetSessionCount(String username) {
+    /**
+     * Cuenta los usuarios con actividad en los últimos minutos (ZCOUNT, O(log n))
+     *
+     * @param minutes Ventana en minutos
+     * @return Número de usuarios activos en la ventana
+     */
+    public long activeUsersSince(long minutes) {
         try {
-            String countKey = SESSION_COUNT_PREFIX + username;
-            redisTemplate.delete(countKey);
+            long since = Instant.now().toEpochMilli() - TimeUnit.MINUTES.toMillis(minutes);
+            Long count = redisTemplate.opsForZSet().count(ACTIVE_USERS_KEY, since, Double.POSITIVE_INFINITY);
+            return count != null ? count : 0;
         } catch (Exception e) {
-            logger.error("Error resetting session count: {}", e.getMessage());
+            logger.error("Error counting active users: {}", e.getMessage(), e);
+            return 0;
         }
     }
 
@@ -247,11 +423,102 @@ public class SessionManagementService {
      */
     public long getTotalActiveUsers() {
         try {
-            Set<String> keys = redisTemplate.keys(SESSION_PREFIX + "*");
-            return keys != null ? keys.size() : 0;
+            Long count = redisTemplate.opsForZSet().count(ACTIVE_USERS_KEY, activeSince(), Double.POSITIVE_INFINITY);
+            long total = count != null ? count : 0;
+            if (legacyFallback) {
+                total += redisKeyScanner.count(LEGACY_SESSION_PREFIX + "*");
+            }
+            return total;
         } catch (Exception e) {
             logger.error("Error getting total active users: {}", e.getMessage(), e);
             return 0;
         }
     }
+
+    // Sesiones del formato anterior: se limpian por el timestamp codificado en cada miembro
+    private void cleanupLegacySessions() {
+        long now = Instant.now().toEpochMilli();
+        redisKeyScanner.forEachBatch(LEGACY_SESSION_PREFIX + "*", keys -> {
+            List<Object> members = redisKeyScanner.pipelined(keys,
+                    (operations, key) -> operations.opsForSet().members(key));
+
+            Map<String, List<String>> expired = new HashMap<>();
+            for (int i = 0; i < keys.size(); i++) {
+                if (members.get(i) instanceof Set<?> sessions) {
+                    for (Object session : sessions) {
+                        if (isLegacyExpired(session.toString(), now)) {
+                            expired.computeIfAbsent(keys.get(i), key -> new ArrayList<>()).add(session.toString());
+                        }
+                    }
+                }
+            }
+
+            if (!expired.isEmpty()) {
+                redisKeyScanner.pipelined(new ArrayList<>(expired.keySet()),
+                        (operations, key) -> operations.opsForSet().remove(key, expired.get(key).toArray()));
+            }
+        });
+    }
+
+    private boolean isLegacyExpired(String session, long now) {
+        String[] parts = session.split(":");
+        if (parts.length < 2) {
+            return false;
+        }
+        try {
+            long timestamp = Long.parseLong(parts[parts.length - 1]);
+            return now - timestamp > jwtExpirationInMs * 1000;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    // Límite inferior de actividad: las sesiones más antiguas ya expiraron
+    private double activeSince() {
+        return Instant.now().toEpochMilli() - jwtExpirationInMs * 1000;
+    }
+
+    private String legacyFlag() {
+        return legacyFallback ? "1" : "0";
+    }
+
+    private static long parseLong(Object value) {
+        try {
+            return value != null ? Long.parseLong(value.toString()) : 0L;
+        } catch (NumberFormatException e) {
+            return 0L;
+        }
+    }
+
+    private static String emptyToNull(Object value) {
+        return value == null || value.toString().isEmpty() ? null : value.toString();
+    }
+
+    /**
+     * Última actividad observada de una sesión
+     */
+    public static final class SessionActivity {
+
+        private final String sessionId;
+        private final String username;
+        private final long lastSeen;
+
+        public SessionActivity(String sessionId, String username, long lastSeen) {
+            this.sessionId = sessionId;
+            this.username = username;
+            this.lastSeen = lastSeen;
+        }
+
+        public String getSessionId() {
+            return sessionId;
+        }
+
+        public String getUsername() {
+            return username;
+        }
+
+        public long getLastSeen() {
+            return lastSeen;
+        }
+    }
 }
@@ -1,12 +1,20 @@
 package com.udea.innosistemas.service;
 
+import com.udea.innosistemas.security.JwtTokenProvider;
+import com.udea.innosistemas.security.VerifiedToken;
+import com.udea.innosistemas.security.VerifiedTokenCache;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.stereotype.Service;
 
 import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -14,18 +22,45 @@ import java.util.concurrent.TimeUnit;
  * Permite invalidar tokens antes de su expiración natural (logout, cambio de contraseña, etc.).
  * Utiliza Redis para almacenamiento distribuido y expira automáticamente los tokens.
  *
+ * Las entradas se indexan por el jti del token (o su digest SHA-256 si no tiene jti) con la
+ * clave token:revoked:&lt;id&gt;. Las entradas del formato anterior (token:blacklist:&lt;token completo&gt;)
+ * se siguen consultando mientras innosistemas.auth.jwt.revocation.legacy-lookup esté activo.
+ * RevokedTokenNearCache evita la consulta a Redis para los tokens que con certeza no están revocados,
+ * y TokenEpochService invalida de una vez todos los tokens de un usuario.
+ *
  * Autor: Fábrica-Escuela de Software UdeA
- * Versión: 1.0.0
+ * Versión: 2.0.0
  */
 @Service
 public class TokenBlacklistService {
 
     private static final Logger logger = LoggerFactory.getLogger(TokenBlacklistService.class);
-    private static final String BLACKLIST_PREFIX = "token:blacklist:";
+    static final String REVOKED_PREFIX = "token:revoked:";
+    static final String LEGACY_BLACKLIST_PREFIX = "token:blacklist:";
+    private static final String BLACKLIST_PURGE_JOB = "token-blacklist";
 
     @Autowired
     private RedisTemplate<String, String> redisTemplate;
 
+    @Autowired
+    private VerifiedTokenCache verifiedTokenCache;
+
+    @Autowired
+    private JwtTokenProvider tokenProvider;
+
+    @Autowired
+    private RevokedTokenNearCache revokedTokenNearCache;
+
+    @Autowired
+    private TokenEpochService tokenEpochService;
+
+    @Autowired
+    private RedisKeyScanner redisKeyScanner;
+
+    // Las entradas antiguas expiran con el token, a lo sumo tras la vida de un refresh token
+    @Value("${innosistemas.auth.jwt.revocation.legacy-lookup:true}")
+    private boolean legacyLookupEnabled;
+
     /**
      * Agrega un token a la blacklist
      *
@@ -33,12 +68,31 @@ public class TokenBlacklistService {
      * @param expirationDate Fecha de expiración del token
      */
     public void blacklistToken(String token, Date expirationDate) {
+        VerifiedToken verifiedToken = tokenProvider.parseVerifiedToken(token);
+        if (verifiedToken == null) {
+            // Un token que no se puede verificar ya es rechazado por el filtro
+            logger.warn("Token is not valid, not adding to blacklist");
+            return;
+        }
+        blacklistToken(verifiedToken);
+    }
+
+    /**
+     * Agrega un token ya verificado a la blacklist hasta su expiración
+     *
+     * @param verifiedToken Token a invalidar
+     */
+    public void blacklistToken(VerifiedToken verifiedToken) {
+        // Un token revocado no debe seguir sirviéndose desde la caché de tokens verificados
+        verifiedTokenCache.invalidate(verifiedToken.getToken());
+
         try {
-            String key = BLACKLIST_PREFIX + token;
-            long ttl = expirationDate.getTime() - System.currentTimeMillis();
+            String key = REVOKED_PREFIX + verifiedToken.getRevocationId();
+            long ttl = verifiedToken.getExpiration().getTime() - System.currentTimeMillis();
 
             if (ttl > 0) {
                 redisTemplate.opsForValue().set(key, "revoked", ttl, TimeUnit.MILLISECONDS);
+                revokedTokenNearCache.publishRevocation(verifiedToken.getRevocationId());
                 logger.info("Token added to blacklist with TTL: {} ms", ttl);
             } else {
                 logger.warn("Token already expired, not adding to blacklist");
@@ -55,10 +109,37 @@ public class TokenBlacklistService {
      * @return true si el token está revocado, false en caso contrario
      */
     public boolean isTokenBlacklisted(String token) {
+        VerifiedToken verifiedToken = tokenProvider.parseVerifiedToken(token);
+        // Un token inválido no está revocado: su verificación ya lo rechaza
+        return verifiedToken != null && isTokenBlacklisted(verifiedToken);
+    }
+
+    /**
+     * Verifica si un token ya verificado está en la blacklist.
+     * Solo consulta Redis (una única llamada) si el near-cache local no puede descartarlo
+     *
+     * @param verifiedToken Token a verificar
+     * @return true si el token está revocado, false en caso contrario
+     */
+    public boolean isTokenBlacklisted(VerifiedToken verifiedToken) {
         try {
-            String key = BLACKLIST_PREFIX + token;
-            Boolean exists = redisTemplate.hasKey(key);
-            return Boolean.TRUE.equals(exists);
+            // Tokens emitidos antes de una revocación global del usuario (logout en todos los dispositivos)
+            if (tokenEpochService.isIssuedBeforeEpoch(verifiedToken)) {
+                return true;
+            }
+
+            String revocationId = verifiedToken.getRevocationId();
+            if (!revokedTokenNearCache.mightBeRevoked(revocationId)) {
+                return false;
+            }
+
+            String key = REVOKED_PREFIX + revocationId;
+            if (!legacyLookupEnabled) {
+                return Boolean.TRUE.equals(redisTemplate.hasKey(key));
+            }
+            Long existing = redisTemplate.countExistingKeys(
+                    List.of(key, LEGACY_BLACKLIST_PREFIX + verifiedToken.getToken()));
+            return existing != null && existing > 0;
         } catch (Exception e) {
             logger.error("Error checking token blacklist: {}", e.getMessage(), e);
             // En caso de error de Redis, rechazar el token por seguridad
@@ -73,8 +154,13 @@ public class TokenBlacklistService {
      */
     public void removeTokenFromBlacklist(String token) {
         try {
-            String key = BLACKLIST_PREFIX + token;
-            redisTemplate.delete(key);
+            Set<String> keys = new HashSet<>();
+            keys.add(LEGACY_BLACKLIST_PREFIX + token);
+            VerifiedToken verifiedToken = tokenProvider.parseVerifiedToken(token);
+            if (verifiedToken != null) {
+                keys.add(REVOKED_PREFIX + verifiedToken.getRevocationId());
+            }
+            redisTemplate.delete(keys);
             logger.info("Token removed from blacklist");
         } catch (Exception e) {
             logger.error("Error removing token from blacklist: {}", e.getMessage(), e);
@@ -82,17 +168,24 @@ public class TokenBlacklistService {
     }
 
     /**
-     * Limpia todos los tokens blacklisted (uso administrativo)
+     * Limpia todos los tokens blacklisted (uso administrativo).
+     * Se ejecuta en segundo plano con SCAN + UNLINK para no bloquear Redis.
+     *
+     * @return Número de entradas eliminadas al terminar la purga
      */
-    public void clearBlacklist() {
+    public CompletableFuture<Long> clearBlacklist() {
         try {
-            var keys = redisTemplate.keys(BLACKLIST_PREFIX + "*");
-            if (keys != null && !keys.isEmpty()) {
-                redisTemplate.delete(keys);
-                logger.info("Blacklist cleared: {} tokens removed", keys.size());
-            }
+            return redisKeyScanner.purge(BLACKLIST_PURGE_JOB, REVOKED_PREFIX + "*", LEGACY_BLACKLIST_PREFIX + "*")
+                    .whenComplete((removed, error) -> {
+                        if (error == null) {
+                            logger.info("Blacklist cleared: {} tokens removed", removed);
+                            // Descartar del filtro local las revocaciones eliminadas
+                            revokedTokenNearCache.resync();
+                        }
+                    });
         } catch (Exception e) {
             logger.error("Error clearing blacklist: {}", e.getMessage(), e);
+            return CompletableFuture.failedFuture(e);
         }
     }
 }
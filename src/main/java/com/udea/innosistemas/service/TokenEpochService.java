@@ -0,0 +1,149 @@
+package com.udea.innosistemas.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.udea.innosistemas.security.VerifiedToken;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Servicio de "época" de tokens por usuario: instante a partir del cual sus tokens son válidos.
+ * Revocar todos los tokens de un usuario (logout global) es una sola escritura en Redis, y la
+ * verificación compara el instante de emisión del token con la época en tiempo constante.
+ *
+ * La época se guarda en milisegundos y se compara con el claim iatMs que escribe JwtTokenProvider,
+ * de modo que un token emitido justo después de la revocación (por ejemplo, volver a iniciar sesión
+ * tras un logout global) sigue siendo válido aunque caiga en el mismo segundo. Los tokens sin iatMs
+ * usan iat truncado al segundo, lo que los invalida también si se emitieron en el mismo segundo.
+ * El valor se mantiene en una caché local de corta duración que se invalida en todos los nodos
+ * mediante pub/sub.
+ *
+ * Autor: Fábrica-Escuela de Software UdeA
+ * Versión: 1.1.0
+ */
+@Service
+public class TokenEpochService implements MessageListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenEpochService.class);
+    private static final String TOKENS_VALID_AFTER_PREFIX = "user:tokens-valid-after:";
+    static final String EPOCH_CHANNEL = "user:tokens-valid-after";
+    // Épocas anteriores a este valor se guardaron en segundos (1e11 ms es marzo de 1973)
+    private static final long LEGACY_SECONDS_THRESHOLD = 100_000_000_000L;
+
+    @Autowired
+    private RedisTemplate<String, String> redisTemplate;
+
+    @Autowired(required = false)
+    private RedisMessageListenerContainer listenerContainer;
+
+    // Ningún token vive más que un refresh token: pasado ese tiempo la época ya no invalida nada
+    @Value("${innosistemas.auth.jwt.refresh-expiration}")
+    private long refreshExpirationInSeconds;
+
+    @Value("${innosistemas.auth.jwt.revocation.epoch-cache-seconds:5}")
+    private long epochCacheSeconds;
+
+    @Value("${innosistemas.auth.jwt.revocation.epoch-cache-max-size:50000}")
+    private long epochCacheMaxSize;
+
+    private Cache<Long, Long> localEpochs;
+
+    @PostConstruct
+    void init() {
+        this.localEpochs = Caffeine.newBuilder()
+                .maximumSize(epochCacheMaxSize)
+                .expireAfterWrite(Duration.ofSeconds(epochCacheSeconds))
+                .build();
+
+        if (listenerContainer != null) {
+            listenerContainer.addMessageListener(this, new ChannelTopic(EPOCH_CHANNEL));
+        }
+    }
+
+    /**
+     * Invalida todos los tokens emitidos hasta ahora para un usuario
+     *
+     * @param userId ID del usuario
+     * @return Nueva época en milisegundos
+     */
+    public long revokeAllTokens(Long userId) {
+        long epoch = System.currentTimeMillis();
+        redisTemplate.opsForValue().set(TOKENS_VALID_AFTER_PREFIX + userId, String.valueOf(epoch),
+                refreshExpirationInSeconds, TimeUnit.SECONDS);
+        localEpochs.put(userId, epoch);
+
+        try {
+            redisTemplate.convertAndSend(EPOCH_CHANNEL, String.valueOf(userId));
+        } catch (Exception e) {
+            // Los demás nodos verán la nueva época al expirar su caché local
+            logger.error("Error publishing token epoch for user {}: {}", userId, e.getMessage());
+        }
+        logger.info("All tokens revoked for user {} (valid after: {})", userId, epoch);
+        return epoch;
+    }
+
+    /**
+     * Obtiene la época vigente de un usuario
+     *
+     * @param userId ID del usuario
+     * @return Época en milisegundos (0 si nunca se revocaron sus tokens)
+     * @throws org.springframework.dao.DataAccessException si Redis no está disponible
+     */
+    public long getEpoch(Long userId) {
+        Long cached = localEpochs.getIfPresent(userId);
+        if (cached != null) {
+            return cached;
+        }
+
+        String value = redisTemplate.opsForValue().get(TOKENS_VALID_AFTER_PREFIX + userId);
+        long epoch = value != null ? toMillis(Long.parseLong(value)) : 0L;
+        localEpochs.put(userId, epoch);
+        return epoch;
+    }
+
+    /**
+     * Verifica si un token fue emitido antes de la última revocación global de su usuario
+     *
+     * @param verifiedToken Token verificado
+     * @return true si el token quedó invalidado por la época del usuario
+     */
+    public boolean isIssuedBeforeEpoch(VerifiedToken verifiedToken) {
+        Long userId = verifiedToken.getUserId();
+        Long issuedAt = verifiedToken.getIssuedAtMillis();
+        if (userId == null || issuedAt == null) {
+            return false;
+        }
+        long epoch = getEpoch(userId);
+        return epoch > 0 && issuedAt <= epoch;
+    }
+
+    /**
+     * Convierte a milisegundos una época guardada en segundos antes de la versión 1.1.0,
+     * tomando el final de ese segundo para seguir invalidando los tokens emitidos en él
+     */
+    private static long toMillis(long epoch) {
+        return epoch < LEGACY_SECONDS_THRESHOLD ? TimeUnit.SECONDS.toMillis(epoch) + 999 : epoch;
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        try {
+            localEpochs.invalidate(Long.valueOf(new String(message.getBody(), StandardCharsets.UTF_8)));
+        } catch (NumberFormatException e) {
+            logger.warn("Ignoring malformed token epoch message");
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.udea.innosistemas.service;
+
+import com.udea.innosistemas.exception.InvalidCursorException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Cursores opacos de la paginación por keyset de usuarios.
+ * El cursor codifica en Base64 (URL-safe) el ID del último usuario de la página; la página
+ * siguiente continúa con "id > cursor ORDER BY id", sin OFFSET.
+ *
+ * Autor: Fábrica-Escuela de Software UdeA
+ * Versión: 1.0.0
+ */
+public final class UserCursor {
+
+    private static final String PREFIX = "user:";
+
+    private UserCursor() {
+    }
+
+    public static String encode(Long id) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((PREFIX + id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodifica un cursor
+     *
+     * @param cursor Cursor recibido en el argumento after (puede ser null)
+     * @return ID a partir del cual continuar, o null para la primera página
+     * @throws InvalidCursorException si el cursor no fue generado por esta API
+     */
+    public static Long decode(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            if (!value.startsWith(PREFIX)) {
+                throw new InvalidCursorException("Cursor inválido");
+            }
+            return Long.parseLong(value.substring(PREFIX.length()));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidCursorException("Cursor inválido", e);
+        }
+    }
+}
@@ -1,6 +1,11 @@
 package com.udea.innosistemas.service;
 
+import com.udea.innosistemas.dto.PageInfo;
+import com.udea.innosistemas.dto.Team;
 import com.udea.innosistemas.dto.TeamMember;
+import com.udea.innosistemas.dto.UserConnection;
+import com.udea.innosistemas.dto.UserEdge;
+import com.udea.innosistemas.dto.UserFilter;
 import com.udea.innosistemas.dto.UserInfo;
 import com.udea.innosistemas.dto.UserPermissions;
 import com.udea.innosistemas.entity.User;
@@ -10,21 +15,29 @@ import com.udea.innosistemas.repository.UserRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 /**
  * Servicio para gestionar queries de usuario, permisos y equipos.
  * Proporciona métodos para obtener información del usuario actual,
  * sus permisos y miembros de su equipo.
+ * El usuario actual se obtiene de CurrentUserProvider, memorizado por petición.
+ * Los listados de usuarios de cursos se paginan por keyset (id > cursor ORDER BY id LIMIT n)
+ * sobre el índice (course_id, id), con costo constante sin importar la profundidad de la página.
  *
  * Autor: Fábrica-Escuela de Software UdeA
- * Versión: 1.0.0
+ * Versión: 1.2.1
  */
 @Service
 public class UserQueryService {
@@ -34,6 +47,15 @@ public class UserQueryService {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private CurrentUserProvider currentUserProvider;
+
+    @Value("${innosistemas.graphql.pagination.default-page-size:20}")
+    private int defaultPageSize;
+
+    @Value("${innosistemas.graphql.pagination.max-page-size:100}")
+    private int maxPageSize;
+
     /**
      * Obtiene la información del usuario actualmente autenticado.
      *
@@ -49,7 +71,7 @@ public class UserQueryService {
                 throw new AuthenticationException("No hay usuario autenticado");
             }
 
-            User user = userRepository.findByEmail(username)
+            User user = currentUserProvider.getCurrentUser()
                     .orElseThrow(() -> new UsernameNotFoundException("Usuario no encontrado"));
 
             logger.info("Retrieved current user info for: {}", username);
@@ -79,7 +101,7 @@ public class UserQueryService {
                 throw new AuthenticationException("No hay usuario autenticado");
             }
 
-            User user = userRepository.findByEmail(username)
+            User user = currentUserProvider.getCurrentUser()
                     .orElseThrow(() -> new UsernameNotFoundException("Usuario no encontrado"));
 
             // Generar lista de permisos basados en el rol
@@ -119,7 +141,7 @@ public class UserQueryService {
                 throw new AuthenticationException("No hay usuario autenticado");
             }
 
-            User currentUser = userRepository.findByEmail(username)
+            User currentUser = currentUserProvider.getCurrentUser()
                     .orElseThrow(() -> new UsernameNotFoundException("Usuario no encontrado"));
 
             // Validar permisos: estudiantes solo pueden ver su propio equipo
@@ -155,6 +177,172 @@ public class UserQueryService {
         }
     }
 
+    /**
+     * Obtiene los equipos de varios cursos con una sola consulta.
+     * Los estudiantes solo reciben su propio equipo.
+     *
+     * @param courseIds IDs de los cursos
+     * @return Equipos por ID de curso (lista vacía si el curso no tiene equipos)
+     */
+    public Map<Long, List<Team>> getTeamsByCourseIds(Collection<Long> courseIds) {
+        Map<Long, List<Team>> teamsByCourse = new HashMap<>();
+        courseIds.forEach(courseId -> teamsByCourse.put(courseId, new ArrayList<>()));
+        if (courseIds.isEmpty()) {
+            return teamsByCourse;
+        }
+
+        User currentUser = currentUserProvider.getCurrentUser()
+                .orElseThrow(() -> new AuthenticationException("Usuario no encontrado"));
+        boolean ownTeamOnly = currentUser.getRole() == UserRole.STUDENT;
+
+        for (Object[] row : userRepository.findTeamIdsByCourseIdIn(courseIds)) {
+            Long courseId = (Long) row[0];
+            Long teamId = (Long) row[1];
+            if (ownTeamOnly && !teamId.equals(currentUser.getTeamId())) {
+                continue;
+            }
+            teamsByCourse.get(courseId).add(new Team(teamId));
+        }
+
+        logger.debug("Loaded teams for {} courses in one query", courseIds.size());
+        return teamsByCourse;
+    }
+
+    /**
+     * Obtiene los miembros de varios equipos con una sola consulta.
+     * El acceso a cada equipo se valida al resolver el equipo (@requiresTeam o getTeamsByCourseIds).
+     *
+     * @param teamIds IDs de los equipos
+     * @return Miembros por ID de equipo
+     */
+    public Map<Long, List<TeamMember>> getMembersByTeamIds(Collection<Long> teamIds) {
+        Map<Long, List<TeamMember>> membersByTeam = new HashMap<>();
+        teamIds.forEach(teamId -> membersByTeam.put(teamId, new ArrayList<>()));
+        if (teamIds.isEmpty()) {
+            return membersByTeam;
+        }
+
+        for (User user : userRepository.findByTeamIdIn(teamIds)) {
+            membersByTeam.get(user.getTeamId()).add(new TeamMember(user));
+        }
+
+        logger.debug("Loaded members for {} teams in one query", teamIds.size());
+        return membersByTeam;
+    }
+
+    /**
+     * Obtiene los miembros de varios cursos con una sola consulta.
+     * Los estudiantes solo reciben los miembros de su propio equipo.
+     *
+     * @param courseIds IDs de los cursos
+     * @return Miembros por ID de curso
+     */
+    public Map<Long, List<TeamMember>> getMembersByCourseIds(Collection<Long> courseIds) {
+        Map<Long, List<TeamMember>> membersByCourse = new HashMap<>();
+        courseIds.forEach(courseId -> membersByCourse.put(courseId, new ArrayList<>()));
+        if (courseIds.isEmpty()) {
+            return membersByCourse;
+        }
+
+        User currentUser = currentUserProvider.getCurrentUser()
+                .orElseThrow(() -> new AuthenticationException("Usuario no encontrado"));
+        boolean ownTeamOnly = currentUser.getRole() == UserRole.STUDENT;
+
+        for (User user : userRepository.findByCourseIdIn(courseIds)) {
+            if (ownTeamOnly && (user.getTeamId() == null || !user.getTeamId().equals(currentUser.getTeamId()))) {
+                continue;
+            }
+            membersByCourse.get(user.getCourseId()).add(new TeamMember(user));
+        }
+
+        logger.debug("Loaded members for {} courses in one query", courseIds.size());
+        return membersByCourse;
+    }
+
+    /**
+     * Obtiene una página de los miembros de un curso, ordenados por ID.
+     * El acceso al curso se valida con la directiva @requiresCourse; los estudiantes
+     * solo reciben los miembros de su propio equipo.
+     *
+     * @param courseId ID del curso
+     * @param first Tamaño de página (por defecto default-page-size, máximo max-page-size)
+     * @param after Cursor del último elemento de la página anterior (null para la primera)
+     * @return Página de miembros del curso
+     */
+    public UserConnection getCourseMembersPage(Long courseId, Integer first, String after) {
+        User currentUser = currentUserProvider.getCurrentUser()
+                .orElseThrow(() -> new AuthenticationException("Usuario no encontrado"));
+
+        Long teamId = null;
+        if (currentUser.getRole() == UserRole.STUDENT) {
+            if (currentUser.getTeamId() == null) {
+                return emptyPage(after);
+            }
+            teamId = currentUser.getTeamId();
+        }
+        return keysetPage(null, courseId, teamId, first, after);
+    }
+
+    /**
+     * Obtiene una página de usuarios que cumplen el filtro, ordenados por ID.
+     * Los TAs solo pueden listar usuarios de su propio curso.
+     *
+     * @param userFilter Criterios de búsqueda (rol, curso, equipo); puede ser null
+     * @param first Tamaño de página (por defecto default-page-size, máximo max-page-size)
+     * @param after Cursor del último elemento de la página anterior (null para la primera)
+     * @return Página de usuarios
+     * @throws AuthenticationException si el usuario no puede ver los usuarios del curso pedido
+     */
+    public UserConnection getUsersPage(UserFilter userFilter, Integer first, String after) {
+        User currentUser = currentUserProvider.getCurrentUser()
+                .orElseThrow(() -> new AuthenticationException("Usuario no encontrado"));
+        UserFilter criteria = userFilter != null ? userFilter : new UserFilter();
+
+        Long courseId = criteria.getCourseId();
+        if (currentUser.getRole() == UserRole.TA) {
+            if (currentUser.getCourseId() == null
+                    || (courseId != null && !courseId.equals(currentUser.getCourseId()))) {
+                logger.warn("TA {} attempted to list users of course {}", currentUser.getEmail(), courseId);
+                throw new AuthenticationException("No tienes permiso para ver los usuarios de este curso");
+            }
+            courseId = currentUser.getCourseId();
+        }
+
+        return keysetPage(criteria.getRole(), courseId, criteria.getTeamId(), first, after);
+    }
+
+    /**
+     * Lee una página con paginación por keyset: id > cursor ORDER BY id LIMIT first + 1.
+     * El elemento adicional indica si hay página siguiente sin contar las filas (sin COUNT ni OFFSET).
+     */
+    private UserConnection keysetPage(UserRole role, Long courseId, Long teamId, Integer first, String after) {
+        int pageSize = first == null ? defaultPageSize : Math.min(Math.max(first, 0), maxPageSize);
+        Long afterId = UserCursor.decode(after);
+
+        List<User> rows = userRepository.findPageAfterId(role, courseId, teamId, afterId,
+                PageRequest.of(0, pageSize + 1));
+
+        List<UserEdge> edges = rows.stream()
+                .limit(pageSize)
+                .map(user -> new UserEdge(UserCursor.encode(user.getId()), new TeamMember(user)))
+                .toList();
+        PageInfo pageInfo = new PageInfo(rows.size() > pageSize, afterId != null,
+                edges.isEmpty() ? null : edges.get(0).getCursor(),
+                edges.isEmpty() ? null : edges.get(edges.size() - 1).getCursor());
+
+        logger.debug("Loaded page of {} users (after: {}, has next: {})", edges.size(), afterId,
+                pageInfo.isHasNextPage());
+        return new UserConnection(edges, pageInfo);
+    }
+
+    /**
+     * Página vacía (ej: estudiante sin equipo); el cursor recibido se valida igualmente
+     */
+    private UserConnection emptyPage(String after) {
+        Long afterId = UserCursor.decode(after);
+        return new UserConnection(List.of(), new PageInfo(false, afterId != null, null, null));
+    }
+
     /**
      * Genera la lista de permisos basados en el rol del usuario.
      *
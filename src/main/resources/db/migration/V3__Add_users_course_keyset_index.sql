@@ -0,0 +1,13 @@
+-- Migración V3: Índice compuesto (course_id, id) para paginación por keyset de usuarios
+-- Autor: Fábrica-Escuela de Software UdeA
+-- Fecha: 2026-10-18
+-- Descripción: Las consultas paginadas courseMembers y users(filter: {courseId}) filtran por curso
+-- y avanzan con "id > cursor ORDER BY id LIMIT n". Con el índice (course_id, id) cada página es un
+-- recorrido de rango del índice que empieza en el cursor, con costo constante sin importar la
+-- profundidad de la página (a diferencia de OFFSET, que recorre y descarta las filas anteriores).
+
+-- Crear índice compuesto en (course_id, id)
+CREATE INDEX IF NOT EXISTS idx_users_course_id_id ON users(course_id, id);
+
+-- El índice compuesto cubre las búsquedas por course_id: el índice simple de V2 es redundante
+DROP INDEX IF EXISTS idx_users_course_id;
@@ -0,0 +1,47 @@
+-- Token bucket compartido por todos los nodos: concede un lote de tokens para consumo local.
+-- KEYS[1] = ratelimit:bucket:<clave> (HASH tokens, ts)
+-- ARGV[1] = capacidad
+-- ARGV[2] = tokens repuestos por periodo
+-- ARGV[3] = periodo de reposición en ms
+-- ARGV[4] = mínimo de tokens que necesita la petición
+-- ARGV[5] = tokens deseados (tamaño del lote)
+-- ARGV[6] = tokens no usados de un lote anterior que el nodo devuelve al bucket
+-- Retorna {tokens concedidos, tokens restantes, ms hasta disponer del mínimo (0 si se concedió)}
+local capacity = tonumber(ARGV[1])
+local refill = tonumber(ARGV[2])
+local period = tonumber(ARGV[3])
+local min = tonumber(ARGV[4])
+local desired = tonumber(ARGV[5])
+local refund = tonumber(ARGV[6]) or 0
+
+-- Reloj de Redis: los nodos no dependen de tener sus relojes sincronizados
+local time = redis.call('TIME')
+local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)
+
+local state = redis.call('HMGET', KEYS[1], 'tokens', 'ts')
+local tokens = tonumber(state[1])
+local ts = tonumber(state[2])
+if tokens == nil or ts == nil then
+  tokens = capacity
+  ts = now
+end
+if now > ts then
+  tokens = math.min(capacity, tokens + (now - ts) * refill / period)
+end
+if refund > 0 then
+  tokens = math.min(capacity, tokens + refund)
+end
+
+local granted = 0
+local retryAfter = 0
+if tokens >= min then
+  granted = math.min(desired, math.floor(tokens))
+  tokens = tokens - granted
+else
+  retryAfter = math.ceil((min - tokens) * period / refill)
+end
+
+redis.call('HSET', KEYS[1], 'tokens', tostring(tokens), 'ts', now)
+-- Un bucket sin uso vuelve a estar lleno: no hace falta conservarlo más allá de ese tiempo
+redis.call('PEXPIRE', KEYS[1], math.ceil(capacity * period / refill))
+return {granted, math.floor(tokens), retryAfter}
@@ -0,0 +1,19 @@
+-- Elimina todas las sesiones de un usuario en un solo paso atómico.
+-- KEYS[1] = session:idx:<username>
+-- KEYS[2] = session:user:<username>  (SET del formato anterior)
+-- KEYS[3] = session:count:<username> (contador del formato anterior)
+-- KEYS[4] = session:active-users
+-- ARGV[1] = prefijo de las claves de metadatos (session:meta:)
+-- ARGV[2] = username
+-- Retorna el número de sesiones invalidadas
+-- Solo Redis standalone: las claves session:meta: se descubren dentro del script y se construyen
+-- con ARGV[1], por lo que no se declaran en KEYS (ver SessionManagementService).
+local sessions = redis.call('ZRANGE', KEYS[1], 0, -1)
+for _, sessionId in ipairs(sessions) do
+  redis.call('DEL', ARGV[1] .. sessionId)
+end
+
+local count = #sessions + redis.call('SCARD', KEYS[2])
+redis.call('DEL', KEYS[1], KEYS[2], KEYS[3])
+redis.call('ZREM', KEYS[4], ARGV[2])
+return count
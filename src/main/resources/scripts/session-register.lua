@@ -0,0 +1,42 @@
+-- Registra una sesión y aplica el límite de sesiones concurrentes en un solo paso atómico.
+-- KEYS[1] = session:idx:<username>  (ZSET sessionId -> última actividad en ms)
+-- KEYS[2] = session:meta:<sessionId> (HASH con los metadatos de la sesión)
+-- KEYS[3] = session:active-users (ZSET global username -> última actividad en ms)
+-- ARGV[1] = sessionId
+-- ARGV[2] = instante actual en ms
+-- ARGV[3] = TTL de inactividad en segundos
+-- ARGV[4] = máximo de sesiones concurrentes (0 = sin límite)
+-- ARGV[5] = política al superar el límite: EVICT_OLDEST | REJECT
+-- ARGV[6] = username, ARGV[7] = dispositivo, ARGV[8] = IP
+-- ARGV[9] = prefijo de las claves de metadatos (session:meta:)
+-- Retorna {sesiones activas, sesiones desalojadas} o {-1, 0} si la política rechaza el registro
+-- Solo Redis standalone: las claves session:meta: de las sesiones desalojadas se descubren dentro
+-- del script y se construyen con ARGV[9], por lo que no se declaran en KEYS (ver SessionManagementService).
+local now = tonumber(ARGV[2])
+local ttl = tonumber(ARGV[3])
+local max = tonumber(ARGV[4])
+local evicted = 0
+
+-- Las entradas sin actividad durante el TTL corresponden a metadatos ya expirados
+redis.call('ZREMRANGEBYSCORE', KEYS[1], '-inf', '(' .. (now - ttl * 1000))
+
+if max > 0 then
+  local overflow = redis.call('ZCARD', KEYS[1]) - max + 1
+  if overflow > 0 then
+    if ARGV[5] == 'REJECT' then
+      return {-1, 0}
+    end
+    local oldest = redis.call('ZPOPMIN', KEYS[1], overflow)
+    for i = 1, #oldest, 2 do
+      redis.call('DEL', ARGV[9] .. oldest[i])
+      evicted = evicted + 1
+    end
+  end
+end
+
+redis.call('HSET', KEYS[2], 'user', ARGV[6], 'issuedAt', now, 'lastSeen', now, 'device', ARGV[7], 'ip', ARGV[8])
+redis.call('EXPIRE', KEYS[2], ttl)
+redis.call('ZADD', KEYS[1], now, ARGV[1])
+redis.call('EXPIRE', KEYS[1], ttl)
+redis.call('ZADD', KEYS[3], now, ARGV[6])
+return {redis.call('ZCARD', KEYS[1]), evicted}
@@ -0,0 +1,25 @@
+-- Elimina una sesión en un solo paso atómico.
+-- KEYS[1] = session:idx:<username>
+-- KEYS[2] = session:meta:<sessionId>
+-- KEYS[3] = session:user:<username> (SET del formato anterior "sessionId:timestampMs")
+-- KEYS[4] = session:active-users
+-- ARGV[1] = sessionId
+-- ARGV[2] = '1' para buscar también en el formato anterior durante la migración
+-- ARGV[3] = username
+-- Retorna el número de entradas eliminadas
+local removed = redis.call('ZREM', KEYS[1], ARGV[1]) + redis.call('DEL', KEYS[2])
+
+if ARGV[2] == '1' then
+  local prefix = ARGV[1] .. ':'
+  for _, member in ipairs(redis.call('SMEMBERS', KEYS[3])) do
+    if string.sub(member, 1, #prefix) == prefix then
+      removed = removed + redis.call('SREM', KEYS[3], member)
+    end
+  end
+end
+
+-- Sin sesiones restantes el usuario deja de contar como activo
+if redis.call('ZCARD', KEYS[1]) == 0 then
+  redis.call('ZREM', KEYS[4], ARGV[3])
+end
+return removed
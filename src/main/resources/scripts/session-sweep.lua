@@ -0,0 +1,15 @@
+-- Retira del índice global los usuarios sin actividad, en un lote acotado.
+-- KEYS[1] = session:active-users (ZSET username -> última actividad en ms)
+-- ARGV[1] = límite de actividad en ms (se retiran las puntuaciones anteriores)
+-- ARGV[2] = tamaño máximo del lote
+-- ARGV[3] = prefijo de los índices de sesión por usuario (session:idx:)
+-- Retorna el número de usuarios retirados
+-- Solo Redis standalone: los índices session:idx: se descubren dentro del script y se construyen
+-- con ARGV[3], por lo que no se declaran en KEYS (ver SessionManagementService).
+local users = redis.call('ZRANGEBYSCORE', KEYS[1], '-inf', '(' .. ARGV[1], 'LIMIT', 0, tonumber(ARGV[2]))
+for _, username in ipairs(users) do
+  redis.call('ZREM', KEYS[1], username)
+  -- Sus sesiones tampoco tienen actividad dentro del TTL: los metadatos ya expiraron
+  redis.call('DEL', ARGV[3] .. username)
+end
+return #users
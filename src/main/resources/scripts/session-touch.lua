@@ -0,0 +1,30 @@
+-- Aplica en un solo paso un lote de actualizaciones de última actividad.
+-- KEYS[1] = session:active-users
+-- ARGV[1] = prefijo de las claves de metadatos (session:meta:)
+-- ARGV[2] = prefijo de los índices por usuario (session:idx:)
+-- ARGV[3] = TTL de inactividad en segundos
+-- ARGV[4..] = tripletas sessionId, username, última actividad en ms
+-- Retorna el número de sesiones actualizadas (las cerradas o expiradas se ignoran)
+-- Solo Redis standalone: las claves de cada tripleta se construyen con ARGV[1] y ARGV[2] y no se
+-- declaran en KEYS (ver SessionManagementService).
+local ttl = tonumber(ARGV[3])
+local touched = 0
+
+for i = 4, #ARGV, 3 do
+  local sessionId, username, lastSeen = ARGV[i], ARGV[i + 1], tonumber(ARGV[i + 2])
+  local meta = ARGV[1] .. sessionId
+  -- No recrear sesiones cerradas entre la petición y el volcado
+  if redis.call('HGET', meta, 'user') == username then
+    local current = tonumber(redis.call('HGET', meta, 'lastSeen'))
+    if current == nil or lastSeen > current then
+      redis.call('HSET', meta, 'lastSeen', lastSeen)
+    end
+    redis.call('EXPIRE', meta, ttl)
+    local index = ARGV[2] .. username
+    redis.call('ZADD', index, 'GT', lastSeen, sessionId)
+    redis.call('EXPIRE', index, ttl)
+    redis.call('ZADD', KEYS[1], 'GT', lastSeen, username)
+    touched = touched + 1
+  end
+end
+return touched
@@ -0,0 +1,20 @@
+-- Verifica si una sesión está activa con una consulta O(1) a sus metadatos.
+-- KEYS[1] = session:meta:<sessionId>
+-- KEYS[2] = session:user:<username> (SET del formato anterior "sessionId:timestampMs")
+-- ARGV[1] = sessionId
+-- ARGV[2] = username propietario esperado
+-- ARGV[3] = '1' para buscar también en el formato anterior durante la migración
+-- Retorna 1 si la sesión está activa, 0 en caso contrario
+if redis.call('HGET', KEYS[1], 'user') == ARGV[2] then
+  return 1
+end
+
+if ARGV[3] == '1' then
+  local prefix = ARGV[1] .. ':'
+  for _, member in ipairs(redis.call('SMEMBERS', KEYS[2])) do
+    if string.sub(member, 1, #prefix) == prefix then
+      return 1
+    end
+  end
+end
+return 0
@@ -41,6 +41,9 @@ class SecurityConfigTest {
     @Mock
     private SecurityHeadersFilter securityHeadersFilter;
 
+    @Mock
+    private AdaptiveConcurrencyLimitFilter adaptiveConcurrencyLimitFilter;
+
     @Mock
     private AuthenticationConfiguration authConfig;
 
@@ -0,0 +1,83 @@
+package com.udea.innosistemas.security;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdaptiveConcurrencyLimitFilterTest {
+
+    private AdaptiveConcurrencyLimitFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        filter = new AdaptiveConcurrencyLimitFilter();
+        ReflectionTestUtils.setField(filter, "enabled", true);
+        ReflectionTestUtils.setField(filter, "initialLimit", 10);
+        ReflectionTestUtils.setField(filter, "minLimit", 2);
+        ReflectionTestUtils.setField(filter, "maxLimit", 20);
+        ReflectionTestUtils.setField(filter, "latencyThresholdMs", 500L);
+        ReflectionTestUtils.setField(filter, "backoffRatio", 0.5);
+        ReflectionTestUtils.setField(filter, "authReservedFraction", 0.2);
+        ReflectionTestUtils.setField(filter, "retryAfterSeconds", 1L);
+        filter.init();
+    }
+
+    // 1️⃣ Test: las peticiones normales no pueden ocupar la capacidad reservada a autenticación
+    @Test
+    void shouldReserveCapacityForAuthRequests() {
+        for (int i = 0; i < 8; i++) {
+            assertTrue(filter.tryAcquire(AdaptiveConcurrencyLimitFilter.Priority.NORMAL));
+        }
+        assertFalse(filter.tryAcquire(AdaptiveConcurrencyLimitFilter.Priority.NORMAL));
+        assertTrue(filter.tryAcquire(AdaptiveConcurrencyLimitFilter.Priority.AUTH));
+        assertTrue(filter.tryAcquire(AdaptiveConcurrencyLimitFilter.Priority.AUTH));
+        assertFalse(filter.tryAcquire(AdaptiveConcurrencyLimitFilter.Priority.AUTH));
+    }
+
+    // 2️⃣ Test: el límite se reduce ante latencia alta y crece con respuestas rápidas bajo carga
+    @Test
+    void shouldAdaptLimitToLatency() {
+        filter.tryAcquire(AdaptiveConcurrencyLimitFilter.Priority.NORMAL);
+        filter.release(System.nanoTime() - 1_000_000_000L, false, new AtomicBoolean());
+        assertEquals(5.0, filter.getLimit());
+
+        for (int i = 0; i < 4; i++) {
+            filter.tryAcquire(AdaptiveConcurrencyLimitFilter.Priority.NORMAL);
+        }
+        filter.release(System.nanoTime(), false, new AtomicBoolean());
+        assertEquals(6.0, filter.getLimit());
+        assertEquals(3, filter.getInFlight());
+    }
+
+    // 3️⃣ Test: al superar el límite se responde 503 con Retry-After
+    @Test
+    void shouldRejectWithServiceUnavailableWhenOverLimit() throws Exception {
+        for (int i = 0; i < 8; i++) {
+            filter.tryAcquire(AdaptiveConcurrencyLimitFilter.Priority.NORMAL);
+        }
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/graphql");
+        request.addHeader("Authorization", "Bearer token");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request, response, new MockFilterChain());
+
+        assertEquals(503, response.getStatus());
+        assertEquals("1", response.getHeader("Retry-After"));
+    }
+
+    // 4️⃣ Test: solo /auth/login y /auth/refresh usan la reserva; /graphql anónimo es normal
+    @Test
+    void shouldReserveCapacityOnlyForAuthEndpoints() {
+        assertEquals(AdaptiveConcurrencyLimitFilter.Priority.AUTH,
+                filter.classify(new MockHttpServletRequest("POST", "/auth/login")));
+        assertEquals(AdaptiveConcurrencyLimitFilter.Priority.NORMAL,
+                filter.classify(new MockHttpServletRequest("POST", "/graphql")));
+    }
+}
@@ -0,0 +1,103 @@
+package com.udea.innosistemas.security;
+
+import graphql.schema.GraphQLSchema;
+import graphql.schema.idl.RuntimeWiring;
+import graphql.schema.idl.SchemaGenerator;
+import graphql.schema.idl.SchemaParser;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.graphql.execution.GraphQlSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class GraphQLCostCalculatorTest {
+
+    private GraphQLCostCalculator calculator;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() throws Exception {
+        GraphQLSchema schema;
+        try (InputStreamReader reader = new InputStreamReader(
+                new ClassPathResource("graphql/schema.graphqls").getInputStream(), StandardCharsets.UTF_8)) {
+            schema = new SchemaGenerator().makeExecutableSchema(
+                    new SchemaParser().parse(reader), RuntimeWiring.MOCKED_WIRING);
+        }
+        GraphQlSource source = mock(GraphQlSource.class);
+        when(source.schema()).thenReturn(schema);
+        ObjectProvider<GraphQlSource> provider = mock(ObjectProvider.class);
+        when(provider.getIfAvailable()).thenReturn(source);
+
+        calculator = new GraphQLCostCalculator();
+        ReflectionTestUtils.setField(calculator, "graphQlSource", provider);
+        ReflectionTestUtils.setField(calculator, "defaultListSize", 10L);
+        ReflectionTestUtils.setField(calculator, "maxPageSize", 100L);
+    }
+
+    // 1️⃣ Test: cada campo cuesta 1
+    @Test
+    void shouldChargeOnePerField() {
+        GraphQLCostCalculator.OperationCost cost = calculator.calculate(
+                "query { getCurrentUser { id email role } }", null, Map.of());
+
+        assertEquals(4, cost.getCost());
+        assertFalse(cost.isAuthOperation());
+        assertEquals(List.of("getCurrentUser"), cost.getRootFields());
+    }
+
+    // 2️⃣ Test: los campos lista multiplican el costo de sus subcampos (también en fragments)
+    @Test
+    void shouldMultiplyListFields() {
+        GraphQLCostCalculator.OperationCost cost = calculator.calculate(
+                "query Team($id: ID!) { getTeamMembers(teamId: $id) { ...member } } "
+                        + "fragment member on TeamMember { id email __typename }",
+                "Team", Map.of("id", "7"));
+
+        assertEquals(1 + 2 * 10, cost.getCost());
+    }
+
+    // 3️⃣ Test: login y refreshToken se identifican como operaciones de autenticación
+    @Test
+    void shouldDetectAuthOperations() {
+        assertTrue(calculator.calculate(
+                "mutation login { login(email: \"a@udea.edu.co\", password: \"x\") { token } }", null, Map.of())
+                .isAuthOperation());
+        assertFalse(calculator.calculate(
+                "mutation { login(email: \"a@udea.edu.co\", password: \"x\") { token } logoutFromAllDevices { success } }",
+                null, Map.of()).isAuthOperation());
+    }
+
+    // 4️⃣ Test: los pesos y tamaños de lista declarados con @cost se aplican
+    @Test
+    void shouldApplyCostDirective() {
+        GraphQLCostCalculator.OperationCost cost = calculator.calculate(
+                "query { getCourse(courseId: 1) { teams { members { id } } } }", null, Map.of());
+
+        // members: 2 + 1 * 6; teams: 2 + 8 * 20; getCourse: 1 + 162
+        assertEquals(163, cost.getCost());
+    }
+
+    // 5️⃣ Test: el first de una conexión paginada se aplica a su lista edges
+    @Test
+    void shouldApplyPageSizeToConnectionEdges() {
+        String query = "query($first: Int) { courseMembers(courseId: 1, first: $first) "
+                + "{ edges { node { id email } } pageInfo { hasNextPage } } }";
+
+        // node: 1 + 2; edges: 1 + 3 * first; pageInfo: 1 + 1; courseMembers: 1 + edges + pageInfo
+        assertEquals(154, calculator.calculate(query, null, Map.of("first", 50)).getCost());
+        // Sin first se usa el listSize declarado en UserConnection.edges (20)
+        assertEquals(64, calculator.calculate(query, null, Map.of()).getCost());
+        // Un first mayor que max-page-size se cobra como una página máxima (100)
+        assertEquals(304, calculator.calculate(query, null, Map.of("first", 100000)).getCost());
+    }
+}
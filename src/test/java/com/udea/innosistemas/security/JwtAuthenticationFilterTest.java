@@ -0,0 +1,107 @@
+package com.udea.innosistemas.security;
+
+import com.udea.innosistemas.entity.User;
+import com.udea.innosistemas.entity.UserRole;
+import com.udea.innosistemas.service.ClaimsVersionService;
+import com.udea.innosistemas.service.TokenBlacklistService;
+import com.udea.innosistemas.service.UserDetailsServiceImpl;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class JwtAuthenticationFilterTest {
+
+    private static final String TOKEN = "token";
+    private static final String EMAIL = "estudiante@udea.edu.co";
+
+    @Mock
+    private JwtTokenProvider tokenProvider;
+
+    @Mock
+    private UserDetailsServiceImpl customUserDetailsService;
+
+    @Mock
+    private TokenBlacklistService tokenBlacklistService;
+
+    @Mock
+    private ClaimsVersionService claimsVersionService;
+
+    @InjectMocks
+    private JwtAuthenticationFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(filter, "statelessEnabled", true);
+
+        Claims claims = Jwts.claims()
+                .subject(EMAIL)
+                .add("userId", 42L)
+                .add("role", "STUDENT")
+                .add("teamId", 7L)
+                .add("ver", 5L)
+                .build();
+        when(tokenProvider.parseVerifiedToken(TOKEN)).thenReturn(new VerifiedToken(TOKEN, claims));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    private Authentication authenticate() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/graphql");
+        request.addHeader("Authorization", "Bearer " + TOKEN);
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+        return SecurityContextHolder.getContext().getAuthentication();
+    }
+
+    // 1️⃣ Test: con la versión vigente el principal se construye desde los claims, sin base de datos
+    @Test
+    void shouldBuildPrincipalFromClaimsWhenVersionIsCurrent() throws Exception {
+        when(claimsVersionService.getCurrentVersion(42L)).thenReturn(5L);
+
+        Authentication authentication = authenticate();
+
+        assertInstanceOf(JwtUserPrincipal.class, authentication.getPrincipal());
+        assertEquals(7L, ((JwtUserPrincipal) authentication.getPrincipal()).getTeamId());
+        verify(customUserDetailsService, never()).loadUserByUsername(anyString());
+    }
+
+    // 2️⃣ Test: un token con una versión de claims anterior no autentica
+    @Test
+    void shouldRejectStaleClaimsVersion() throws Exception {
+        when(claimsVersionService.getCurrentVersion(42L)).thenReturn(6L);
+
+        assertNull(authenticate());
+        verify(customUserDetailsService, never()).loadUserByUsername(anyString());
+    }
+
+    // 3️⃣ Test: si Redis no conoce la versión (clave perdida) se carga el usuario desde la base de datos
+    @Test
+    void shouldLoadUserFromDatabaseWhenVersionIsUnknown() throws Exception {
+        when(claimsVersionService.getCurrentVersion(42L)).thenReturn(null);
+        User user = new User(EMAIL, "password123", UserRole.STUDENT);
+        user.setId(42L);
+        when(customUserDetailsService.loadUserByUsername(EMAIL)).thenReturn(user);
+
+        Authentication authentication = authenticate();
+
+        assertSame(user, authentication.getPrincipal());
+    }
+}
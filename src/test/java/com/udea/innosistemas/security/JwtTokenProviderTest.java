@@ -0,0 +1,142 @@
+package com.udea.innosistemas.security;
+
+import com.udea.innosistemas.config.properties.JwtSigningKeysProperties;
+import com.udea.innosistemas.entity.User;
+import com.udea.innosistemas.entity.UserRole;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtTokenProviderTest {
+
+    private static final String SECRET = "test-secret-key-with-at-least-64-bytes-for-hs512-signature-algorithm-0123456789";
+
+    private JwtTokenProvider tokenProvider;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        tokenProvider = createProvider(createKeyRing(JwtKeyRing.HS512));
+
+        user = new User("estudiante@udea.edu.co", "password123", UserRole.STUDENT);
+        user.setId(42L);
+        user.setTeamId(7L);
+        user.setCourseId(3L);
+    }
+
+    private JwtKeyRing createKeyRing(String algorithm) {
+        JwtSigningKeysProperties properties = new JwtSigningKeysProperties();
+        properties.setAlgorithm(algorithm);
+
+        JwtKeyRing keyRing = new JwtKeyRing();
+        ReflectionTestUtils.setField(keyRing, "jwtSecret", SECRET);
+        ReflectionTestUtils.setField(keyRing, "properties", properties);
+        keyRing.init();
+        return keyRing;
+    }
+
+    private JwtTokenProvider createProvider(JwtKeyRing keyRing) {
+        JwtTokenProvider provider = new JwtTokenProvider();
+        ReflectionTestUtils.setField(provider, "keyRing", keyRing);
+        ReflectionTestUtils.setField(provider, "jwtExpirationInMs", 3600L);
+        ReflectionTestUtils.setField(provider, "refreshExpirationInMs", 7200L);
+        provider.init();
+        return provider;
+    }
+
+    // 1️⃣ Test: una sola verificación expone todos los claims tipados
+    @Test
+    void shouldExposeTypedClaimsFromSingleVerification() {
+        String token = tokenProvider.generateTokenFromUser(user);
+
+        VerifiedToken verifiedToken = tokenProvider.verify(token);
+
+        assertEquals("estudiante@udea.edu.co", verifiedToken.getSubject());
+        assertEquals(42L, verifiedToken.getUserId());
+        assertEquals(7L, verifiedToken.getTeamId());
+        assertEquals(3L, verifiedToken.getCourseId());
+        assertEquals("STUDENT", verifiedToken.getRole());
+        assertFalse(verifiedToken.isRefreshToken());
+        assertFalse(verifiedToken.isExpired());
+    }
+
+    // 2️⃣ Test: el refresh token se identifica por su claim type
+    @Test
+    void shouldIdentifyRefreshToken() {
+        String refreshToken = tokenProvider.generateRefreshTokenFromUser(user);
+
+        assertTrue(tokenProvider.verify(refreshToken).isRefreshToken());
+        assertTrue(tokenProvider.isRefreshToken(refreshToken));
+    }
+
+    // 3️⃣ Test: un token alterado no se verifica
+    @Test
+    void shouldRejectTamperedToken() {
+        String token = tokenProvider.generateTokenFromUser(user);
+        String tampered = token.substring(0, token.length() - 2) + "xx";
+
+        assertNull(tokenProvider.parseVerifiedToken(tampered));
+        assertFalse(tokenProvider.validateToken(tampered));
+    }
+
+    // 4️⃣ Test: getAllClaims conserva el contrato previo
+    @Test
+    void shouldKeepAllClaimsContract() {
+        String token = tokenProvider.generateTokenFromUser(user);
+
+        Map<String, Object> claims = tokenProvider.getAllClaims(token);
+
+        assertEquals(42L, claims.get("userId"));
+        assertEquals("estudiante@udea.edu.co", claims.get("email"));
+        assertEquals("STUDENT", claims.get("role"));
+        assertEquals(7L, claims.get("teamId"));
+        assertEquals(3L, claims.get("courseId"));
+        assertNotNull(claims.get("issuedAt"));
+        assertNotNull(claims.get("expiration"));
+    }
+
+    // 5️⃣ Test: firma asimétrica con kid y publicación en JWKS
+    @ParameterizedTest
+    @ValueSource(strings = {JwtKeyRing.ES256, JwtKeyRing.EDDSA})
+    void shouldSignAsymmetricallyWithKid(String algorithm) {
+        JwtKeyRing keyRing = createKeyRing(algorithm);
+        JwtTokenProvider provider = createProvider(keyRing);
+
+        String token = provider.generateTokenFromUser(user);
+
+        assertEquals(42L, provider.verify(token).getUserId());
+        List<?> keys = (List<?>) keyRing.getJwks().get("keys");
+        assertEquals(1, keys.size());
+        assertEquals(keyRing.getActiveKid(), ((Map<?, ?>) keys.get(0)).get("kid"));
+    }
+
+    // 6️⃣ Test: durante la migración se siguen aceptando tokens HMAC sin kid
+    @Test
+    void shouldAcceptLegacyHmacTokensAfterMigration() {
+        String legacyToken = tokenProvider.generateTokenFromUser(user);
+
+        JwtTokenProvider migrated = createProvider(createKeyRing(JwtKeyRing.ES256));
+
+        assertEquals("estudiante@udea.edu.co", migrated.verify(legacyToken).getSubject());
+    }
+
+    // 7️⃣ Test: cada token lleva un jti único que se usa como clave de revocación
+    @Test
+    void shouldIssueUniqueTokenIdUsedForRevocation() {
+        VerifiedToken access = tokenProvider.verify(tokenProvider.generateTokenFromUser(user));
+        VerifiedToken refresh = tokenProvider.verify(tokenProvider.generateRefreshTokenFromUser(user));
+
+        assertNotNull(access.getTokenId());
+        assertNotNull(refresh.getTokenId());
+        assertNotEquals(access.getTokenId(), refresh.getTokenId());
+        assertEquals(access.getTokenId(), access.getRevocationId());
+    }
+}
@@ -0,0 +1,82 @@
+package com.udea.innosistemas.security;
+
+import graphql.language.OperationDefinition;
+import graphql.parser.Parser;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OperationProfileTest {
+
+    private OperationProfile profile(String document, String operationName) {
+        return OperationProfile.of(Parser.parse(document), operationName);
+    }
+
+    // 1️⃣ Test: login se reconoce por el AST aunque cambien el formato, el nombre o los alias
+    @Test
+    void shouldDetectAuthOperationFromAst() {
+        OperationProfile profile = profile(
+                "mutation   SignIn {\n  session: login(email: \"a@udea.edu.co\", password: \"x\") { token } }", null);
+
+        assertTrue(profile.isAuthOperation());
+        assertEquals(OperationDefinition.Operation.MUTATION, profile.getOperationType());
+        assertEquals(List.of("login"), profile.getRootFields());
+    }
+
+    // 2️⃣ Test: una mutation que mezcla login con otros campos no es de autenticación
+    @Test
+    void shouldNotTreatMixedMutationAsAuth() {
+        OperationProfile profile = profile(
+                "mutation { login(email: \"a\", password: \"b\") { token } logoutFromAllDevices { success } }", null);
+
+        assertFalse(profile.isAuthOperation());
+        assertFalse(profile(
+                "query { getCurrentUser { email } } # mutation login", null).isAuthOperation());
+    }
+
+    // 3️⃣ Test: introspección solo si todos los campos raíz son de introspección
+    @Test
+    void shouldDetectIntrospection() {
+        assertTrue(profile("query IntrospectionQuery { __schema { types { name } } }", null).isIntrospection());
+        assertFalse(profile("query { __schema { types { name } } getCurrentUser { id } }", null).isIntrospection());
+    }
+
+    // 4️⃣ Test: profundidad y número de campos con fragments expandidos
+    @Test
+    void shouldComputeDepthAndFieldCount() {
+        OperationProfile profile = profile(
+                "query Course { getCourse(courseId: 1) { id teams { ...TeamFields } } } "
+                        + "fragment TeamFields on Team { id members { id email } }", "Course");
+
+        assertEquals(4, profile.getDepth());
+        assertEquals(7, profile.getFieldCount());
+        assertEquals("Course", profile.getOperationName());
+    }
+
+    // 5️⃣ Test: una operación inexistente produce un perfil inválido
+    @Test
+    void shouldReturnUnknownForMissingOperation() {
+        OperationProfile profile = profile("query A { hello } query B { hello }", null);
+
+        assertFalse(profile.isValid());
+        assertFalse(profile.isAuthOperation());
+    }
+
+    // 6️⃣ Test: los fragments en la raíz se expanden al clasificar la operación
+    @Test
+    void shouldExpandRootFragmentsWhenClassifying() {
+        OperationProfile query = profile("query { __typename ... on Query "
+                + "{ getCourse(courseId: 1) { teams { members { id } } } } }", null);
+        assertFalse(query.isIntrospection());
+        assertEquals(List.of("__typename", "getCourse"), query.getRootFields());
+
+        OperationProfile mutation = profile("mutation { login(email: \"a\", password: \"b\") { token } "
+                + "... on Mutation { logoutFromAllDevices { success } } }", null);
+        assertFalse(mutation.isAuthOperation());
+
+        assertFalse(profile("mutation { login(email: \"a\", password: \"b\") { token } ...Logout } "
+                + "fragment Logout on Mutation { logoutFromAllDevices { success } }", null).isAuthOperation());
+    }
+}
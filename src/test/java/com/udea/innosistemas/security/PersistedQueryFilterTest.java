@@ -0,0 +1,162 @@
+package com.udea.innosistemas.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.udea.innosistemas.service.PersistedQueryStore;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class PersistedQueryFilterTest {
+
+    private static final String QUERY = "query { getUserPermissions { role } }";
+
+    @Mock
+    private PersistedQueryStore persistedQueryStore;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    @InjectMocks
+    private PersistedQueryFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(filter, "enabled", true);
+        ReflectionTestUtils.setField(filter, "maxQueryLength", 20000);
+        ReflectionTestUtils.setField(filter, "maxBodyBytes", 1024);
+    }
+
+    private MockHttpServletRequest request(String body) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/graphql");
+        request.setContentType("application/json");
+        request.setContent(body.getBytes(StandardCharsets.UTF_8));
+        return request;
+    }
+
+    private String hashOnly(String hash) {
+        return "{\"extensions\":{\"persistedQuery\":{\"version\":1,\"sha256Hash\":\"" + hash + "\"}}}";
+    }
+
+    // 1️⃣ Test: un hash registrado se completa con el documento almacenado
+    @Test
+    void shouldResolveRegisteredHash() throws Exception {
+        String hash = PersistedQueryStore.sha256Hex(QUERY);
+        when(persistedQueryStore.get(hash)).thenReturn(QUERY);
+        MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(request(hashOnly(hash)), new MockHttpServletResponse(), chain);
+
+        Map<?, ?> forwarded = objectMapper.readValue(chain.getRequest().getInputStream(), Map.class);
+        assertEquals(QUERY, forwarded.get("query"));
+    }
+
+    // 2️⃣ Test: un hash desconocido responde PERSISTED_QUERY_NOT_FOUND sin ejecutar
+    @Test
+    void shouldReportUnknownHash() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(request(hashOnly(PersistedQueryStore.sha256Hex(QUERY))), response, chain);
+
+        assertNull(chain.getRequest());
+        assertTrue(response.getContentAsString().contains("PERSISTED_QUERY_NOT_FOUND"));
+    }
+
+    // 3️⃣ Test: se rechaza un documento que no corresponde al hash enviado
+    @Test
+    void shouldRejectHashMismatch() throws Exception {
+        String body = "{\"query\":\"" + QUERY + "\",\"extensions\":{\"persistedQuery\":{\"version\":1,"
+                + "\"sha256Hash\":\"" + PersistedQueryStore.sha256Hex("query { hello }") + "\"}}}";
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request(body), response, new MockFilterChain());
+
+        assertEquals(400, response.getStatus());
+        verify(persistedQueryStore, never()).put(anyString(), anyString());
+    }
+
+    // 4️⃣ Test: una petición sin persistedQuery se reenvía intacta sin parsear el cuerpo completo
+    @Test
+    void shouldForwardRegularRequestWithoutFullParse() throws Exception {
+        String body = "{\"query\":\"" + QUERY + "\",\"variables\":{\"extensions\":{\"persistedQuery\":1}},"
+                + "\"extensions\":{\"tracing\":true}}";
+        MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(request(body), new MockHttpServletResponse(), chain);
+
+        assertArrayEquals(body.getBytes(StandardCharsets.UTF_8),
+                chain.getRequest().getInputStream().readAllBytes());
+        verify(objectMapper, never()).readValue(any(byte[].class), eq(Map.class));
+        verifyNoInteractions(persistedQueryStore);
+    }
+
+    // 5️⃣ Test: un cuerpo mayor que max-body-bytes se rechaza con 413 sin ejecutar
+    @Test
+    void shouldRejectOversizedBody() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(request("{\"query\":\"" + "a".repeat(2048) + "\"}"), response, chain);
+
+        assertEquals(413, response.getStatus());
+        assertNull(chain.getRequest());
+    }
+
+    // 6️⃣ Test: el cuerpo reenviado admite lectura no bloqueante con ReadListener
+    @Test
+    void shouldNotifyReadListenerWithForwardedBody() throws Exception {
+        String body = "{\"query\":\"" + QUERY + "\"}";
+        MockFilterChain chain = new MockFilterChain();
+        filter.doFilter(request(body), new MockHttpServletResponse(), chain);
+
+        ServletInputStream input = chain.getRequest().getInputStream();
+        ByteArrayOutputStream read = new ByteArrayOutputStream();
+        boolean[] allDataRead = new boolean[1];
+        input.setReadListener(new ReadListener() {
+            @Override
+            public void onDataAvailable() throws IOException {
+                byte[] buffer = new byte[16];
+                while (input.isReady() && !input.isFinished()) {
+                    int n = input.read(buffer);
+                    if (n > 0) {
+                        read.write(buffer, 0, n);
+                    }
+                }
+            }
+
+            @Override
+            public void onAllDataRead() {
+                allDataRead[0] = true;
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                fail(t);
+            }
+        });
+
+        assertTrue(allDataRead[0]);
+        assertEquals(body, read.toString(StandardCharsets.UTF_8));
+    }
+}
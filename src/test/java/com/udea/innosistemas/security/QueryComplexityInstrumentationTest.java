@@ -0,0 +1,91 @@
+package com.udea.innosistemas.security;
+
+import graphql.execution.AbortExecutionException;
+import graphql.parser.Parser;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.*;
+
+class QueryComplexityInstrumentationTest {
+
+    private QueryComplexityInstrumentation instrumentation;
+    private GraphQLCostCalculator costCalculator;
+
+    @BeforeEach
+    void setUp() {
+        costCalculator = mock(GraphQLCostCalculator.class);
+        instrumentation = new QueryComplexityInstrumentation();
+        ReflectionTestUtils.setField(instrumentation, "costCalculator", costCalculator);
+        ReflectionTestUtils.setField(instrumentation, "maxDepth", 3);
+        ReflectionTestUtils.setField(instrumentation, "maxComplexity", 100L);
+        ReflectionTestUtils.setField(instrumentation, "maxIntrospectionDepth", 5);
+    }
+
+    private OperationProfile profile(String document) {
+        return OperationProfile.of(Parser.parse(document), null);
+    }
+
+    private void givenCost(long cost) {
+        when(costCalculator.calculate(any(OperationProfile.class), anyMap()))
+                .thenReturn(new GraphQLCostCalculator.OperationCost(cost, false, List.of()));
+    }
+
+    // 1️⃣ Test: una operación demasiado profunda se rechaza sin calcular su costo
+    @Test
+    void shouldRejectTooDeepOperation() {
+        AbortExecutionException exception = assertThrows(AbortExecutionException.class, () ->
+                instrumentation.check(profile("{ getCourse(courseId: 1) { teams { members { id } } } }"), Map.of()));
+
+        assertEquals(4, exception.getUnderlyingErrors().get(0).getExtensions().get("depth"));
+        verifyNoInteractions(costCalculator);
+    }
+
+    // 2️⃣ Test: una operación que excede la complejidad se rechaza con el valor calculado
+    @Test
+    void shouldRejectTooComplexOperation() {
+        givenCost(500);
+
+        AbortExecutionException exception = assertThrows(AbortExecutionException.class, () ->
+                instrumentation.check(profile("{ getTeamMembers(teamId: 1) { id } }"), Map.of()));
+
+        assertEquals(500L, exception.getUnderlyingErrors().get(0).getExtensions().get("complexity"));
+    }
+
+    // 3️⃣ Test: las operaciones dentro del presupuesto se ejecutan
+    @Test
+    void shouldAllowOperationWithinBudget() {
+        givenCost(20);
+
+        assertDoesNotThrow(() -> instrumentation.check(profile("{ getTeamMembers(teamId: 1) { id } }"), Map.of()));
+    }
+
+    // 4️⃣ Test: __typename junto a un inline fragment en la raíz no evita los límites
+    @Test
+    void shouldNotExemptTypenameWithRootFragment() {
+        givenCost(500);
+
+        assertThrows(AbortExecutionException.class, () -> instrumentation.check(profile(
+                "{ __typename ... on Query { getCourse(courseId: 1) { teams { members { id } } } } }"), Map.of()));
+        assertThrows(AbortExecutionException.class, () -> instrumentation.check(profile(
+                "{ __typename ... on Query { getTeamMembers(teamId: 1) { id } } }"), Map.of()));
+    }
+
+    // 5️⃣ Test: la introspección no cuenta complejidad pero tiene su propio límite de profundidad
+    @Test
+    void shouldLimitIntrospectionDepthOnly() {
+        givenCost(500);
+
+        assertDoesNotThrow(() -> instrumentation.check(
+                profile("{ __schema { types { fields { name } } } }"), Map.of()));
+        assertThrows(AbortExecutionException.class, () -> instrumentation.check(profile(
+                "{ __type(name: \"Query\") { fields { type { fields { type { name } } } } } }"), Map.of()));
+    }
+}
@@ -0,0 +1,108 @@
+package com.udea.innosistemas.service;
+
+import com.udea.innosistemas.entity.User;
+import com.udea.innosistemas.entity.UserRole;
+import com.udea.innosistemas.repository.UserRepository;
+import com.udea.innosistemas.security.JwtUserPrincipal;
+import com.udea.innosistemas.security.directive.RequiresCourseDirective;
+import com.udea.innosistemas.security.directive.RequiresTeamDirective;
+import graphql.ExecutionResult;
+import graphql.GraphQL;
+import graphql.schema.GraphQLSchema;
+import graphql.schema.idl.RuntimeWiring;
+import graphql.schema.idl.SchemaGenerator;
+import graphql.schema.idl.SchemaParser;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class CurrentUserProviderTest {
+
+    private static final String EMAIL = "estudiante@udea.edu.co";
+
+    @Mock
+    private UserRepository userRepository;
+
+    @InjectMocks
+    private CurrentUserProvider currentUserProvider;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+
+        user = new User(EMAIL, "password123", UserRole.STUDENT);
+        user.setId(42L);
+        user.setTeamId(7L);
+        user.setCourseId(3L);
+        when(userRepository.findByEmail(EMAIL)).thenReturn(Optional.of(user));
+
+        // Modo stateless: el principal se construye desde los claims y no es la entidad
+        JwtUserPrincipal principal = new JwtUserPrincipal(42L, EMAIL, UserRole.STUDENT, 7L, 3L,
+                List.of(new SimpleGrantedAuthority("ROLE_STUDENT")));
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    // 1️⃣ Test: en modo stateless la base de datos se consulta una sola vez por petición
+    @Test
+    void shouldLoadIdentityAtMostOncePerRequest() {
+        for (int i = 0; i < 3; i++) {
+            assertSame(user, currentUserProvider.getCurrentUser().orElseThrow());
+        }
+
+        verify(userRepository, times(1)).findByEmail(EMAIL);
+    }
+
+    // 2️⃣ Test: @requiresTeam y @requiresCourse en la misma operación comparten la identidad memorizada
+    @Test
+    void shouldShareIdentityBetweenDirectives() {
+        RequiresTeamDirective teamDirective = new RequiresTeamDirective();
+        ReflectionTestUtils.setField(teamDirective, "currentUserProvider", currentUserProvider);
+        RequiresCourseDirective courseDirective = new RequiresCourseDirective();
+        ReflectionTestUtils.setField(courseDirective, "currentUserProvider", currentUserProvider);
+
+        String sdl = "directive @requiresTeam on FIELD_DEFINITION\n"
+                + "directive @requiresCourse on FIELD_DEFINITION\n"
+                + "type Query { team(teamId: ID!): String @requiresTeam "
+                + "course(courseId: ID!): String @requiresCourse }";
+        RuntimeWiring wiring = RuntimeWiring.newRuntimeWiring()
+                .directive("requiresTeam", teamDirective)
+                .directive("requiresCourse", courseDirective)
+                .type("Query", type -> type
+                        .dataFetcher("team", env -> "equipo")
+                        .dataFetcher("course", env -> "curso"))
+                .build();
+        GraphQLSchema schema = new SchemaGenerator().makeExecutableSchema(new SchemaParser().parse(sdl), wiring);
+
+        ExecutionResult result = GraphQL.newGraphQL(schema).build()
+                .execute("{ team(teamId: 7) course(courseId: 3) }");
+
+        assertTrue(result.getErrors().isEmpty(), result.getErrors().toString());
+        verify(userRepository, times(1)).findByEmail(EMAIL);
+    }
+}
@@ -0,0 +1,77 @@
+package com.udea.innosistemas.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+class DistributedRateLimiterTest {
+
+    private static final long LEASE_TTL_MS = 50;
+
+    @Mock
+    private RedisTemplate<String, String> redisTemplate;
+
+    @InjectMocks
+    private DistributedRateLimiter rateLimiter;
+
+    // Tokens descontados del bucket compartido (concedidos menos devueltos)
+    private long charged;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(rateLimiter, "leaseSize", 5L);
+        ReflectionTestUtils.setField(rateLimiter, "leaseTtlMs", LEASE_TTL_MS);
+        ReflectionTestUtils.setField(rateLimiter, "maxLeases", 1000L);
+        rateLimiter.init();
+
+        // Bucket de Redis siempre con tokens: concede lo deseado y registra lo descontado
+        doAnswer(invocation -> {
+            Object[] args = invocation.getArguments();
+            long desired = Long.parseLong((String) args[6]);
+            long refund = Long.parseLong((String) args[7]);
+            charged += desired - refund;
+            return List.of(desired, 100L, 0L);
+        }).when(redisTemplate).execute(any(), anyList(), any(), any(), any(), any(), any(), any());
+    }
+
+    private boolean consume() {
+        return rateLimiter.tryConsume("user:ana@udea.edu.co", 1, 100, 100, Duration.ofMinutes(1)).isAllowed();
+    }
+
+    // 1️⃣ Test: un cliente más lento que la duración del lease solo paga los tokens que consume
+    @Test
+    void shouldNeverChargeSlowClientMoreThanItConsumes() throws InterruptedException {
+        for (int i = 1; i <= 3; i++) {
+            assertTrue(consume());
+            assertEquals(i, charged);
+            Thread.sleep(LEASE_TTL_MS * 2);
+        }
+    }
+
+    // 2️⃣ Test: el tráfico sostenido usa lotes y lo no consumido vuelve al bucket al expirar
+    @Test
+    void shouldRefundUnusedTokensOfExpiredLease() throws InterruptedException {
+        assertTrue(consume());
+        assertTrue(consume()); // lease agotado antes de expirar: se pide un lote completo
+        assertEquals(6, charged);
+
+        Thread.sleep(LEASE_TTL_MS * 2);
+        assertTrue(consume());
+
+        assertEquals(3, charged);
+        verify(redisTemplate, times(3)).execute(any(), anyList(), any(), any(), any(), any(), any(), any());
+    }
+}
@@ -0,0 +1,27 @@
+package com.udea.innosistemas.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateLimitProbeTest {
+
+    // 1️⃣ Test: los nanosegundos se redondean hacia arriba al segundo
+    @Test
+    void shouldRoundUpToSeconds() {
+        assertEquals(0, RateLimitProbe.toSeconds(0));
+        assertEquals(1, RateLimitProbe.toSeconds(1));
+        assertEquals(1, RateLimitProbe.toSeconds(1_000_000_000L));
+        assertEquals(2, RateLimitProbe.toSeconds(1_000_000_001L));
+    }
+
+    // 2️⃣ Test: la espera "nunca" de Bucket4j (Long.MAX_VALUE) satura en lugar de desbordar a negativo
+    @Test
+    void shouldSaturateInsteadOfOverflowing() {
+        long seconds = RateLimitProbe.toSeconds(Long.MAX_VALUE);
+
+        assertTrue(seconds > 0, "Seconds: " + seconds);
+        assertEquals(Long.MAX_VALUE / 1_000_000_000L, seconds);
+        assertEquals(seconds, RateLimitProbe.toSeconds(Long.MAX_VALUE - 999_999_998L));
+    }
+}
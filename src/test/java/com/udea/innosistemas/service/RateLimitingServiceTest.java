@@ -0,0 +1,183 @@
+package com.udea.innosistemas.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.udea.innosistemas.config.properties.RateLimitPlansProperties;
+import com.udea.innosistemas.entity.UserRole;
+import com.udea.innosistemas.security.GraphQLCostCalculator;
+import graphql.schema.GraphQLSchema;
+import graphql.schema.idl.RuntimeWiring;
+import graphql.schema.idl.SchemaGenerator;
+import graphql.schema.idl.SchemaParser;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.bind.PropertySourcesPlaceholdersResolver;
+import org.springframework.boot.context.properties.source.ConfigurationPropertySources;
+import org.springframework.boot.env.YamlPropertySourceLoader;
+import org.springframework.core.env.PropertySource;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.graphql.execution.GraphQlSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class RateLimitingServiceTest {
+
+    private RateLimitingService rateLimitingService;
+
+    @BeforeEach
+    void setUp() {
+        rateLimitingService = new RateLimitingService();
+        ReflectionTestUtils.setField(rateLimitingService, "rateLimitEnabled", true);
+        ReflectionTestUtils.setField(rateLimitingService, "defaultCapacity", 5L);
+        ReflectionTestUtils.setField(rateLimitingService, "defaultRefillTokens", 5L);
+        ReflectionTestUtils.setField(rateLimitingService, "defaultRefillPeriodMinutes", 1L);
+        ReflectionTestUtils.setField(rateLimitingService, "maxBuckets", 100L);
+        ReflectionTestUtils.setField(rateLimitingService, "expireAfterAccessMinutes", 10L);
+        rateLimitingService.init();
+    }
+
+    // 1️⃣ Test: se rechaza la petición al agotar la capacidad
+    @Test
+    void shouldRejectWhenCapacityIsExhausted() {
+        for (int i = 0; i < 5; i++) {
+            assertTrue(rateLimitingService.allowRequest("ip:10.0.0.1"));
+        }
+        assertFalse(rateLimitingService.allowRequest("ip:10.0.0.1"));
+    }
+
+    // 2️⃣ Test: los buckets llenos se liberan y los que tienen consumo se conservan
+    @Test
+    void shouldReleaseOnlyFullBuckets() {
+        rateLimitingService.allowRequest("ip:10.0.0.1", 0);
+        rateLimitingService.allowRequest("ip:10.0.0.2");
+
+        assertEquals(1, rateLimitingService.releaseFullBuckets());
+        assertEquals(4, rateLimitingService.getAvailableTokens("ip:10.0.0.2"));
+    }
+
+    // 3️⃣ Test: el almacén no crece por encima del máximo configurado
+    @Test
+    void shouldBoundNumberOfBuckets() {
+        for (int i = 0; i < 1_000; i++) {
+            rateLimitingService.allowRequest("ip:spoofed-" + i);
+        }
+        // Caffeine aplica el desalojo de forma asíncrona
+        ((Cache<?, ?>) ReflectionTestUtils.getField(rateLimitingService, "localCache")).cleanUp();
+
+        assertTrue(rateLimitingService.getBucketCount() <= 100,
+                "Buckets: " + rateLimitingService.getBucketCount());
+    }
+
+    // 4️⃣ Test: cada rol consume de su plan y la consulta informa límite, restantes y reintento
+    @Test
+    void shouldApplyRolePlanAndReturnProbe() {
+        RateLimitPlansProperties properties = new RateLimitPlansProperties();
+        properties.getPlans().put(UserRole.PROFESSOR, new RateLimitPlansProperties.Plan(20, 20, 1));
+        ReflectionTestUtils.setField(rateLimitingService, "plansProperties", properties);
+
+        RateLimitProbe professor = rateLimitingService.tryConsumeAndReturnRemaining("user:profe", 10, UserRole.PROFESSOR);
+        assertTrue(professor.isAllowed());
+        assertEquals(20, professor.getLimit());
+        assertEquals(10, professor.getRemaining());
+
+        rateLimitingService.tryConsumeAndReturnRemaining("user:estudiante", 1, UserRole.STUDENT);
+        RateLimitProbe student = rateLimitingService.tryConsumeAndReturnRemaining("user:estudiante", 4, UserRole.STUDENT);
+        assertTrue(student.isAllowed());
+        student = rateLimitingService.tryConsumeAndReturnRemaining("user:estudiante", 1, UserRole.STUDENT);
+        assertFalse(student.isAllowed());
+        assertEquals(5, student.getLimit());
+        assertTrue(student.getRetryAfterSeconds() > 0);
+    }
+
+    // 5️⃣ Test: una operación más cara que el plan se cobra como la capacidad completa
+    @Test
+    void shouldChargeFullCapacityWhenCostExceedsPlan() {
+        RateLimitProbe first = rateLimitingService.tryConsumeAndReturnRemaining("user:estudiante", 163, null);
+        assertTrue(first.isAllowed());
+        assertEquals(0, first.getRemaining());
+
+        RateLimitProbe second = rateLimitingService.tryConsumeAndReturnRemaining("user:estudiante", 163, null);
+        assertFalse(second.isAllowed());
+        assertTrue(second.getRetryAfterSeconds() > 0);
+    }
+
+    // 6️⃣ Test: las operaciones de ejemplo del esquema se permiten con el bucket lleno en cada plan configurado
+    @Test
+    void shouldAllowSchemaExamplesOnEveryConfiguredPlan() throws Exception {
+        List<PropertySource<?>> documents = new YamlPropertySourceLoader()
+                .load("application", new ClassPathResource("application.yml"));
+        // El primer documento es la configuración sin perfil; los placeholders usan su valor por defecto
+        List<PropertySource<?>> sources = List.of(documents.get(0));
+        Binder binder = new Binder(ConfigurationPropertySources.from(sources),
+                new PropertySourcesPlaceholdersResolver(sources));
+        RateLimitPlansProperties properties = binder
+                .bind("innosistemas.ratelimit", RateLimitPlansProperties.class).get();
+        assertFalse(properties.getPlans().isEmpty());
+
+        RateLimitingService service = new RateLimitingService();
+        ReflectionTestUtils.setField(service, "rateLimitEnabled", true);
+        ReflectionTestUtils.setField(service, "defaultCapacity",
+                binder.bind("innosistemas.ratelimit.default.capacity", Long.class).get());
+        ReflectionTestUtils.setField(service, "defaultRefillTokens",
+                binder.bind("innosistemas.ratelimit.default.refill-tokens", Long.class).get());
+        ReflectionTestUtils.setField(service, "defaultRefillPeriodMinutes",
+                binder.bind("innosistemas.ratelimit.default.refill-period-minutes", Long.class).get());
+        ReflectionTestUtils.setField(service, "maxBuckets", 1000L);
+        ReflectionTestUtils.setField(service, "expireAfterAccessMinutes", 10L);
+        ReflectionTestUtils.setField(service, "plansProperties", properties);
+        service.init();
+
+        GraphQLCostCalculator calculator = costCalculator();
+        List<String> examples = List.of(
+                "query { getCurrentUser { id email role teamId courseId } }",
+                "query { getTeamMembers(teamId: 1) { id email firstName lastName role } }",
+                "query { getTeam(teamId: 1) { id members { id email role } } }",
+                "query { getCourse(courseId: 1) { teams { members { id } } } }",
+                "query { getCourse(courseId: 1) { id members { id email role } } }",
+                "query { courseMembers(courseId: 1, first: 100) "
+                        + "{ edges { cursor node { id email } } pageInfo { hasNextPage endCursor } } }",
+                "query { users(first: 100) { edges { cursor node { id email } } pageInfo { hasNextPage endCursor } } }");
+
+        List<UserRole> plans = new ArrayList<>(properties.getPlans().keySet());
+        plans.add(null);
+        for (UserRole role : plans) {
+            for (int i = 0; i < examples.size(); i++) {
+                long cost = calculator.calculate(examples.get(i), null, Map.of()).getCost();
+                RateLimitProbe probe = service.tryConsumeAndReturnRemaining("user:" + role + ":" + i, cost, role);
+
+                assertTrue(probe.isAllowed(), "Plan " + role + " rejects example " + i + " (cost " + cost + ")");
+                assertEquals(Math.max(0, probe.getLimit() - cost), probe.getRemaining());
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static GraphQLCostCalculator costCalculator() throws Exception {
+        GraphQLSchema schema;
+        try (InputStreamReader reader = new InputStreamReader(
+                new ClassPathResource("graphql/schema.graphqls").getInputStream(), StandardCharsets.UTF_8)) {
+            schema = new SchemaGenerator().makeExecutableSchema(
+                    new SchemaParser().parse(reader), RuntimeWiring.MOCKED_WIRING);
+        }
+        GraphQlSource source = mock(GraphQlSource.class);
+        when(source.schema()).thenReturn(schema);
+        ObjectProvider<GraphQlSource> provider = mock(ObjectProvider.class);
+        when(provider.getIfAvailable()).thenReturn(source);
+
+        GraphQLCostCalculator calculator = new GraphQLCostCalculator();
+        ReflectionTestUtils.setField(calculator, "graphQlSource", provider);
+        ReflectionTestUtils.setField(calculator, "defaultListSize", 10L);
+        ReflectionTestUtils.setField(calculator, "maxPageSize", 100L);
+        return calculator;
+    }
+}
@@ -0,0 +1,66 @@
+package com.udea.innosistemas.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class RevokedTokenNearCacheTest {
+
+    @Mock
+    private RedisTemplate<String, String> redisTemplate;
+
+    @Mock
+    private RedisKeyScanner redisKeyScanner;
+
+    @InjectMocks
+    private RevokedTokenNearCache nearCache;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(nearCache, "enabled", true);
+        ReflectionTestUtils.setField(nearCache, "expectedInsertions", 1000L);
+        ReflectionTestUtils.setField(nearCache, "falsePositiveRate", 0.001);
+        nearCache.init();
+        nearCache.resync();
+    }
+
+    // 1️⃣ Test: un token no revocado se descarta localmente una vez sincronizado
+    @Test
+    void shouldAnswerNegativesLocallyWhenSynchronized() {
+        assertTrue(nearCache.isReady());
+        assertFalse(nearCache.mightBeRevoked("jti-activo"));
+    }
+
+    // 2️⃣ Test: si la publicación falla, el nodo deja de confiar en el filtro hasta resincronizar
+    @Test
+    void shouldResyncWhenPublishFails() {
+        doThrow(new RedisConnectionFailureException("down")).when(redisTemplate).convertAndSend(anyString(), any());
+        when(redisKeyScanner.forEachBatch(anyString(), any())).thenThrow(new RedisConnectionFailureException("down"));
+
+        nearCache.publishRevocation("jti-revocado");
+
+        // 2 llamadas de la sincronización inicial + la resincronización tras el fallo
+        verify(redisKeyScanner, times(3)).forEachBatch(anyString(), any());
+        assertFalse(nearCache.isReady());
+        assertTrue(nearCache.mightBeRevoked("jti-activo"));
+    }
+
+    // 3️⃣ Test: sin suscripción al canal las consultas se delegan en Redis
+    @Test
+    void shouldDelegateToRedisWhileUnsubscribed() {
+        nearCache.onChannelUnsubscribed(new byte[0], 0);
+
+        assertTrue(nearCache.mightBeRevoked("jti-activo"));
+    }
+}
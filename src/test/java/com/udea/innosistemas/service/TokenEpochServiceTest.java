@@ -0,0 +1,78 @@
+package com.udea.innosistemas.service;
+
+import com.udea.innosistemas.security.VerifiedToken;
+import io.jsonwebtoken.ClaimsBuilder;
+import io.jsonwebtoken.Jwts;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class TokenEpochServiceTest {
+
+    @Mock
+    private RedisTemplate<String, String> redisTemplate;
+
+    @Mock
+    private ValueOperations<String, String> valueOperations;
+
+    @InjectMocks
+    private TokenEpochService tokenEpochService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        ReflectionTestUtils.setField(tokenEpochService, "refreshExpirationInSeconds", 86400L);
+        ReflectionTestUtils.setField(tokenEpochService, "epochCacheSeconds", 5L);
+        ReflectionTestUtils.setField(tokenEpochService, "epochCacheMaxSize", 1000L);
+        tokenEpochService.init();
+    }
+
+    private VerifiedToken token(long issuedAtMillis, boolean withMillisClaim) {
+        ClaimsBuilder claims = Jwts.claims()
+                .subject("estudiante@udea.edu.co")
+                .issuedAt(new Date(issuedAtMillis))
+                .add("userId", 42L);
+        if (withMillisClaim) {
+            claims.add("iatMs", issuedAtMillis);
+        }
+        return new VerifiedToken("token", claims.build());
+    }
+
+    // 1️⃣ Test: volver a iniciar sesión en el mismo segundo de la revocación produce un token válido
+    @Test
+    void shouldAcceptTokenIssuedInSameSecondAfterRevocation() {
+        long epoch = tokenEpochService.revokeAllTokens(42L);
+
+        assertFalse(tokenEpochService.isIssuedBeforeEpoch(token(epoch + 1, true)));
+        assertTrue(tokenEpochService.isIssuedBeforeEpoch(token(epoch - 1, true)));
+    }
+
+    // 2️⃣ Test: los tokens sin iatMs se comparan por segundos y el segundo de la revocación sigue invalidado
+    @Test
+    void shouldKeepSecondResolutionForTokensWithoutMillisClaim() {
+        long epoch = tokenEpochService.revokeAllTokens(42L);
+        long startOfSecond = epoch - epoch % 1000;
+
+        assertTrue(tokenEpochService.isIssuedBeforeEpoch(token(startOfSecond, false)));
+        assertFalse(tokenEpochService.isIssuedBeforeEpoch(token(startOfSecond + 1000, false)));
+    }
+
+    // 3️⃣ Test: una época guardada en segundos se sigue respetando hasta el final de ese segundo
+    @Test
+    void shouldReadLegacyEpochInSeconds() {
+        when(valueOperations.get("user:tokens-valid-after:42")).thenReturn("1700000000");
+
+        assertEquals(1_700_000_000_999L, tokenEpochService.getEpoch(42L));
+    }
+}
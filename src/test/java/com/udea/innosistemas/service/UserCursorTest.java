@@ -0,0 +1,35 @@
+package com.udea.innosistemas.service;
+
+import com.udea.innosistemas.exception.InvalidCursorException;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserCursorTest {
+
+    // 1️⃣ Test: un cursor generado se decodifica al mismo ID
+    @Test
+    void shouldRoundTripId() {
+        assertEquals(12345L, UserCursor.decode(UserCursor.encode(12345L)));
+    }
+
+    // 2️⃣ Test: sin cursor se pide la primera página
+    @Test
+    void shouldStartFromFirstPageWithoutCursor() {
+        assertNull(UserCursor.decode(null));
+        assertNull(UserCursor.decode(""));
+    }
+
+    // 3️⃣ Test: se rechazan cursores que no generó la API
+    @Test
+    void shouldRejectForeignCursors() {
+        String foreign = Base64.getUrlEncoder().encodeToString("team:7".getBytes(StandardCharsets.UTF_8));
+
+        assertThrows(InvalidCursorException.class, () -> UserCursor.decode("no-es-base64!"));
+        assertThrows(InvalidCursorException.class, () -> UserCursor.decode(foreign));
+        assertThrows(InvalidCursorException.class, () -> UserCursor.decode(UserCursor.encode(null)));
+    }
+}
@@ -0,0 +1,193 @@
+package com.udea.innosistemas.service;
+
+import com.udea.innosistemas.dto.Team;
+import com.udea.innosistemas.dto.TeamMember;
+import com.udea.innosistemas.dto.UserConnection;
+import com.udea.innosistemas.dto.UserEdge;
+import com.udea.innosistemas.dto.UserFilter;
+import com.udea.innosistemas.entity.User;
+import com.udea.innosistemas.entity.UserRole;
+import com.udea.innosistemas.exception.AuthenticationException;
+import com.udea.innosistemas.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+class UserQueryServiceTest {
+
+    private static final List<Long> COURSES = List.of(3L);
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private CurrentUserProvider currentUserProvider;
+
+    @InjectMocks
+    private UserQueryService userQueryService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(userQueryService, "defaultPageSize", 20);
+        ReflectionTestUtils.setField(userQueryService, "maxPageSize", 100);
+
+        // Curso 3 con dos equipos (7 y 8) y un miembro sin equipo
+        when(userRepository.findTeamIdsByCourseIdIn(COURSES)).thenReturn(List.of(
+                new Object[]{3L, 7L}, new Object[]{3L, 8L}));
+        when(userRepository.findByCourseIdIn(COURSES)).thenReturn(List.of(
+                user(1L, UserRole.STUDENT, 7L), user(2L, UserRole.STUDENT, 8L), user(3L, UserRole.TA, null)));
+    }
+
+    private static User user(Long id, UserRole role, Long teamId) {
+        User user = new User("usuario" + id + "@udea.edu.co", "password123", role);
+        user.setId(id);
+        user.setTeamId(teamId);
+        user.setCourseId(3L);
+        return user;
+    }
+
+    private void authenticateAs(User user) {
+        when(currentUserProvider.getCurrentUser()).thenReturn(Optional.of(user));
+    }
+
+    // 1️⃣ Test: un estudiante solo recibe su propio equipo dentro del curso
+    @Test
+    void shouldReturnOnlyOwnTeamToStudent() {
+        authenticateAs(user(1L, UserRole.STUDENT, 7L));
+
+        Map<Long, List<Team>> teams = userQueryService.getTeamsByCourseIds(COURSES);
+
+        assertEquals(List.of(new Team(7L)), teams.get(3L));
+    }
+
+    // 2️⃣ Test: un profesor recibe todos los equipos del curso
+    @Test
+    void shouldReturnAllTeamsToProfessor() {
+        authenticateAs(user(10L, UserRole.PROFESSOR, null));
+
+        Map<Long, List<Team>> teams = userQueryService.getTeamsByCourseIds(COURSES);
+
+        assertEquals(List.of(new Team(7L), new Team(8L)), teams.get(3L));
+    }
+
+    // 3️⃣ Test: un estudiante solo recibe los miembros de su equipo; uno sin equipo no recibe ninguno
+    @Test
+    void shouldReturnOnlyOwnTeamMembersToStudent() {
+        authenticateAs(user(1L, UserRole.STUDENT, 7L));
+        assertEquals(List.of(1L), memberIds(userQueryService.getMembersByCourseIds(COURSES).get(3L)));
+
+        authenticateAs(user(4L, UserRole.STUDENT, null));
+        assertTrue(userQueryService.getMembersByCourseIds(COURSES).get(3L).isEmpty());
+    }
+
+    // 4️⃣ Test: un profesor recibe todos los miembros del curso
+    @Test
+    void shouldReturnAllMembersToProfessor() {
+        authenticateAs(user(10L, UserRole.PROFESSOR, null));
+
+        assertEquals(List.of(1L, 2L, 3L), memberIds(userQueryService.getMembersByCourseIds(COURSES).get(3L)));
+    }
+
+    // 5️⃣ Test: se leen first + 1 filas y la adicional solo indica que hay página siguiente
+    @Test
+    void shouldComputeHasNextPageFromExtraRow() {
+        authenticateAs(user(10L, UserRole.PROFESSOR, null));
+        when(userRepository.findPageAfterId(any(), any(), any(), any(), any())).thenReturn(List.of(
+                user(1L, UserRole.STUDENT, 7L), user(2L, UserRole.STUDENT, 8L), user(3L, UserRole.TA, null)));
+
+        UserConnection page = userQueryService.getCourseMembersPage(3L, 2, null);
+
+        assertEquals(List.of(1L, 2L), edgeIds(page));
+        assertTrue(page.getPageInfo().isHasNextPage());
+        assertFalse(page.getPageInfo().isHasPreviousPage());
+        assertEquals(UserCursor.encode(2L), page.getPageInfo().getEndCursor());
+        assertEquals(3, requestedPage().getPageSize());
+
+        when(userRepository.findPageAfterId(any(), any(), any(), any(), any())).thenReturn(List.of(
+                user(3L, UserRole.TA, null)));
+        UserConnection last = userQueryService.getCourseMembersPage(3L, 2, UserCursor.encode(2L));
+
+        assertEquals(List.of(3L), edgeIds(last));
+        assertFalse(last.getPageInfo().isHasNextPage());
+        assertTrue(last.getPageInfo().isHasPreviousPage());
+        verify(userRepository).findPageAfterId(isNull(), eq(3L), isNull(), eq(2L), any());
+    }
+
+    // 6️⃣ Test: first se limita a max-page-size y sin first se usa default-page-size
+    @Test
+    void shouldClampPageSize() {
+        authenticateAs(user(10L, UserRole.PROFESSOR, null));
+        when(userRepository.findPageAfterId(any(), any(), any(), any(), any())).thenReturn(List.of());
+
+        userQueryService.getUsersPage(null, 100000, null);
+        assertEquals(101, requestedPage().getPageSize());
+
+        clearInvocations(userRepository);
+        userQueryService.getUsersPage(null, null, null);
+        assertEquals(21, requestedPage().getPageSize());
+    }
+
+    // 7️⃣ Test: un estudiante solo pagina su equipo; uno sin equipo recibe una página vacía
+    @Test
+    void shouldPageOnlyOwnTeamForStudent() {
+        authenticateAs(user(1L, UserRole.STUDENT, 7L));
+        when(userRepository.findPageAfterId(any(), any(), any(), any(), any())).thenReturn(List.of(
+                user(1L, UserRole.STUDENT, 7L)));
+
+        assertEquals(List.of(1L), edgeIds(userQueryService.getCourseMembersPage(3L, 10, null)));
+        verify(userRepository).findPageAfterId(isNull(), eq(3L), eq(7L), isNull(), any());
+
+        clearInvocations(userRepository);
+        authenticateAs(user(4L, UserRole.STUDENT, null));
+        UserConnection page = userQueryService.getCourseMembersPage(3L, 10, null);
+
+        assertTrue(page.getEdges().isEmpty());
+        assertFalse(page.getPageInfo().isHasNextPage());
+        verify(userRepository, never()).findPageAfterId(any(), any(), any(), any(), any());
+    }
+
+    // 8️⃣ Test: un TA no puede listar usuarios de otro curso y sin filtro se limita al suyo
+    @Test
+    void shouldRestrictTaToOwnCourse() {
+        authenticateAs(user(5L, UserRole.TA, null));
+        UserFilter otherCourse = new UserFilter();
+        otherCourse.setCourseId(9L);
+
+        assertThrows(AuthenticationException.class, () -> userQueryService.getUsersPage(otherCourse, 10, null));
+        verify(userRepository, never()).findPageAfterId(any(), any(), any(), any(), any());
+
+        when(userRepository.findPageAfterId(any(), any(), any(), any(), any())).thenReturn(List.of());
+        userQueryService.getUsersPage(null, 10, null);
+        verify(userRepository).findPageAfterId(isNull(), eq(3L), isNull(), isNull(), any());
+    }
+
+    private Pageable requestedPage() {
+        ArgumentCaptor<Pageable> pageable = ArgumentCaptor.forClass(Pageable.class);
+        verify(userRepository).findPageAfterId(any(), any(), any(), any(), pageable.capture());
+        return pageable.getValue();
+    }
+
+    private static List<Long> edgeIds(UserConnection page) {
+        return page.getEdges().stream().map(UserEdge::getNode).map(TeamMember::getId).toList();
+    }
+
+    private static List<Long> memberIds(List<TeamMember> members) {
+        return members.stream().map(TeamMember::getId).toList();
+    }
+}